@@ -0,0 +1,233 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package javax.json;
+
+import java.util.Arrays;
+
+/**
+ * This class is a helper class for JsonPatch implementation,
+ * and is not part of the API.
+ *
+ * This class finds a longest common subsequence of the items of two JSON
+ * arrays, with the O(ND) difference algorithm and the linear space
+ * refinement of E. Myers, "An O(ND) Difference Algorithm and Its
+ * Variations". The time is proportional to the size of the arrays times
+ * the number D of items that are added or removed, and the memory is
+ * proportional to the size of the arrays.
+ *
+ * <p>The common prefix and suffix of the arrays are matched first. The
+ * hash codes of the items are computed once and are compared before the
+ * items are compared with {@code equals}.</p>
+ */
+final class ArrayMatcher {
+
+    private final JsonValue[] source;
+    private final JsonValue[] target;
+    private final int[] sourceHashes;
+    private final int[] targetHashes;
+    // Forward and backward furthest reaching paths, indexed by diagonal
+    private final int[] forward;
+    private final int[] backward;
+    // Matched (source index, target index) pairs, in ascending order
+    private int[] matches = new int[16];
+    private int count;
+
+    private ArrayMatcher(JsonArray source, JsonArray target) {
+        this.source = source.toArray(new JsonValue[source.size()]);
+        this.target = target.toArray(new JsonValue[target.size()]);
+        this.sourceHashes = hashes(this.source);
+        this.targetHashes = hashes(this.target);
+        int max = (this.source.length + this.target.length + 1) / 2;
+        this.forward = new int[2*max + 2];
+        this.backward = new int[2*max + 2];
+    }
+
+    /**
+     * Matches the items of two arrays.
+     *
+     * @param source the source array
+     * @param target the target array
+     * @param maxEdits the largest number of items that may be added or
+     *     removed
+     * @return the matched items, as (source index, target index) pairs in
+     *     ascending order, or {@code null} if more than {@code maxEdits}
+     *     items need to be added or removed
+     */
+    static int[] match(JsonArray source, JsonArray target, int maxEdits) {
+        ArrayMatcher matcher = new ArrayMatcher(source, target);
+        if (! matcher.match(0, matcher.source.length, 0, matcher.target.length, maxEdits)) {
+            return null;
+        }
+        return Arrays.copyOf(matcher.matches, 2*matcher.count);
+    }
+
+    private static int[] hashes(JsonValue[] values) {
+        int[] hashes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            hashes[i] = values[i].hashCode();
+        }
+        return hashes;
+    }
+
+    private boolean equal(int i, int j) {
+        return sourceHashes[i] == targetHashes[j] && source[i].equals(target[j]);
+    }
+
+    private void add(int i, int j) {
+        if (2*count == matches.length) {
+            matches = Arrays.copyOf(matches, 2*matches.length);
+        }
+        matches[2*count] = i;
+        matches[2*count+1] = j;
+        count++;
+    }
+
+    // Matches source[a0, a1) with target[b0, b1), returns false if more
+    // than maxEdits items are added or removed
+    private boolean match(int a0, int a1, int b0, int b1, int maxEdits) {
+        while (a0 < a1 && b0 < b1 && equal(a0, b0)) {
+            add(a0++, b0++);
+        }
+        int suffix = 0;
+        while (a0 < a1 && b0 < b1 && equal(a1-1, b1-1)) {
+            a1--; b1--; suffix++;
+        }
+        if (a1 - a0 + b1 - b0 > maxEdits) {
+            // Not worth looking for the middle snake if there are no matches
+            if (a0 == a1 || b0 == b1 || ! split(a0, a1, b0, b1, maxEdits)) {
+                return false;
+            }
+        } else if (a0 < a1 && b0 < b1) {
+            split(a0, a1, b0, b1, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < suffix; i++) {
+            add(a1 + i, b1 + i);
+        }
+        return true;
+    }
+
+    // Finds the middle snake of the shortest edit script, and matches the
+    // two halves. Returns false if more than maxEdits items are added or
+    // removed
+    private boolean split(int a0, int a1, int b0, int b1, int maxEdits) {
+        int n = a1 - a0;
+        int m = b1 - b0;
+        int max = (n + m + 1) / 2;
+        int offset = max;
+        int length = 2*max + 2;
+        Arrays.fill(forward, 0, length, -1);
+        Arrays.fill(backward, 0, length, -1);
+        forward[offset+1] = 0;
+        backward[offset+1] = 0;
+        int delta = n - m;
+        // If the difference is odd, the forward path meets the backward one
+        boolean front = (delta & 1) != 0;
+        int k1start = 0, k1end = 0, k2start = 0, k2end = 0;
+        for (int d = 0; d < max; d++) {
+            // The paths meet at d = ceil(D/2)
+            if (2*d - 1 > maxEdits) {
+                return false;
+            }
+            for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+                int k1offset = offset + k1;
+                int x1;
+                if (k1 == -d || (k1 != d && forward[k1offset-1] < forward[k1offset+1])) {
+                    x1 = forward[k1offset+1];
+                } else {
+                    x1 = forward[k1offset-1] + 1;
+                }
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && equal(a0 + x1, b0 + y1)) {
+                    x1++; y1++;
+                }
+                forward[k1offset] = x1;
+                if (x1 > n) {
+                    k1end += 2;         // off the right of the graph
+                } else if (y1 > m) {
+                    k1start += 2;       // off the bottom of the graph
+                } else if (front) {
+                    int k2offset = offset + delta - k1;
+                    if (k2offset >= 0 && k2offset < length && backward[k2offset] != -1) {
+                        if (x1 >= n - backward[k2offset]) {
+                            return 2*d - 1 <= maxEdits && halves(a0, a1, b0, b1, a0 + x1, b0 + y1);
+                        }
+                    }
+                }
+            }
+            for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+                int k2offset = offset + k2;
+                int x2;
+                if (k2 == -d || (k2 != d && backward[k2offset-1] < backward[k2offset+1])) {
+                    x2 = backward[k2offset+1];
+                } else {
+                    x2 = backward[k2offset-1] + 1;
+                }
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && equal(a1 - x2 - 1, b1 - y2 - 1)) {
+                    x2++; y2++;
+                }
+                backward[k2offset] = x2;
+                if (x2 > n) {
+                    k2end += 2;
+                } else if (y2 > m) {
+                    k2start += 2;
+                } else if (! front) {
+                    int k1offset = offset + delta - k2;
+                    if (k1offset >= 0 && k1offset < length && forward[k1offset] != -1) {
+                        int x1 = forward[k1offset];
+                        int y1 = offset + x1 - k1offset;
+                        if (x1 >= n - x2) {
+                            return 2*d <= maxEdits && halves(a0, a1, b0, b1, a0 + x1, b0 + y1);
+                        }
+                    }
+                }
+            }
+        }
+        // No common items
+        return n + m <= maxEdits;
+    }
+
+    private boolean halves(int a0, int a1, int b0, int b1, int x, int y) {
+        match(a0, x, b0, y, Integer.MAX_VALUE);
+        match(x, a1, y, b1, Integer.MAX_VALUE);
+        return true;
+    }
+}
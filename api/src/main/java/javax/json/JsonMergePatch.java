@@ -40,6 +40,8 @@
 
 package javax.json;
 
+import javax.json.spi.JsonProvider;
+
 /**
  * This class is an implementation of a JSON Merge Patch as specified in
  * <a href="http://tools.ietf.org/html/rfc7396">RFC 7396</a>.
@@ -62,6 +64,10 @@ public class JsonMergePatch {
      *    operations on the target.
      */
     public static JsonValue mergePatch(JsonValue target, JsonValue patch) {
+        return mergePatch(target, patch, JsonProvider.provider());
+    }
+
+    private static JsonValue mergePatch(JsonValue target, JsonValue patch, JsonProvider provider) {
 
         if (patch.getValueType() != JsonValue.ValueType.OBJECT) {
             return patch;
@@ -71,16 +77,16 @@ public class JsonMergePatch {
         }
         JsonObject targetJsonObject = target.asJsonObject();
         JsonObjectBuilder builder = 
-            Json.createObjectBuilder(targetJsonObject);
+            provider.createObjectBuilder(targetJsonObject);
         patch.asJsonObject().forEach((key, value) -> {
             if (value == JsonValue.NULL) {
                 if (targetJsonObject.containsKey(key)) {
                     builder.remove(key);
                 }
             } else if (targetJsonObject.containsKey(key)) {
-                builder.add(key, mergePatch(targetJsonObject.get(key), value));
+                builder.add(key, mergePatch(targetJsonObject.get(key), value, provider));
             } else {
-                builder.add(key, mergePatch(JsonValue.EMPTY_JSON_OBJECT, value));
+                builder.add(key, mergePatch(JsonValue.EMPTY_JSON_OBJECT, value, provider));
             }
         });
         return builder.build();
@@ -93,20 +99,24 @@ public class JsonMergePatch {
      * @return a JSON Patch which when applied to the source, yields the target
      */
     public static JsonValue diff(JsonValue source, JsonValue target) {
+        return diff(source, target, JsonProvider.provider());
+    }
+
+    private static JsonValue diff(JsonValue source, JsonValue target, JsonProvider provider) {
         if (source.getValueType() != JsonValue.ValueType.OBJECT ||
                 target.getValueType() != JsonValue.ValueType.OBJECT) {
             return target;
         }
         JsonObject s = (JsonObject) source;
         JsonObject t = (JsonObject) target;
-        JsonObjectBuilder builder = Json.createObjectBuilder();
+        JsonObjectBuilder builder = provider.createObjectBuilder();
         // First find members to be replaced or removed
         s.forEach((key, value) -> {
             if (t.containsKey(key)) {
                 // key present in both.
                 if (! value.equals(t.get(key))) {
                     // If the values are equal, nop, else get diff for the values
-                    builder.add(key, diff(value, t.get(key)));
+                    builder.add(key, diff(value, t.get(key), provider));
                 }
             } else {
                 builder.addNull(key);
@@ -70,7 +70,16 @@ import javax.json.JsonValue.ValueType;
 
 public class JsonPatch {
 
+    /**
+     * Default largest number of items added to or removed from an array,
+     * for which {@link #diff(JsonStructure, JsonStructure)} diffs the items
+     * of the array.
+     */
+    public static final int DEFAULT_MAX_ARRAY_EDITS = 4096;
+
     private final JsonArray patch;
+    // The compiled operations, shared by all the threads that apply the patch
+    private volatile PatchOperation[] operations;
 
     /**
      * Constructs a JsonPatch
@@ -114,6 +123,21 @@ public class JsonPatch {
         return patch.toString();
     }
 
+    /**
+     * Compiles the patch operations. The operations are read and their
+     * JSON Pointers are parsed only once, when the patch is compiled, and
+     * the compiled operations are used by all the applications of the
+     * patch, which can run concurrently. A patch is compiled when it's
+     * first applied, if this method isn't called before.
+     *
+     * @return this patch
+     * @throws JsonException if the supplied JSON Patch is malformed
+     */
+    public JsonPatch compile() {
+        getOperations();
+        return this;
+    }
+
     /**
      * Applies the patch operations to the specified {@code target}.
      * The target is not modified by the patch.
@@ -127,11 +151,8 @@ public class JsonPatch {
 
         JsonStructure result = target;
 
-        for (JsonValue operation: patch) {
-            if (operation.getValueType() != ValueType.OBJECT) {
-                throw new JsonException("A JSON patch must be an array of JSON objects.");
-            }
-            result = apply(result, (JsonObject) operation);
+        for (PatchOperation operation: getOperations()) {
+            result = operation.apply(result);
         }
         return result;
     }
@@ -160,6 +181,58 @@ public class JsonPatch {
         return (JsonArray) apply((JsonStructure)target);
     }
 
+    /**
+     * Applies the patch operations to a private working copy of the
+     * specified {@code target}, and returns the working copy once all the
+     * operations are applied. The result is the same as {@link #apply},
+     * but the objects and arrays on the paths of the operations are copied
+     * only once for the whole patch, instead of once for each operation.
+     * The target is not modified by the patch, even if an operation fails.
+     *
+     * @param target the target to apply the patch operations
+     * @return the transformed target after the patch
+     * @throws JsonException if the supplied JSON Patch is malformed or if
+     *    it contains references to non-existing members
+     */
+    public JsonStructure applyInWorkingCopy(JsonStructure target) {
+
+        PatchOperation[] operations = getOperations();
+        WorkingCopy copy = new WorkingCopy(target);
+
+        for (PatchOperation operation: operations) {
+            operation.apply(copy);
+        }
+        return copy.toJsonStructure();
+    }
+
+    /**
+     * Applies the patch operations to a private working copy of the
+     * specified {@code target}.
+     *
+     * @param target the target to apply the patch operations
+     * @return the transformed target after the patch
+     * @throws JsonException if the supplied JSON Patch is malformed or if
+     *    it contains references to non-existing members
+     * @see #applyInWorkingCopy(JsonStructure)
+     */
+    public JsonObject applyInWorkingCopy(JsonObject target) {
+        return (JsonObject) applyInWorkingCopy((JsonStructure)target);
+    }
+
+    /**
+     * Applies the patch operations to a private working copy of the
+     * specified {@code target}.
+     *
+     * @param target the target to apply the patch operations
+     * @return the transformed target after the patch
+     * @throws JsonException if the supplied JSON Patch is malformed or if
+     *    it contains references to non-existing members
+     * @see #applyInWorkingCopy(JsonStructure)
+     */
+    public JsonArray applyInWorkingCopy(JsonArray target) {
+        return (JsonArray) applyInWorkingCopy((JsonStructure)target);
+    }
+
     /**
      * Generates a JSON Patch from the source and target {@code JsonStructure}.
      * The generated JSON Patch need not be unique.
@@ -168,74 +241,57 @@ public class JsonPatch {
      * @return a JSON Patch which when applied to the source, yields the target
      */
     public static JsonArray diff(JsonStructure source, JsonStructure target) {
-        return (new DiffGenerator()).diff(source, target);
+        return diff(source, target, DEFAULT_MAX_ARRAY_EDITS);
     }
 
     /**
-     * Applies a JSON Patch operation to the target.
-     * @param target the target to apply the operation
-     * @param operation the JSON Patch operation
-     * @return the target after the patch
+     * Generates a JSON Patch from the source and target {@code JsonStructure}.
+     * The items of two arrays are diffed only if at most
+     * {@code maxArrayEdits} items need to be added or removed, the whole
+     * array is replaced otherwise. The time to diff two arrays is
+     * proportional to their size times the number of items that are added
+     * or removed, and the memory is proportional to their size.
+     * @param source the source
+     * @param target the target, must be the same type as the source
+     * @param maxArrayEdits the largest number of items added to or removed
+     *    from an array, for which the items of the array are diffed
+     * @return a JSON Patch which when applied to the source, yields the target
+     * @throws IllegalArgumentException if {@code maxArrayEdits} is negative
      */
-    private JsonStructure apply(JsonStructure target, JsonObject operation) {
-
-        JsonPointer pointer = getPointer(operation, "path");
-        JsonPointer from;
-        switch (operation.getString("op")) {
-            case "add":
-                return pointer.add(target, getValue(operation));
-            case "replace":
-                return pointer.replace(target, getValue(operation));
-            case "remove":
-                return pointer.remove(target);
-            case "copy":
-                from = getPointer(operation, "from");
-                return pointer.add(target, from.getValue(target));
-            case "move":
-                from = getPointer(operation, "from");
-                if (pointer.equals(from)) {
-                    // nop
-                    return target;
-                }
-                // Check if from is a proper prefix of path
-                if (operation.getString("path").startsWith(operation.getString("from"))){
-                    throw new JsonException("The 'from' path of the patch operation "
-                         + "'move' is a proper prefix of the 'path' path");
-                }
-                return pointer.add(from.remove(target), from.getValue(target));
-            case "test":
-                if (! getValue(operation).equals(pointer.getValue(target))) {
-                    throw new JsonException("The JSON patch operation 'test' failed.");
-                }
-                return target;
-            default:
-                throw new JsonException("Illegal value for the op member of the JSON patch operation: " + operation.getString("op"));
+    public static JsonArray diff(JsonStructure source, JsonStructure target, int maxArrayEdits) {
+        if (maxArrayEdits < 0) {
+            throw new IllegalArgumentException();
         }
+        return (new DiffGenerator(maxArrayEdits)).diff(source, target);
     }
 
-    private JsonPointer getPointer(JsonObject operation, String member) {
-        JsonString pointerString = operation.getJsonString(member);
-        if (pointerString == null) {
-            missingMember(operation.getString("op"), member);
-        }
-        return new JsonPointer(pointerString.getString());
-    }
-
-    private JsonValue getValue(JsonObject operation) {
-        JsonValue value = operation.get("value");
-        if (value == null) {
-            missingMember(operation.getString("op"), "value");
+    /**
+     * Returns the compiled operations, compiling them on first use
+     */
+    private PatchOperation[] getOperations() {
+        PatchOperation[] operations = this.operations;
+        if (operations == null) {
+            operations = new PatchOperation[patch.size()];
+            int i = 0;
+            for (JsonValue operation: patch) {
+                if (operation.getValueType() != ValueType.OBJECT) {
+                    throw new JsonException("A JSON patch must be an array of JSON objects.");
+                }
+                operations[i++] = PatchOperation.of((JsonObject) operation);
+            }
+            this.operations = operations;
         }
-        return value;
-    }
-
-    private void missingMember(String op, String  member) {
-        throw new JsonException(String.format("The JSON Patch operation %s must contain a %s member", op, member));
+        return operations;
     }
 
     static class DiffGenerator {
+        private final int maxArrayEdits;
         private JsonPatchBuilder builder;
 
+        DiffGenerator(int maxArrayEdits) {
+            this.maxArrayEdits = maxArrayEdits;
+        }
+
         JsonArray diff(JsonStructure source, JsonStructure target) {
             builder = new JsonPatchBuilder();
             diff("", source, target);
@@ -243,7 +299,10 @@ public class JsonPatch {
         }
 
         private void diff(String path, JsonValue source, JsonValue target) {
-            if (source.equals(target)) {
+            // Unequal hash codes rule out equality without walking the
+            // values again. Built objects and arrays cache their hash
+            // codes, so the nested calls don't hash the subtrees again
+            if (source.hashCode() == target.hashCode() && source.equals(target)) {
                 return;
             }
             ValueType s = source.getValueType();
@@ -275,59 +334,37 @@ public class JsonPatch {
         /*
          * For array element diff, find the longest common subsequence, per
          * http://en.wikipedia.org/wiki/Longest_common_subsequence_problem .
-         * We modify the algorithm to generate a replace if possible.
+         * The items between two matched items are paired from the end, to
+         * generate a replace if possible, and the other ones are added or
+         * removed. The operations are generated from the end of the arrays,
+         * so that they don't change the indices of the items before them.
          */
         private void diffArray(String path, JsonArray source, JsonArray target) {
-            /* The array c keeps track of length of the subsequence. To avoid
-             * computing the equality of array elements again, we
-             * left shift its value by 1, and use the low order bit to mark
-             * that two items are equal.
-             */ 
-            int m = source.size();
-            int n = target.size();
-            int [][] c = new int[m+1][n+1];
-            for (int i = 0; i < m+1; i++)
-                c[i][0] = 0;
-            for (int i = 0; i < n+1; i++)
-                c[0][i] = 0;
-            for (int i = 0; i < m; i++) {
-                for (int j = 0; j < n; j++) {
-                    if (source.get(i).equals(target.get(j))) {
-                        c[i+1][j+1] = ((c[i][j]) & ~1) + 3;
-                        // 3 = (1 << 1) | 1;
-                    } else {
-                        c[i+1][j+1] = Math.max(c[i+1][j], c[i][j+1]) & ~1;
-                    }
-                }
+            int[] matches = ArrayMatcher.match(source, target, maxArrayEdits);
+            if (matches == null) {
+                builder.replace(path, target);
+                return;
             }
-
-            int i = m;
-            int j = n;
-            while (i > 0 || j > 0) {
-                if (i == 0) {
-                    j--;
-                    builder.add(path + '/' + j, target.get(j));
-                } else if (j == 0) {
+            int i = source.size();
+            int j = target.size();
+            for (int k = matches.length; k >= 0; k -= 2) {
+                // Items after the previous match
+                int si = k == 0 ? 0 : matches[k-2] + 1;
+                int tj = k == 0 ? 0 : matches[k-1] + 1;
+                while (i > si && j > tj) {
+                    i--; j--;
+                    diff(path + '/' + i, source.get(i), target.get(j));
+                }
+                while (i > si) {
                     i--;
                     builder.remove(path + '/' + i);
-                } else if ((c[i][j] & 1) == 1) {
-                    i--; j--;
-                } else {
-                    int f = c[i][j-1] >> 1;
-                    int g = c[i-1][j] >> 1;
-                    if (f > g) {
-                        j--;
-                        builder.add(path + '/' + j, target.get(j));
-                    } else if (f < g) {
-                        i--;
-                        builder.remove(path + '/' + i);
-                    } else { // f == g) {
-                       i--; j--;
-                       diff(path + '/' + i, source.get(i), target.get(j));
-                    }
                 }
+                while (j > tj) {
+                    j--;
+                    builder.add(path + '/' + i, target.get(j));
+                }
+                i--; j--;
             }
         }
     }
 }
-
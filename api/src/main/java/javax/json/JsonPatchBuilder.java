@@ -40,6 +40,8 @@
 
 package javax.json;
 
+import javax.json.spi.JsonProvider;
+
 /**
  * A builder for constructing a JSON Patch by adding
  * JSON Patch operations incrementally.
@@ -63,6 +65,7 @@ package javax.json;
 
 public final class JsonPatchBuilder {
 
+    private final JsonProvider provider;
     private JsonArrayBuilder builder; 
 
     /**
@@ -71,14 +74,16 @@ public final class JsonPatchBuilder {
      * @param patch the JSON Patch
      */
     public JsonPatchBuilder(JsonArray patch) {
-        builder = Json.createArrayBuilder(patch);
+        provider = JsonProvider.provider();
+        builder = provider.createArrayBuilder(patch);
     }
 
     /**
      * Creates JsonPatchBuilder with empty JSON Patch
      */
     public JsonPatchBuilder() {
-        builder = Json.createArrayBuilder();
+        provider = JsonProvider.provider();
+        builder = provider.createArrayBuilder();
     }
 
     /**
@@ -126,7 +131,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder add(String path, JsonValue value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "add")
                            .add("path", path)
                            .add("value", value)
@@ -141,7 +146,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder add(String path, String value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "add")
                            .add("path", path)
                            .add("value", value)
@@ -156,7 +161,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder add(String path, int value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "add")
                            .add("path", path)
                            .add("value", value)
@@ -171,7 +176,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder add(String path, boolean value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "add")
                            .add("path", path)
                            .add("value", value)
@@ -185,7 +190,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder remove(String path) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "remove")
                            .add("path", path)
                     );
@@ -199,7 +204,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder replace(String path, JsonValue value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "replace")
                            .add("path", path)
                            .add("value", value)
@@ -214,7 +219,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder replace(String path, String value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "replace")
                            .add("path", path)
                            .add("value", value)
@@ -229,7 +234,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder replace(String path, int value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "replace")
                            .add("path", path)
                            .add("value", value)
@@ -244,7 +249,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder replace(String path, boolean value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "replace")
                            .add("path", path)
                            .add("value", value)
@@ -259,7 +264,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder move(String path, String from) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "move")
                            .add("path", path)
                            .add("from", from)
@@ -274,7 +279,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder copy(String path, String from) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "copy")
                            .add("path", path)
                            .add("from", from)
@@ -289,7 +294,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder test(String path, JsonValue value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "test")
                            .add("path", path)
                            .add("value", value)
@@ -304,7 +309,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder test(String path, String value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "test")
                            .add("path", path)
                            .add("value", value)
@@ -319,7 +324,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder test(String path, int value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "test")
                            .add("path", path)
                            .add("value", value)
@@ -334,7 +339,7 @@ public final class JsonPatchBuilder {
      * @return this JsonPatch
      */
     public JsonPatchBuilder test(String path, boolean value) {
-        builder.add(Json.createObjectBuilder()
+        builder.add(provider.createObjectBuilder()
                            .add("op", "test")
                            .add("path", path)
                            .add("value", value)
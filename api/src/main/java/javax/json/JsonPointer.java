@@ -40,6 +40,7 @@
 
 package javax.json;
 
+import javax.json.spi.JsonProvider;
 import java.io.Serializable;
 import java.util.function.BiFunction;
 
@@ -70,6 +71,9 @@ public class JsonPointer implements Serializable {
     private static final long serialVersionUID = -8123110179640843141L;
     private final String[] tokens;
     private final String jsonPointer;
+    // Array indices of the tokens, computed on first use
+    private transient volatile int[] indices;
+    private static final int NOT_AN_INDEX = Integer.MIN_VALUE;
 
     /**
      * Constructs and initializes a JsonPointer.
@@ -286,6 +290,38 @@ public class JsonPointer implements Serializable {
         return (JsonArray) remove((JsonStructure) target);
     }
 
+    /**
+     * Returns the reference tokens, starting with the "" token
+     */
+    String[] getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the array index of a reference token, the same as
+     * {@link #getIndex(String)}. The indices are parsed once for all the
+     * uses of this pointer.
+     * @param i the position of the token in {@link #getTokens}
+     * @return the array index. -1 if the token is "-"
+     * @throws JsonException if the string token is not in correct format
+     */
+    int getArrayIndex(int i) {
+        int[] indices = this.indices;
+        if (indices == null) {
+            indices = new int[tokens.length];
+            for (int j = 1; j < tokens.length; j++) {
+                try {
+                    indices[j] = getIndex(tokens[j]);
+                } catch (JsonException e) {
+                    indices[j] = NOT_AN_INDEX;
+                }
+            }
+            this.indices = indices;
+        }
+        int index = indices[i];
+        return index == NOT_AN_INDEX ? getIndex(tokens[i]) : index;
+    }
+
     /**
      * Executes the operation
      * @param op a {code BiFunction} used to specify the operation to execute on
@@ -318,6 +354,7 @@ public class JsonPointer implements Serializable {
         }
 
         references = new NodeReference[tokens.length-1];
+        JsonProvider provider = JsonProvider.provider();
         JsonValue value = target;
         int s = tokens.length;
         for (int i = 1; i < s; i++) {
@@ -325,7 +362,7 @@ public class JsonPointer implements Serializable {
             switch (value.getValueType()) {
                 case OBJECT:
                     JsonObject object = (JsonObject) value;
-                    references[s-i-1] = NodeReference.of(object, tokens[i]);
+                    references[s-i-1] = NodeReference.of(object, tokens[i], provider);
                     if (i < s-1) {
                         value = object.get(tokens[i]);
                         if (value == null) {
@@ -336,9 +373,9 @@ public class JsonPointer implements Serializable {
                     }
                     break;
                 case ARRAY:
-                    int index = getIndex(tokens[i]);
+                    int index = getArrayIndex(i);
                     JsonArray array = (JsonArray) value;
-                    references[s-i-1] = NodeReference.of(array, index);
+                    references[s-i-1] = NodeReference.of(array, index, provider);
                     if (i < s-1 && index != -1) {
                         // The last array index in the path can have index value of -1
                         // ("-" in the JSON pointer)
@@ -39,6 +39,8 @@
  */
 package javax.json;
 
+import javax.json.spi.JsonProvider;
+
 /**
  * This class is a helper class for JsonPointer implementation,
  * and is not part of the API.
@@ -127,7 +129,7 @@ abstract class NodeReference {
      * @return the {@code NodeReference} 
      */
     public static NodeReference of(JsonObject object, String name) {
-        return new ObjectReference(object, name);
+        return of(object, name, JsonProvider.provider());
     }
 
     /**
@@ -139,7 +141,33 @@ abstract class NodeReference {
      * @return the {@code NodeReference} 
      */
     public static NodeReference of(JsonArray array, int index) {
-        return new ArrayReference(array, index);
+        return of(array, index, JsonProvider.provider());
+    }
+
+    /**
+     * Returns a {@code NodeReference} for a name/value pair in a
+     * JSON object, which builds the changed object with the provider.
+     *
+     * @param object the referenced JSON object
+     * @param name the name of the name/pair
+     * @param provider the provider of the object builder
+     * @return the {@code NodeReference}
+     */
+    static NodeReference of(JsonObject object, String name, JsonProvider provider) {
+        return new ObjectReference(object, name, provider);
+    }
+
+    /**
+     * Returns a {@code NodeReference} for a member value in a
+     * JSON array, which builds the changed array with the provider.
+     *
+     * @param array the referenced JSON array
+     * @param index the index of the member value in the JSON array
+     * @param provider the provider of the array builder
+     * @return the {@code NodeReference}
+     */
+    static NodeReference of(JsonArray array, int index, JsonProvider provider) {
+        return new ArrayReference(array, index, provider);
     }
 
     static class RootReference extends NodeReference {
@@ -183,10 +211,12 @@ abstract class NodeReference {
 
         private final JsonObject object;
         private final String key;
+        private final JsonProvider provider;
 
-        ObjectReference(JsonObject object, String key) {
+        ObjectReference(JsonObject object, String key, JsonProvider provider) {
             this.object = object;
             this.key = key;
+            this.provider = provider;
         }
 
         @Override
@@ -199,7 +229,7 @@ abstract class NodeReference {
 
         @Override
         public JsonObject add(JsonValue value) {
-            return Json.createObjectBuilder(object).add(key, value).build();
+            return provider.createObjectBuilder(object).add(key, value).build();
         }
 
         @Override 
@@ -207,7 +237,7 @@ abstract class NodeReference {
             if (! object.containsKey(key)) {
                 throw new JsonException("Cannot remove a non-existing name/value pair in the object");
             }
-            return Json.createObjectBuilder(object).remove(key).build();
+            return provider.createObjectBuilder(object).remove(key).build();
         }   
 
         @Override
@@ -223,10 +253,12 @@ abstract class NodeReference {
      
         private final JsonArray array;
         private final int index; // -1 means "-" in JSON Pointer
+        private final JsonProvider provider;
 
-        ArrayReference(JsonArray array, int index) {
+        ArrayReference(JsonArray array, int index, JsonProvider provider) {
             this.array = array;
             this.index = index;
+            this.provider = provider;
         }
  
         @Override
@@ -241,7 +273,7 @@ abstract class NodeReference {
         public JsonArray add(JsonValue value) {
             //TODO should we check for arrayoutofbounds?
             // The spec seems to say index = array.size() is allowed. This is handled as append
-            JsonArrayBuilder builder = Json.createArrayBuilder(this.array);
+            JsonArrayBuilder builder = provider.createArrayBuilder(this.array);
             if (index == -1 || index == array.size()) {
                 builder.add(value);
             } else {
@@ -259,7 +291,7 @@ abstract class NodeReference {
             if (index == -1 || index >= array.size()) {
                 throw new JsonException("Cannot remove an array item with an out of range index: " + index);
             }
-            JsonArrayBuilder builder = Json.createArrayBuilder(this.array);
+            JsonArrayBuilder builder = provider.createArrayBuilder(this.array);
             return builder.remove(index).build();
         }
 
@@ -268,7 +300,7 @@ abstract class NodeReference {
             if (index == -1 || index >= array.size()) {
                 throw new JsonException("Cannot replace an array item with an out of range index: " + index);
             }
-            JsonArrayBuilder builder = Json.createArrayBuilder(this.array);
+            JsonArrayBuilder builder = provider.createArrayBuilder(this.array);
             return builder.set(index, value).build();
         }
     }
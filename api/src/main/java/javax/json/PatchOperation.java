@@ -0,0 +1,271 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package javax.json;
+
+/**
+ * This class is a helper class for JsonPatch implementation,
+ * and is not part of the API.
+ *
+ * This class is a compiled JSON Patch operation. The members of the
+ * operation object are read and the JSON Pointers are parsed once, when
+ * the operation is created with {@link #of}. An operation is immutable, and
+ * can be applied to any number of targets, concurrently.
+ *
+ * <p>An operation is applied either to an immutable target, which returns
+ * a new JSON object or array, or to a {@link WorkingCopy}, which is
+ * modified in place.</p>
+ */
+abstract class PatchOperation {
+
+    final JsonPointer path;
+
+    PatchOperation(JsonPointer path) {
+        this.path = path;
+    }
+
+    /**
+     * Applies the operation to the target.
+     *
+     * @param target the target to apply the operation
+     * @return the target after the operation
+     * @throws JsonException if the operation fails
+     */
+    abstract JsonStructure apply(JsonStructure target);
+
+    /**
+     * Applies the operation to a working copy.
+     *
+     * @param copy the working copy to apply the operation
+     * @throws JsonException if the operation fails
+     */
+    abstract void apply(WorkingCopy copy);
+
+    /**
+     * Compiles a JSON Patch operation.
+     *
+     * @param operation the JSON Patch operation
+     * @return the compiled operation
+     * @throws JsonException if the operation is malformed
+     */
+    static PatchOperation of(JsonObject operation) {
+        String op = operation.getString("op");
+        JsonPointer path = getPointer(operation, "path");
+        switch (op) {
+            case "add":
+                return new Add(path, getValue(operation));
+            case "replace":
+                return new Replace(path, getValue(operation));
+            case "remove":
+                return new Remove(path);
+            case "copy":
+                return new Copy(path, getPointer(operation, "from"));
+            case "move":
+                JsonPointer from = getPointer(operation, "from");
+                if (path.equals(from)) {
+                    return new Nop(path);
+                }
+                // Check if from is a proper prefix of path
+                if (operation.getString("path").startsWith(operation.getString("from"))){
+                    throw new JsonException("The 'from' path of the patch operation "
+                         + "'move' is a proper prefix of the 'path' path");
+                }
+                return new Move(path, from);
+            case "test":
+                return new Test(path, getValue(operation));
+            default:
+                throw new JsonException("Illegal value for the op member of the JSON patch operation: " + op);
+        }
+    }
+
+    private static JsonPointer getPointer(JsonObject operation, String member) {
+        JsonString pointerString = operation.getJsonString(member);
+        if (pointerString == null) {
+            missingMember(operation.getString("op"), member);
+        }
+        return new JsonPointer(pointerString.getString());
+    }
+
+    private static JsonValue getValue(JsonObject operation) {
+        JsonValue value = operation.get("value");
+        if (value == null) {
+            missingMember(operation.getString("op"), "value");
+        }
+        return value;
+    }
+
+    private static void missingMember(String op, String  member) {
+        throw new JsonException(String.format("The JSON Patch operation %s must contain a %s member", op, member));
+    }
+
+    private static final class Add extends PatchOperation {
+        private final JsonValue value;
+
+        Add(JsonPointer path, JsonValue value) {
+            super(path);
+            this.value = value;
+        }
+
+        @Override
+        JsonStructure apply(JsonStructure target) {
+            return path.add(target, value);
+        }
+
+        @Override
+        void apply(WorkingCopy copy) {
+            copy.add(path, value);
+        }
+    }
+
+    private static final class Replace extends PatchOperation {
+        private final JsonValue value;
+
+        Replace(JsonPointer path, JsonValue value) {
+            super(path);
+            this.value = value;
+        }
+
+        @Override
+        JsonStructure apply(JsonStructure target) {
+            return path.replace(target, value);
+        }
+
+        @Override
+        void apply(WorkingCopy copy) {
+            copy.replace(path, value);
+        }
+    }
+
+    private static final class Remove extends PatchOperation {
+
+        Remove(JsonPointer path) {
+            super(path);
+        }
+
+        @Override
+        JsonStructure apply(JsonStructure target) {
+            return path.remove(target);
+        }
+
+        @Override
+        void apply(WorkingCopy copy) {
+            copy.remove(path);
+        }
+    }
+
+    private static final class Copy extends PatchOperation {
+        private final JsonPointer from;
+
+        Copy(JsonPointer path, JsonPointer from) {
+            super(path);
+            this.from = from;
+        }
+
+        @Override
+        JsonStructure apply(JsonStructure target) {
+            return path.add(target, from.getValue(target));
+        }
+
+        @Override
+        void apply(WorkingCopy copy) {
+            copy.add(path, copy.getValue(from));
+        }
+    }
+
+    private static final class Move extends PatchOperation {
+        private final JsonPointer from;
+
+        Move(JsonPointer path, JsonPointer from) {
+            super(path);
+            this.from = from;
+        }
+
+        @Override
+        JsonStructure apply(JsonStructure target) {
+            return path.add(from.remove(target), from.getValue(target));
+        }
+
+        @Override
+        void apply(WorkingCopy copy) {
+            copy.add(path, copy.remove(from));
+        }
+    }
+
+    // A move to the same location
+    private static final class Nop extends PatchOperation {
+
+        Nop(JsonPointer path) {
+            super(path);
+        }
+
+        @Override
+        JsonStructure apply(JsonStructure target) {
+            return target;
+        }
+
+        @Override
+        void apply(WorkingCopy copy) {
+        }
+    }
+
+    private static final class Test extends PatchOperation {
+        private final JsonValue value;
+
+        Test(JsonPointer path, JsonValue value) {
+            super(path);
+            this.value = value;
+        }
+
+        @Override
+        JsonStructure apply(JsonStructure target) {
+            if (! value.equals(path.getValue(target))) {
+                throw new JsonException("The JSON patch operation 'test' failed.");
+            }
+            return target;
+        }
+
+        @Override
+        void apply(WorkingCopy copy) {
+            if (! copy.test(path, value)) {
+                throw new JsonException("The JSON patch operation 'test' failed.");
+            }
+        }
+    }
+}
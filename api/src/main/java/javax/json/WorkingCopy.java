@@ -0,0 +1,409 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package javax.json;
+
+import javax.json.spi.JsonProvider;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a helper class for JsonPatch implementation,
+ * and is not part of the API.
+ *
+ * This class is a private, mutable copy of a JSON tree that the
+ * operations of a patch modify in place. A JSON object or array is copied
+ * into a mutable container only when an operation modifies it or one of
+ * its descendants, the other values are shared with the original tree.
+ * The original tree is never modified, so it is left untouched when an
+ * operation fails.
+ *
+ * <p>The operations throw the same exceptions as the {@link JsonPointer}
+ * operations, and {@link #toJsonStructure} makes the result immutable once,
+ * after the last operation.</p>
+ */
+final class WorkingCopy {
+
+    // Mutable copies of a JsonObject and a JsonArray. Their values are
+    // either JsonValues or other mutable copies. As long as no member is
+    // removed and no item is inserted or removed, only the changed values
+    // are written to a builder of the source when they are made immutable.
+    private static final class MutableObject extends LinkedHashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+        final JsonObject source;
+        boolean reordered;
+
+        MutableObject(JsonObject source) {
+            super(source);
+            this.source = source;
+        }
+    }
+
+    private static final class MutableArray extends ArrayList<Object> {
+        private static final long serialVersionUID = 1L;
+        final JsonArray source;
+        boolean resized;
+
+        MutableArray(JsonArray source) {
+            super(source);
+            this.source = source;
+        }
+    }
+
+    private final JsonProvider provider;
+    private Object root;
+
+    WorkingCopy(JsonStructure target) {
+        this.provider = JsonProvider.provider();
+        this.root = target;
+    }
+
+    /**
+     * Returns the value at the referenced location.
+     *
+     * @param pointer the location
+     * @return the JSON value referenced
+     * @throws JsonException if the referenced value does not exist
+     */
+    JsonValue getValue(JsonPointer pointer) {
+        return freeze(get(pointer));
+    }
+
+    /**
+     * Compares the value at the referenced location with a value, without
+     * making a mutable copy immutable.
+     *
+     * @param pointer the location
+     * @param value the value to compare with
+     * @return whether the values are equal
+     * @throws JsonException if the referenced value does not exist
+     */
+    boolean test(JsonPointer pointer, JsonValue value) {
+        return matches(value, get(pointer));
+    }
+
+    /**
+     * Adds or replaces a value, the same as {@link JsonPointer#add}.
+     *
+     * @param pointer the location
+     * @param value a JSON value or a value returned by {@link #remove}
+     */
+    void add(JsonPointer pointer, Object value) {
+        String[] tokens = pointer.getTokens();
+        if (tokens.length == 1) {
+            setRoot(value);
+            return;
+        }
+        Object parent = parent(pointer);
+        String last = tokens[tokens.length-1];
+        if (parent instanceof MutableObject) {
+            ((MutableObject) parent).put(last, value);
+            return;
+        }
+        MutableArray array = (MutableArray) parent;
+        int index = pointer.getArrayIndex(tokens.length-1);
+        array.resized = true;
+        if (index == -1 || index == array.size()) {
+            array.add(value);
+        } else if (index < array.size()) {
+            array.add(index, value);
+        } else {
+            throw new JsonException("Cannot add an array item with an out of range index: " + index);
+        }
+    }
+
+    /**
+     * Replaces a value, the same as {@link JsonPointer#replace}.
+     *
+     * @param pointer the location
+     * @param value a JSON value
+     */
+    void replace(JsonPointer pointer, JsonValue value) {
+        String[] tokens = pointer.getTokens();
+        if (tokens.length == 1) {
+            setRoot(value);
+            return;
+        }
+        Object parent = parent(pointer);
+        String last = tokens[tokens.length-1];
+        if (parent instanceof MutableObject) {
+            MutableObject object = (MutableObject) parent;
+            if (! object.containsKey(last)) {
+                throw new JsonException("Cannot replace a non-existing name/value pair in the object");
+            }
+            object.put(last, value);
+            return;
+        }
+        MutableArray array = (MutableArray) parent;
+        int index = pointer.getArrayIndex(tokens.length-1);
+        if (index == -1 || index >= array.size()) {
+            throw new JsonException("Cannot replace an array item with an out of range index: " + index);
+        }
+        array.set(index, value);
+    }
+
+    /**
+     * Removes a value, the same as {@link JsonPointer#remove}.
+     *
+     * @param pointer the location
+     * @return the removed value, which can be added back with {@link #add}
+     */
+    Object remove(JsonPointer pointer) {
+        String[] tokens = pointer.getTokens();
+        if (tokens.length == 1) {
+            throw new JsonException("The JSON value at the root cannot be removed;");
+        }
+        Object parent = parent(pointer);
+        String last = tokens[tokens.length-1];
+        if (parent instanceof MutableObject) {
+            MutableObject object = (MutableObject) parent;
+            if (! object.containsKey(last)) {
+                throw new JsonException("Cannot remove a non-existing name/value pair in the object");
+            }
+            object.reordered = true;
+            return object.remove(last);
+        }
+        MutableArray array = (MutableArray) parent;
+        int index = pointer.getArrayIndex(tokens.length-1);
+        if (index == -1 || index >= array.size()) {
+            throw new JsonException("Cannot remove an array item with an out of range index: " + index);
+        }
+        array.resized = true;
+        return array.remove(index);
+    }
+
+    /**
+     * Returns the immutable result of the operations.
+     *
+     * @return the patched JSON object or array
+     */
+    JsonStructure toJsonStructure() {
+        return (JsonStructure) freeze(root);
+    }
+
+    private void setRoot(Object value) {
+        if (!(value instanceof MutableObject || value instanceof MutableArray)) {
+            switch (((JsonValue) value).getValueType()) {
+                case OBJECT:
+                case ARRAY:
+                    break;
+                default:
+                    throw new JsonException("The root value only allows adding a JSON object or array");
+            }
+        }
+        root = value;
+    }
+
+    private Object get(JsonPointer pointer) {
+        String[] tokens = pointer.getTokens();
+        if (tokens.length == 1) {
+            return root;
+        }
+        Object value = root;
+        int s = tokens.length;
+        for (int i = 1; i < s-1; i++) {
+            value = child(value, pointer, i);
+        }
+        String last = tokens[s-1];
+        if (isObject(value)) {
+            Object member = ((Map<?, ?>) value).get(last);
+            if (member == null) {
+                throw new JsonException("Cannot get a non-existing name/value pair in the object");
+            }
+            return member;
+        }
+        checkArray(value);
+        int index = pointer.getArrayIndex(s-1);
+        List<?> array = (List<?>) value;
+        if (index == -1 || index >= array.size()) {
+            throw new JsonException("Cannot get an array item with an out of range index: " + index);
+        }
+        return array.get(index);
+    }
+
+    // Mutable copy of the object or array that has the last token, the
+    // containers on the path are replaced with their mutable copies
+    private Object parent(JsonPointer pointer) {
+        String[] tokens = pointer.getTokens();
+        root = thaw(root);
+        Object value = root;
+        int s = tokens.length;
+        for (int i = 1; i < s-1; i++) {
+            Object child = child(value, pointer, i);
+            if (child == value) {
+                // "-" in the path, JsonPointer fails to replace the item
+                throw new JsonException("Cannot replace an array item with an out of range index: -1");
+            }
+            Object copy = thaw(child);
+            if (copy != child) {
+                if (value instanceof MutableObject) {
+                    ((MutableObject) value).put(tokens[i], copy);
+                } else {
+                    ((MutableArray) value).set(pointer.getArrayIndex(i), copy);
+                }
+            }
+            value = copy;
+        }
+        if (!(value instanceof MutableObject)) {
+            checkArray(value);
+        }
+        return value;
+    }
+
+    // Value of a token in the middle of a path, same as JsonPointer
+    private Object child(Object value, JsonPointer pointer, int i) {
+        String token = pointer.getTokens()[i];
+        if (isObject(value)) {
+            Object child = ((Map<?, ?>) value).get(token);
+            if (child == null) {
+                // Except for the last name, the mapping must exist
+                throw new JsonException("The JSON object " + freeze(value) + " contains no mapping "
+                        + " for the name " + token);
+            }
+            return child;
+        }
+        checkArray(value);
+        int index = pointer.getArrayIndex(i);
+        // The last array index in the path can have index value of -1
+        // ("-" in the JSON pointer), others stay at the array
+        return index == -1 ? value : ((List<?>) value).get(index);
+    }
+
+    private static boolean isObject(Object value) {
+        return value instanceof MutableObject
+                || (!(value instanceof MutableArray)
+                        && ((JsonValue) value).getValueType() == JsonValue.ValueType.OBJECT);
+    }
+
+    private static void checkArray(Object value) {
+        if (!(value instanceof MutableArray)
+                && ((JsonValue) value).getValueType() != JsonValue.ValueType.ARRAY) {
+            throw new JsonException("The reference value in a Json pointer must be a Json object or a Json array");
+        }
+    }
+
+    private static Object thaw(Object value) {
+        if (value instanceof MutableObject || value instanceof MutableArray) {
+            return value;
+        }
+        switch (((JsonValue) value).getValueType()) {
+            case OBJECT:
+                return new MutableObject((JsonObject) value);
+            case ARRAY:
+                return new MutableArray((JsonArray) value);
+            default:
+                return value;
+        }
+    }
+
+    private JsonValue freeze(Object value) {
+        if (value instanceof MutableObject) {
+            MutableObject object = (MutableObject) value;
+            JsonObjectBuilder builder;
+            if (object.reordered) {
+                builder = provider.createObjectBuilder();
+                for (Map.Entry<String, Object> e : object.entrySet()) {
+                    builder.add(e.getKey(), freeze(e.getValue()));
+                }
+            } else {
+                builder = provider.createObjectBuilder(object.source);
+                for (Map.Entry<String, Object> e : object.entrySet()) {
+                    if (e.getValue() != object.source.get(e.getKey())) {
+                        builder.add(e.getKey(), freeze(e.getValue()));
+                    }
+                }
+            }
+            return builder.build();
+        }
+        if (value instanceof MutableArray) {
+            MutableArray array = (MutableArray) value;
+            JsonArrayBuilder builder;
+            if (array.resized) {
+                builder = provider.createArrayBuilder();
+                for (Object item : array) {
+                    builder.add(freeze(item));
+                }
+            } else {
+                builder = provider.createArrayBuilder(array.source);
+                for (int i = 0; i < array.size(); i++) {
+                    if (array.get(i) != array.source.get(i)) {
+                        builder.set(i, freeze(array.get(i)));
+                    }
+                }
+            }
+            return builder.build();
+        }
+        return (JsonValue) value;
+    }
+
+    // Same as expected.equals(freeze(actual))
+    private static boolean matches(JsonValue expected, Object actual) {
+        if (actual instanceof MutableObject) {
+            MutableObject object = (MutableObject) actual;
+            if (expected.getValueType() != JsonValue.ValueType.OBJECT
+                    || ((JsonObject) expected).size() != object.size()) {
+                return false;
+            }
+            for (Map.Entry<String, JsonValue> e : ((JsonObject) expected).entrySet()) {
+                Object member = object.get(e.getKey());
+                if (member == null || !matches(e.getValue(), member)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (actual instanceof MutableArray) {
+            MutableArray array = (MutableArray) actual;
+            if (expected.getValueType() != JsonValue.ValueType.ARRAY
+                    || ((JsonArray) expected).size() != array.size()) {
+                return false;
+            }
+            for (int i = 0; i < array.size(); i++) {
+                if (!matches(((JsonArray) expected).get(i), array.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return expected.equals(actual);
+    }
+}
@@ -49,10 +49,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.WeakHashMap;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -72,13 +74,22 @@ public abstract class JsonProvider {
      */
     private static final String DEFAULT_PROVIDER
             = "org.glassfish.json.JsonProviderImpl";
-    private static final ThreadLocal<ServiceLoader<JsonProvider>> threadLoader =
-        new ThreadLocal<ServiceLoader<JsonProvider>>() {
-            @Override
-            protected ServiceLoader<JsonProvider> initialValue() {
-                return ServiceLoader.load(JsonProvider.class);
-            }
-        };
+    // Providers resolved for the context class loaders. A provider that is
+    // loaded by a class loader keeps it from being collected until the
+    // cache is cleared
+    private static final Map<ClassLoader, JsonProvider> providers = new WeakHashMap<>();
+    // The last resolved provider, looked up without locking
+    private static volatile Resolved lastResolved;
+
+    private static final class Resolved {
+        final WeakReference<ClassLoader> loader;
+        final JsonProvider provider;
+
+        Resolved(ClassLoader loader, JsonProvider provider) {
+            this.loader = new WeakReference<>(loader);
+            this.provider = provider;
+        }
+    }
 
     //Lazy initialization holder class idiom
     private static class JsonProviderHolder {
@@ -108,11 +119,38 @@ public abstract class JsonProvider {
      * {@link ServiceLoader#load(Class)} method. If there are no available
      * service providers, this method returns the default service provider.
      *
+     * <p>The provider is loaded once for each context class loader, and
+     * the same provider object is returned by the later calls with the
+     * same context class loader, until {@link #clearProviderCache} is
+     * called.</p>
+     *
      * @see ServiceLoader
      * @return a JSON provider
      */
     public static JsonProvider provider() {
-        Iterator<JsonProvider> it = threadLoader.get().iterator();
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            // Same as ServiceLoader.load()
+            loader = ClassLoader.getSystemClassLoader();
+        }
+        Resolved resolved = lastResolved;
+        if (resolved != null && resolved.loader.get() == loader) {
+            return resolved.provider;
+        }
+        JsonProvider provider;
+        synchronized (providers) {
+            provider = providers.get(loader);
+            if (provider == null) {
+                provider = load(loader);
+                providers.put(loader, provider);
+            }
+            lastResolved = new Resolved(loader, provider);
+        }
+        return provider;
+    }
+
+    private static JsonProvider load(ClassLoader loader) {
+        Iterator<JsonProvider> it = ServiceLoader.load(JsonProvider.class, loader).iterator();
         if (it.hasNext()) {
             return it.next();
         }
@@ -120,6 +158,22 @@ public abstract class JsonProvider {
         return JsonProviderHolder.defaultJsonProvider;
     }
 
+    /**
+     * Clears the providers that are cached by {@link #provider()}. The
+     * providers are loaded again by the later calls. A container calls
+     * this method when an application is undeployed, so that its class
+     * loader can be collected, or when the providers available to the
+     * application change.
+     *
+     * @since 1.1
+     */
+    public static void clearProviderCache() {
+        synchronized (providers) {
+            providers.clear();
+            lastResolved = null;
+        }
+    }
+
     /**
      * Creates a JSON parser from a character stream.
      *
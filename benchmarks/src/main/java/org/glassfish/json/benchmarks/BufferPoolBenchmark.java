@@ -0,0 +1,139 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import org.glassfish.json.BufferPoolImpl;
+import org.glassfish.json.api.BufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures take/recycle pairs on a shared {@link BufferPool} at 1, 8 and
+ * 64 threads. The {@code queue} pool is the former single queue
+ * implementation, kept here as the baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BufferPoolBenchmark {
+
+    @Param({"tiered", "queue"})
+    String pool;
+
+    private BufferPool bufferPool;
+
+    @Setup
+    public void setup() {
+        bufferPool = pool.equals("tiered") ? new BufferPoolImpl() : new QueueBufferPool();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public char[] threads1() {
+        return takeAndRecycle();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public char[] threads8() {
+        return takeAndRecycle();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public char[] threads64() {
+        return takeAndRecycle();
+    }
+
+    private char[] takeAndRecycle() {
+        char[] buf = bufferPool.take();
+        buf[0] = 'x';
+        bufferPool.recycle(buf);
+        return buf;
+    }
+
+    // Single ConcurrentLinkedQueue held through a WeakReference
+    static final class QueueBufferPool implements BufferPool {
+        private volatile WeakReference<ConcurrentLinkedQueue<char[]>> queue;
+
+        @Override
+        public char[] take() {
+            char[] t = getQueue().poll();
+            return t == null ? new char[4096] : t;
+        }
+
+        private ConcurrentLinkedQueue<char[]> getQueue() {
+            WeakReference<ConcurrentLinkedQueue<char[]>> q = queue;
+            if (q != null) {
+                ConcurrentLinkedQueue<char[]> d = q.get();
+                if (d != null) {
+                    return d;
+                }
+            }
+            ConcurrentLinkedQueue<char[]> d = new ConcurrentLinkedQueue<>();
+            queue = new WeakReference<>(d);
+            return d;
+        }
+
+        @Override
+        public void recycle(char[] t) {
+            getQueue().offer(t);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the records with {@code JsonObjectBuilder} and
+ * {@code JsonArrayBuilder}, and copies a tree into new builders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuilderBenchmark {
+
+    @Param({"small", "medium", "large"})
+    String size;
+
+    private int count;
+    private JsonArray tree;
+    private final JsonBuilderFactory factory = Json.createBuilderFactory(null);
+
+    @Setup
+    public void setup() {
+        count = Corpus.count(size);
+        tree = Corpus.tree(size);
+    }
+
+    @Benchmark
+    public JsonArray build() {
+        JsonArrayBuilder array = factory.createArrayBuilder();
+        for (int i = 0; i < count; i++) {
+            array.add(factory.createObjectBuilder()
+                    .add("id", i)
+                    .add("timestamp", 1420070400000L + i * 1000L)
+                    .add("user", "user-" + (i % 97))
+                    .add("level", i % 10 == 0 ? "WARN" : "INFO")
+                    .add("message", "The quick brown fox jumps over the lazy dog near the river bank")
+                    .add("latency", 0.5 + (i % 1000) / 8.0)
+                    .add("success", i % 13 != 0)
+                    .add("tags", factory.createArrayBuilder()
+                            .add("web")
+                            .add("region-" + (i % 4)))
+                    .add("source", factory.createObjectBuilder()
+                            .add("host", "node-" + (i % 16) + ".example.com")
+                            .add("port", 8080 + i % 4)
+                            .addNull("zone")));
+        }
+        return array.build();
+    }
+
+    @Benchmark
+    public JsonArray copy() {
+        return factory.createArrayBuilder(tree).build();
+    }
+
+}
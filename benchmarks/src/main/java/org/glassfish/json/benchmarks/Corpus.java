@@ -0,0 +1,256 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.stream.JsonGenerator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Generates the JSON documents that are used by the benchmarks. The
+ * documents are arrays of event records, like the ones in a typical
+ * log or message stream.
+ */
+final class Corpus {
+
+    private static final String ASCII_TEXT =
+            "The quick brown fox jumps over the lazy dog near the river bank";
+    private static final String UNICODE_TEXT =
+            "Grüße aus Köln – price 12€, 日本語 😀";
+
+    private Corpus() {
+    }
+
+    /**
+     * Number of records of the corpus of the given size. The small, medium
+     * and large corpora are about 3KB, 100KB and 1MB of JSON.
+     *
+     * @param size "small", "medium" or "large"
+     * @return number of records
+     */
+    static int count(String size) {
+        switch (size) {
+            case "small":
+                return 10;
+            case "medium":
+                return 300;
+            case "large":
+                return 3000;
+            default:
+                throw new IllegalArgumentException(size);
+        }
+    }
+
+    /**
+     * Reads the array of records of the given size into a tree.
+     *
+     * @param size "small", "medium" or "large"
+     * @return the array of records
+     */
+    static JsonArray tree(String size) {
+        try (JsonReader reader = Json.createReader(
+                new ByteArrayInputStream(records(count(size), false)))) {
+            return reader.readArray();
+        }
+    }
+
+    /**
+     * Reads the records of the given size into an object whose names are
+     * the record ids, the shape JSON Merge Patch works on.
+     *
+     * @param size "small", "medium" or "large"
+     * @return the object of records
+     */
+    static JsonObject keyedTree(String size) {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (JsonValue record : tree(size)) {
+            builder.add("r" + ((JsonObject)record).getInt("id"), record);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Generates an array of {@code count} records, encoded in UTF-8.
+     *
+     * @param count number of records in the array
+     * @param unicode whether the text values contain non-ASCII chars
+     * @return the UTF-8 bytes of the JSON array
+     */
+    static byte[] records(int count, boolean unicode) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                writeRecord(generator, i, unicode);
+            }
+            generator.writeEnd();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates {@code count} records as newline delimited JSON, encoded
+     * in UTF-8.
+     *
+     * @param count number of records
+     * @return the UTF-8 bytes of the lines
+     */
+    static byte[] lines(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            try (JsonGenerator generator = Json.createGenerator(out)) {
+                writeRecord(generator, i, false);
+            }
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates an array of {@code count} floating-point samples, like
+     * the readings of a telemetry payload, encoded in UTF-8.
+     *
+     * @param count number of samples in the array
+     * @return the UTF-8 bytes of the JSON array
+     */
+    static byte[] samples(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                generator.write(20.0 + Math.sin(i * 0.01) * 12.5 + (i % 7) * 0.001);
+            }
+            generator.writeEnd();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates a single event object of about 2KB, with nested objects
+     * and arrays, encoded in UTF-8.
+     *
+     * @return the UTF-8 bytes of the JSON object
+     */
+    static byte[] event() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartObject()
+                    .write("type", "order.created")
+                    .write("version", 3)
+                    .writeStartObject("header")
+                        .write("id", "6f1c2a9e-53b4-4a51-9d0e-1c2f3a4b5c6d")
+                        .write("timestamp", 1420070400123L)
+                        .write("source", "checkout-service")
+                        .writeStartArray("trace")
+                            .write("gateway").write("checkout").write("orders")
+                        .writeEnd()
+                    .writeEnd()
+                    .writeStartArray("records");
+            for (int i = 0; i < 4; i++) {
+                writeRecord(generator, i, false);
+            }
+            generator.writeEnd()
+                .writeEnd();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Generates an object with {@code fields} members, every other one
+     * being a nested record, encoded in UTF-8.
+     *
+     * @param fields number of members of the object
+     * @return the UTF-8 bytes of the JSON object
+     */
+    static byte[] wide(int fields) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartObject();
+            for (int i = 0; i < fields; i++) {
+                if (i % 2 == 0) {
+                    generator.write("field" + i, ASCII_TEXT);
+                } else {
+                    writeRecord(generator, "field" + i, i, false);
+                }
+            }
+            generator.writeEnd();
+        }
+        return out.toByteArray();
+    }
+
+    static void writeRecord(JsonGenerator generator, int i, boolean unicode) {
+        writeRecord(generator, null, i, unicode);
+    }
+
+    // Writes the record as a member of an object if name is not null
+    static void writeRecord(JsonGenerator generator, String name, int i, boolean unicode) {
+        if (name == null) {
+            generator.writeStartObject();
+        } else {
+            generator.writeStartObject(name);
+        }
+        generator
+                .write("id", i)
+                .write("timestamp", 1420070400000L + i * 1000L)
+                .write("user", "user-" + (i % 97))
+                .write("level", i % 10 == 0 ? "WARN" : "INFO")
+                .write("message", unicode ? UNICODE_TEXT : ASCII_TEXT)
+                .write("latency", 0.5 + (i % 1000) / 8.0)
+                .write("success", i % 13 != 0)
+                .writeStartArray("tags")
+                    .write("web")
+                    .write("region-" + (i % 4))
+                .writeEnd()
+                .writeStartObject("source")
+                    .write("host", "node-" + (i % 16) + ".example.com")
+                    .write("port", 8080 + i % 4)
+                    .writeNull("zone")
+                .writeEnd()
+            .writeEnd();
+    }
+
+}
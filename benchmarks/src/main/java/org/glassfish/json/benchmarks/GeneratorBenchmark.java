@@ -0,0 +1,185 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import org.glassfish.json.JsonNonBlockingGenerator;
+import org.glassfish.json.JsonProviderImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming output with {@code JsonGenerator} to bytes and chars, and to
+ * a sink in buffers without blocking, streaming
+ * arrays of double and BigDecimal numbers, and writing a tree with
+ * {@code JsonWriter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    @Param({"small", "medium", "large"})
+    String size;
+
+    private int count;
+    private JsonArray tree;
+    private double[] samples;
+
+    @Setup
+    public void setup() {
+        count = Corpus.count(size);
+        tree = Corpus.tree(size);
+        samples = new double[10 * count];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 20.0 + Math.sin(i * 0.01) * 12.5 + (i % 7) * 0.001;
+        }
+    }
+
+    @Benchmark
+    public int generatorBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generate(generator);
+        }
+        return out.size();
+    }
+
+    // The same output handed to a sink in pooled buffers, as it would be
+    // written to a non-blocking channel
+    @Benchmark
+    public int generatorNonBlocking() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonNonBlockingGenerator generator = provider.createNonBlockingGenerator(buffer -> {
+                out.write(buffer.array(), buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+                return true;
+            })) {
+            generate(generator);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int generatorChars() {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generate(generator);
+        }
+        return out.getBuffer().length();
+    }
+
+    @Benchmark
+    public int samplesBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartArray();
+            for (double sample : samples) {
+                generator.write(sample);
+            }
+            generator.writeEnd();
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int decimalsBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartArray();
+            // new values, as they come from a parser or a computation
+            for (int i = 0; i < samples.length; i++) {
+                generator.write(BigDecimal.valueOf(i * 37L % 100000, 2));
+            }
+            generator.writeEnd();
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writerBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter writer = Json.createWriter(out)) {
+            writer.writeArray(tree);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writerChars() {
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = Json.createWriter(out)) {
+            writer.writeArray(tree);
+        }
+        return out.getBuffer().length();
+    }
+
+    private void generate(JsonGenerator generator) {
+        generator.writeStartArray();
+        for (int i = 0; i < count; i++) {
+            Corpus.writeRecord(generator, i, false);
+        }
+        generator.writeEnd();
+    }
+
+}
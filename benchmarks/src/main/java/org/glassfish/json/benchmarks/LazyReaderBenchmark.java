@@ -0,0 +1,139 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import org.glassfish.json.JsonProviderImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonPointer;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Reading a few fields of a wide document with the eager
+ * {@code JsonReader} and with the lazy reader, and writing all of the
+ * lazily read document, which materializes every value.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LazyReaderBenchmark {
+
+    private static final List<String> POINTERS = Arrays.asList(
+            "/field0", "/field51/id", "/field150", "/field201/source/host", "/field398");
+
+    @Param({"400"})
+    int fields;
+
+    private byte[] json;
+    private List<JsonPointer> pointers;
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    @Setup
+    public void setup() {
+        json = Corpus.wide(fields);
+        pointers = POINTERS.stream().map(JsonPointer::new).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void reader(Blackhole bh) {
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(json))) {
+            JsonObject object = reader.readObject();
+            for (JsonPointer pointer : pointers) {
+                bh.consume(pointer.getValue(object));
+            }
+        }
+    }
+
+    @Benchmark
+    public void lazyReader(Blackhole bh) {
+        try (JsonReader reader = provider.createLazyReader(ByteBuffer.wrap(json))) {
+            JsonObject object = reader.readObject();
+            for (JsonPointer pointer : pointers) {
+                bh.consume(pointer.getValue(object));
+            }
+        }
+    }
+
+    @Benchmark
+    public void lazyReaderWriteAll() {
+        try (JsonReader reader = provider.createLazyReader(ByteBuffer.wrap(json));
+             JsonWriter writer = Json.createWriter(NullOutputStream.INSTANCE)) {
+            writer.writeObject(reader.readObject());
+        }
+    }
+
+    private static final class NullOutputStream extends OutputStream {
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+}
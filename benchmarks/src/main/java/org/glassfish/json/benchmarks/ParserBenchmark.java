@@ -0,0 +1,218 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import org.glassfish.json.JsonNonBlockingParser;
+import org.glassfish.json.JsonParserImpl;
+import org.glassfish.json.JsonProviderImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.json.Json;
+import javax.json.JsonReader;
+import javax.json.stream.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser event loops over UTF-8 bytes and chars, and over UTF-8 bytes
+ * that are fed in chunks, event loops that pick
+ * fields by name, event loops that sum an array of floating-point samples,
+ * and reading the whole document into a tree with
+ * {@code JsonReader}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    @Param({"small", "medium", "large"})
+    String size;
+
+    private byte[] bytes;
+    private String chars;
+    private byte[] samples;
+
+    @Setup
+    public void setup() {
+        bytes = Corpus.records(Corpus.count(size), false);
+        chars = new String(bytes, StandardCharsets.UTF_8);
+        samples = Corpus.samples(10 * Corpus.count(size));
+    }
+
+    @Benchmark
+    public void parserBytes(Blackhole bh) {
+        try (JsonParser parser = Json.createParser(new ByteArrayInputStream(bytes))) {
+            Utf8ParserBenchmark.consume(parser, bh);
+        }
+    }
+
+    @Benchmark
+    public void parserChars(Blackhole bh) {
+        try (JsonParser parser = Json.createParser(new StringReader(chars))) {
+            Utf8ParserBenchmark.consume(parser, bh);
+        }
+    }
+
+    // The same bytes fed in 4k chunks, as they would arrive from a
+    // non-blocking channel
+    @Benchmark
+    public void parserNonBlocking(Blackhole bh) {
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            for (int i = 0; i < bytes.length; i += 4096) {
+                parser.feed(ByteBuffer.wrap(bytes, i, Math.min(4096, bytes.length - i)));
+                Utf8ParserBenchmark.consume(parser, bh);
+            }
+            parser.endOfInput();
+            Utf8ParserBenchmark.consume(parser, bh);
+        }
+    }
+
+    // Hand written event loop that picks a few fields of every record by
+    // name, the common way with getString().equals()
+    @Benchmark
+    public long dispatchGetString() {
+        long sum = 0;
+        try (JsonParser parser = Json.createParser(new ByteArrayInputStream(bytes))) {
+            while (parser.hasNext()) {
+                if (parser.next() == JsonParser.Event.KEY_NAME) {
+                    String name = parser.getString();
+                    if (name.equals("id")) {
+                        parser.next();
+                        sum += parser.getLong();
+                    } else if (name.equals("level")) {
+                        parser.next();
+                        sum += parser.getString().length();
+                    } else if (name.equals("port")) {
+                        parser.next();
+                        sum += parser.getInt();
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    // Same loop with the names compared in the parser's buffer
+    @Benchmark
+    public long dispatchMatchesKey() {
+        long sum = 0;
+        try (JsonParserImpl parser = (JsonParserImpl)Json.createParser(new ByteArrayInputStream(bytes))) {
+            while (parser.hasNext()) {
+                if (parser.next() == JsonParser.Event.KEY_NAME) {
+                    if (parser.matchesKey("id")) {
+                        parser.next();
+                        sum += parser.getLong();
+                    } else if (parser.matchesKey("level")) {
+                        parser.next();
+                        sum += parser.getCharSequence().length();
+                    } else if (parser.matchesKey("port")) {
+                        parser.next();
+                        sum += parser.getInt();
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    // Sums an array of floating-point samples, the common way with
+    // getBigDecimal().doubleValue()
+    @Benchmark
+    public double samplesGetBigDecimal() {
+        double sum = 0;
+        try (JsonParser parser = Json.createParser(new ByteArrayInputStream(samples))) {
+            while (parser.hasNext()) {
+                if (parser.next() == JsonParser.Event.VALUE_NUMBER) {
+                    sum += parser.getBigDecimal().doubleValue();
+                }
+            }
+        }
+        return sum;
+    }
+
+    // Same loop with the doubles parsed in the parser's buffer
+    @Benchmark
+    public double samplesGetDouble() {
+        double sum = 0;
+        try (JsonParserImpl parser = (JsonParserImpl)Json.createParser(new ByteArrayInputStream(samples))) {
+            while (parser.hasNext()) {
+                if (parser.next() == JsonParser.Event.VALUE_NUMBER) {
+                    sum += parser.getDouble();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object readerBytes() {
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(bytes))) {
+            return reader.read();
+        }
+    }
+
+    @Benchmark
+    public Object readerChars() {
+        try (JsonReader reader = Json.createReader(new StringReader(chars))) {
+            return reader.read();
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonMergePatch;
+import javax.json.JsonObject;
+import javax.json.JsonPatch;
+import javax.json.JsonPatchBuilder;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying and generating JSON Patch and JSON Merge Patch. The patches
+ * change a few records spread over the corpus, or make many changes to
+ * the same record, and are applied one operation at a time or to a
+ * working copy. Diffs of deeply nested objects compare the same subtrees
+ * at every level.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatchBenchmark {
+
+    private static final int CHANGES = 5;
+    private static final int BURST = 32;
+
+    @Param({"small", "medium", "large"})
+    String size;
+
+    private JsonArray tree;
+    private JsonArray patched;
+    private JsonPatch patch;
+    private JsonPatch burst;
+    private JsonObject keyed;
+    private JsonObject mergePatched;
+    private JsonValue mergePatch;
+    private JsonObject deep;
+    private JsonObject deepChanged;
+
+    @Setup
+    public void setup() {
+        tree = Corpus.tree(size);
+        JsonPatchBuilder builder = new JsonPatchBuilder();
+        for (int i = 0; i < CHANGES; i++) {
+            int index = i * tree.size() / CHANGES;
+            builder.replace("/" + index + "/level", "ERROR")
+                    .add("/" + index + "/tags/0", "retry")
+                    .remove("/" + index + "/source/zone");
+        }
+        patch = builder.build();
+        patched = patch.apply(tree);
+
+        // Many operations on the same record
+        builder = new JsonPatchBuilder();
+        String record = "/" + tree.size() / 2;
+        for (int i = 0; i < BURST; i++) {
+            builder.add(record + "/tags/-", "tag-" + i)
+                    .replace(record + "/source/port", i);
+        }
+        burst = builder.build();
+
+        keyed = Corpus.keyedTree(size);
+        JsonObject changes = Json.createObjectBuilder()
+                .add("r0", Json.createObjectBuilder()
+                        .add("level", "ERROR")
+                        .addNull("source"))
+                .add("r" + (tree.size() - 1), Json.createObjectBuilder()
+                        .add("user", "user-x"))
+                .add("new", Json.createObjectBuilder()
+                        .add("id", -1))
+                .build();
+        mergePatched = (JsonObject)JsonMergePatch.mergePatch(keyed, changes);
+        mergePatch = JsonMergePatch.diff(keyed, mergePatched);
+
+        // Nested records, read separately so that they share no values
+        deep = nested(tree, 0);
+        deepChanged = nested(tree, 1);
+    }
+
+    // Nests a record in each of the first 200 records, and changes the
+    // innermost one
+    private static JsonObject nested(JsonArray records, int change) {
+        JsonObject child = Json.createObjectBuilder().add("change", change).build();
+        for (int i = Math.min(200, records.size()) - 1; i >= 0; i--) {
+            child = Json.createObjectBuilder(records.getJsonObject(i))
+                    .add("child", child)
+                    .build();
+        }
+        return Json.createReader(new StringReader(child.toString())).readObject();
+    }
+
+    @Benchmark
+    public JsonStructure patchApply() {
+        return patch.apply(tree);
+    }
+
+    @Benchmark
+    public JsonStructure patchApplyInWorkingCopy() {
+        return patch.applyInWorkingCopy(tree);
+    }
+
+    @Benchmark
+    public JsonStructure burstApply() {
+        return burst.apply(tree);
+    }
+
+    @Benchmark
+    public JsonStructure burstApplyInWorkingCopy() {
+        return burst.applyInWorkingCopy(tree);
+    }
+
+    @Benchmark
+    public JsonArray patchDiff() {
+        return JsonPatch.diff(tree, patched);
+    }
+
+    @Benchmark
+    public JsonArray deepPatchDiff() {
+        return JsonPatch.diff(deep, deepChanged);
+    }
+
+    @Benchmark
+    public JsonValue mergePatchApply() {
+        return JsonMergePatch.mergePatch(keyed, mergePatch);
+    }
+
+    @Benchmark
+    public JsonValue mergePatchDiff() {
+        return JsonMergePatch.diff(keyed, mergePatched);
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonPointer;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code JsonPointer} lookups and updates of a member of the record in the
+ * middle of the array, and updates of trees that are themselves the result
+ * of an update, as when many small updates are applied to a cached
+ * document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointerBenchmark {
+
+    @Param({"small", "medium", "large"})
+    String size;
+
+    private JsonArray tree;
+    private JsonPointer host;
+    private JsonPointer extra;
+    private JsonPointer user;
+    private JsonStructure updated;
+    private JsonStructure keyedUpdated;
+    private JsonPointer keyedUser;
+    private final JsonValue value = Json.createValue("changed");
+
+    @Setup
+    public void setup() {
+        tree = Corpus.tree(size);
+        int mid = tree.size() / 2;
+        host = new JsonPointer("/" + mid + "/source/host");
+        extra = new JsonPointer("/" + mid + "/extra");
+        user = new JsonPointer("/" + mid + "/user");
+        updated = user.replace(tree, value);
+        keyedUser = new JsonPointer("/r" + mid + "/user");
+        keyedUpdated = keyedUser.replace(Corpus.keyedTree(size), value);
+    }
+
+    @Benchmark
+    public JsonValue getValue() {
+        return host.getValue(tree);
+    }
+
+    @Benchmark
+    public JsonStructure add() {
+        return extra.add(tree, value);
+    }
+
+    @Benchmark
+    public JsonStructure replace() {
+        return user.replace(tree, value);
+    }
+
+    @Benchmark
+    public JsonStructure replaceUpdated() {
+        return user.replace(updated, value);
+    }
+
+    @Benchmark
+    public JsonStructure replaceKeyedUpdated() {
+        return keyedUser.replace(keyedUpdated, value);
+    }
+
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -42,21 +42,121 @@ package org.glassfish.json;
 
 import org.glassfish.json.api.BufferPool;
 
-import java.lang.ref.WeakReference;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * char[] pool that pool instances of char[] which are expensive to create.
+ * char[] and byte[] pool with several size classes. Each thread keeps a
+ * few of the smallest buffers in a cache of its own, so that the common
+ * take/recycle pairs need no synchronization at all. Other buffers are kept
+ * in a shared pool whose slots are split into stripes, and threads start
+ * looking at different stripes. The memory kept by the shared pool is
+ * bounded, buffers that don't fit are left to GC.
+ *
+ * <p>
+ * An instance can be given to the factories with the
+ * {@code BufferPool.class.getName()} config key.
  *
  * @author Jitendra Kotamraju
  */
-class BufferPoolImpl implements BufferPool {
+public class BufferPoolImpl implements BufferPool {
+
+    // Size class i holds buffers of (base size << 2*i) elements
+    private static final int CLASSES = 8;
+    private static final int CHAR_BASE_SIZE = 4096;
+    private static final int BYTE_BASE_SIZE = 8192;     // same footprint as chars
+
+    // Number of slots looked at by one take() or recycle() in the shared pool
+    private static final int STRIPE_WIDTH = 8;
+    private static final int MAX_SLOTS = 1024;
+
+    /**
+     * Default upper bound of memory that is kept for each size class.
+     */
+    public static final int DEFAULT_MAX_RETAINED_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * Default number of buffers of the smallest size class that are
+     * cached by each thread.
+     */
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 2;
+
+    /**
+     * Default number of buffers that are kept for each size class whose
+     * buffers are bigger than the retained bytes of a class. These are
+     * the buffers of very long tokens, they are not pooled by default so
+     * that the pool stays within its retention bounds.
+     */
+    public static final int DEFAULT_LARGE_BUFFER_SLOTS = 0;
+
+    private final Tier[] charTiers = new Tier[CLASSES];
+    private final Tier[] byteTiers = new Tier[CLASSES];
+    private final int threadCacheSize;
+
+    // char[] cache in [0, threadCacheSize), byte[] cache after that
+    private final ThreadLocal<Object[]> threadCache;
+
+    /**
+     * Creates a pool with the default limits. With them the pool keeps
+     * up to 2MB for each of the smaller size classes, the buffers of the
+     * bigger size classes are not pooled.
+     */
+    public BufferPoolImpl() {
+        this(DEFAULT_MAX_RETAINED_BYTES, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_LARGE_BUFFER_SLOTS);
+    }
+
+    /**
+     * Creates a pool with the given limits. Size classes whose buffers
+     * are bigger than {@code maxRetainedBytes} are not pooled.
+     *
+     * @param maxRetainedBytes upper bound of memory that is kept for each
+     *      size class of char[] and byte[] buffers
+     * @param threadCacheSize number of the smallest buffers that each
+     *      thread caches, 0 disables the thread cache
+     */
+    public BufferPoolImpl(int maxRetainedBytes, int threadCacheSize) {
+        this(maxRetainedBytes, threadCacheSize, DEFAULT_LARGE_BUFFER_SLOTS);
+    }
 
-    // volatile since multiple threads may access queue reference
-    private volatile WeakReference<ConcurrentLinkedQueue<char[]>> queue;
+    /**
+     * Creates a pool with the given limits.
+     *
+     * @param maxRetainedBytes upper bound of memory that is kept for each
+     *      size class of char[] and byte[] buffers
+     * @param threadCacheSize number of the smallest buffers that each
+     *      thread caches, 0 disables the thread cache
+     * @param largeBufferSlots number of buffers that are kept for each
+     *      size class whose buffers are bigger than
+     *      {@code maxRetainedBytes}, 0 to not pool them. The largest
+     *      classes hold 128MB buffers
+     */
+    public BufferPoolImpl(int maxRetainedBytes, int threadCacheSize, int largeBufferSlots) {
+        if (maxRetainedBytes < 0 || threadCacheSize < 0 || largeBufferSlots < 0) {
+            throw new IllegalArgumentException();
+        }
+        for (int i = 0; i < CLASSES; i++) {
+            int charSize = CHAR_BASE_SIZE << (2*i);
+            int byteSize = BYTE_BASE_SIZE << (2*i);
+            charTiers[i] = new Tier(charSize,
+                    slots(maxRetainedBytes, 2L*charSize, largeBufferSlots));
+            byteTiers[i] = new Tier(byteSize,
+                    slots(maxRetainedBytes, byteSize, largeBufferSlots));
+        }
+        this.threadCacheSize = threadCacheSize;
+        this.threadCache = threadCacheSize == 0 ? null
+                : ThreadLocal.withInitial(() -> new Object[2 * threadCacheSize]);
+    }
+
+    // Large buffers have a budget of their own, as even one of them is
+    // more than the retained bytes of a class
+    private static int slots(int maxRetainedBytes, long bufferBytes, int largeBufferSlots) {
+        if (bufferBytes > maxRetainedBytes) {
+            return Math.min(MAX_SLOTS, largeBufferSlots);
+        }
+        return (int)Math.min(MAX_SLOTS, maxRetainedBytes / bufferBytes);
+    }
 
     /**
-     * Gets a new object from the pool.
+     * Gets a new char[] of the smallest size class from the pool.
      *
      * <p>
      * If no object is available in the pool, this method creates a new one.
@@ -66,33 +166,196 @@ class BufferPoolImpl implements BufferPool {
      */
     @Override
     public final char[] take() {
-        char[] t = getQueue().poll();
-        if (t==null)
-            return new char[4096];
-        return t;
+        Object t = fromThreadCache(0);
+        if (t == null) {
+            t = charTiers[0].take();
+        }
+        return t == null ? new char[CHAR_BASE_SIZE] : (char[])t;
     }
 
-    private ConcurrentLinkedQueue<char[]> getQueue() {
-        WeakReference<ConcurrentLinkedQueue<char[]>> q = queue;
-        if (q != null) {
-            ConcurrentLinkedQueue<char[]> d = q.get();
-            if (d != null)
-                return d;
+    @Override
+    public final char[] take(int minLength) {
+        int i = sizeClass(CHAR_BASE_SIZE, minLength);
+        if (i == 0) {
+            return take();
+        }
+        if (i == CLASSES) {
+            return new char[minLength];
         }
+        Object t = charTiers[i].take();
+        return t == null ? new char[charTiers[i].size] : (char[])t;
+    }
+
+    /**
+     * Returns an object back to the pool. Buffers that are not of a size
+     * class are discarded.
+     */
+    @Override
+    public final void recycle(char[] t) {
+        int i = sizeClass(CHAR_BASE_SIZE, t.length);
+        if (i == CLASSES || charTiers[i].size != t.length) {
+            return;
+        }
+        if (i == 0 && toThreadCache(0, t)) {
+            return;
+        }
+        charTiers[i].recycle(t);
+    }
 
-        // overwrite the queue
-        ConcurrentLinkedQueue<char[]> d = new ConcurrentLinkedQueue<>();
-        queue = new WeakReference<>(d);
+    /**
+     * Gets a new byte[] of the smallest size class from the pool. The buffer
+     * has the same footprint as the char[] buffers.
+     *
+     * @return
+     *      always non-null.
+     */
+    @Override
+    public final byte[] takeBytes() {
+        Object t = fromThreadCache(threadCacheSize);
+        if (t == null) {
+            t = byteTiers[0].take();
+        }
+        return t == null ? new byte[BYTE_BASE_SIZE] : (byte[])t;
+    }
 
-        return d;
+    @Override
+    public final byte[] takeBytes(int minLength) {
+        int i = sizeClass(BYTE_BASE_SIZE, minLength);
+        if (i == 0) {
+            return takeBytes();
+        }
+        if (i == CLASSES) {
+            return new byte[minLength];
+        }
+        Object t = byteTiers[i].take();
+        return t == null ? new byte[byteTiers[i].size] : (byte[])t;
     }
 
     /**
-     * Returns an object back to the pool.
+     * Returns a byte[] back to the pool. Buffers that are not of a size
+     * class are discarded.
      */
     @Override
-    public final void recycle(char[] t) {
-        getQueue().offer(t);
+    public final void recycleBytes(byte[] t) {
+        int i = sizeClass(BYTE_BASE_SIZE, t.length);
+        if (i == CLASSES || byteTiers[i].size != t.length) {
+            return;
+        }
+        if (i == 0 && toThreadCache(threadCacheSize, t)) {
+            return;
+        }
+        byteTiers[i].recycle(t);
+    }
+
+    // Length to ask the pool for when a char[] of the given length is
+    // full. It is the next size class of this pool, past the largest class
+    // and for other pools the length doubles, so growth stays geometric
+    static int grownCharLength(BufferPool pool, int length) {
+        return grownLength(pool, CHAR_BASE_SIZE, length);
+    }
+
+    // Same for a byte[]
+    static int grownByteLength(BufferPool pool, int length) {
+        return grownLength(pool, BYTE_BASE_SIZE, length);
+    }
+
+    private static int grownLength(BufferPool pool, int baseSize, int length) {
+        if (pool instanceof BufferPoolImpl && length < baseSize << 2*(CLASSES-1)) {
+            return length + 1;
+        }
+        return 2 * length;
+    }
+
+    // Smallest size class that holds length elements, CLASSES if none
+    private static int sizeClass(int baseSize, int length) {
+        int i = 0;
+        for (long size = baseSize; size < length && i < CLASSES; size <<= 2) {
+            i++;
+        }
+        return i;
+    }
+
+    private Object fromThreadCache(int begin) {
+        if (threadCache == null) {
+            return null;
+        }
+        Object[] cache = threadCache.get();
+        for (int i = begin; i < begin + threadCacheSize; i++) {
+            Object t = cache[i];
+            if (t != null) {
+                cache[i] = null;
+                return t;
+            }
+        }
+        return null;
+    }
+
+    private boolean toThreadCache(int begin, Object t) {
+        if (threadCache == null) {
+            return false;
+        }
+        Object[] cache = threadCache.get();
+        for (int i = begin; i < begin + threadCacheSize; i++) {
+            if (cache[i] == null) {
+                cache[i] = t;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Shared pool of one size class. A thread only looks at the
+     * STRIPE_WIDTH slots of its own stripe, so that threads mostly
+     * work on different slots.
+     */
+    private static final class Tier {
+        final int size;
+        private final AtomicReferenceArray<Object> slots;
+
+        Tier(int size, int slots) {
+            this.size = size;
+            this.slots = new AtomicReferenceArray<>(slots);
+        }
+
+        private int stripe() {
+            int n = slots.length();
+            return (int)((Thread.currentThread().getId() * STRIPE_WIDTH) % n);
+        }
+
+        Object take() {
+            int n = slots.length();
+            if (n == 0) {
+                return null;
+            }
+            int i = stripe();
+            for (int k = Math.min(n, STRIPE_WIDTH); k > 0; k--) {
+                Object t = slots.get(i);
+                if (t != null && slots.compareAndSet(i, t, null)) {
+                    return t;
+                }
+                if (++i == n) {
+                    i = 0;
+                }
+            }
+            return null;
+        }
+
+        void recycle(Object t) {
+            int n = slots.length();
+            if (n == 0) {
+                return;
+            }
+            int i = stripe();
+            for (int k = Math.min(n, STRIPE_WIDTH); k > 0; k--) {
+                if (slots.get(i) == null && slots.compareAndSet(i, null, t)) {
+                    return;
+                }
+                if (++i == n) {
+                    i = 0;
+                }
+            }
+        }
     }
 
 }
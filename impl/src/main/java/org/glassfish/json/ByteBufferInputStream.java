@@ -0,0 +1,154 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@code InputStream} over a {@code ByteBuffer}, or over the memory
+ * mapped regions of a file. The bytes are transferred with bulk gets,
+ * so reading a direct or mapped buffer is a plain memory copy into the
+ * caller's array.
+ */
+final class ByteBufferInputStream extends InputStream {
+
+    // A single mapping cannot be larger than Integer.MAX_VALUE, so
+    // bigger files are mapped region by region
+    private static final long REGION_SIZE = 1L << 30;
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;      // null when reading a buffer
+    private long regionEnd;                 // file position after current region
+    private ByteBuffer buffer;
+
+    // Reads the remaining bytes of the buffer, advancing its position
+    ByteBufferInputStream(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    // Reads the whole file, skipping a UTF-8 BOM. The channel is
+    // closed when this stream is closed
+    ByteBufferInputStream(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = EMPTY;
+        try {
+            nextRegion();
+        } catch (IOException ioe) {
+            channel.close();
+            throw ioe;
+        }
+        skipBom(buffer);
+    }
+
+    /**
+     * Advances the position of the buffer past a UTF-8 BOM if there
+     * is one.
+     *
+     * @param buffer a buffer with UTF-8 bytes
+     * @return the same buffer
+     */
+    static ByteBuffer skipBom(ByteBuffer buffer) {
+        int pos = buffer.position();
+        if (buffer.remaining() >= 3 && buffer.get(pos) == (byte)0xEF
+                && buffer.get(pos+1) == (byte)0xBB && buffer.get(pos+2) == (byte)0xBF) {
+            buffer.position(pos+3);
+        }
+        return buffer;
+    }
+
+    private boolean nextRegion() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        long size = channel.size();
+        if (regionEnd >= size) {
+            return false;
+        }
+        long len = Math.min(REGION_SIZE, size - regionEnd);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, regionEnd, len);
+        regionEnd += len;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (!buffer.hasRemaining()) {
+            if (!nextRegion()) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!buffer.hasRemaining()) {
+            if (!nextRegion()) {
+                return -1;
+            }
+        }
+        int no = Math.min(len, buffer.remaining());
+        buffer.get(b, off, no);
+        return no;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = EMPTY;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.math.BigInteger;
+
+/**
+ * Formats a double into ASCII bytes with the shortest decimal that
+ * converts back to the same double, without creating a {@code String}.
+ *
+ * <p>
+ * The digits are chosen with the Schubfach algorithm, which multiplies
+ * the binary significand with a 126-bit approximation of a power of ten
+ * and picks the shortest decimal in the rounding interval, the closest
+ * one if there are several. The text has the same layout as
+ * {@link Double#toString(double)}, plain for magnitudes in
+ * [10<sup>-3</sup>, 10<sup>7</sup>) and computerized scientific notation
+ * otherwise.
+ */
+final class DoubleFormatter {
+
+    // Max length of the text, as in -2.2250738585072014E-308
+    static final int MAX_CHARS = 24;
+
+    private static final int P = 53;                // precision
+    private static final int Q_MIN = -1074;         // min binary exponent
+    private static final long C_MIN = 1L << (P-1);
+    private static final long C_TINY = 3;
+    private static final long T_MASK = (1L << (P-1)) - 1;
+    private static final int BQ_MASK = 0x7FF;
+    private static final long MASK_63 = 0x7FFFFFFFFFFFFFFFL;
+
+    // g = floor(10^-k * 2^(125 - flog2pow10(-k))) + 1 for k in
+    // [K_MIN, K_MAX], split into its high and low 63 bits
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long[] G1 = new long[K_MAX-K_MIN+1];
+    private static final long[] G0 = new long[K_MAX-K_MIN+1];
+    static {
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int r = flog2pow10(e) - 125;
+            BigInteger g;
+            if (e >= 0) {
+                BigInteger pow = BigInteger.TEN.pow(e);
+                g = r >= 0 ? pow.shiftRight(r) : pow.shiftLeft(-r);
+            } else {
+                g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(-e));
+            }
+            g = g.add(BigInteger.ONE);
+            G1[k-K_MIN] = g.shiftRight(63).longValue();
+            G0[k-K_MIN] = g.longValue() & MASK_63;
+        }
+    }
+
+    private DoubleFormatter() {
+    }
+
+    /**
+     * Formats a finite double into buf, which needs MAX_CHARS bytes of
+     * space from index.
+     *
+     * @return the index after the last byte
+     */
+    static int format(double v, byte[] buf, int index) {
+        long bits = Double.doubleToRawLongBits(v);
+        if (bits < 0) {
+            buf[index++] = '-';
+        }
+        long t = bits & T_MASK;
+        int bq = (int)(bits >>> (P-1)) & BQ_MASK;
+        if (bq != 0) {
+            // normal value, mq = -q
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                // integer values
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, buf, index);
+                }
+            }
+            return toDecimal(-mq, c, 0, buf, index);
+        }
+        if (t != 0) {
+            // subnormal value
+            return t < C_TINY
+                    ? toDecimal(Q_MIN, 10*t, -1, buf, index)
+                    : toDecimal(Q_MIN, t, 0, buf, index);
+        }
+        buf[index++] = '0';
+        buf[index++] = '.';
+        buf[index++] = '0';
+        return index;
+    }
+
+    // Finds the shortest decimal in the rounding interval of c*2^q
+    private static int toDecimal(int q, long c, int dk, byte[] buf, int index) {
+        int out = (int)c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            // regular spacing
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // irregular spacing
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G1[k-K_MIN];
+        long g0 = G0[k-K_MIN];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // one digit less, s/10*10 and the next multiple of 10
+            long sp10 = 10*DoubleParser.multiplyHigh(s, 115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buf, index);
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, buf, index);
+        }
+        // both are in the interval, the closest one wins and the even
+        // one on ties
+        long cmp = vb - ((s + t) << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, index);
+    }
+
+    // Rounded to odd product of g and cp, scaled down by 2^127
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = DoubleParser.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = DoubleParser.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    // floor(log10(2^e))
+    private static int flog10pow2(int e) {
+        return (int)(e * 661971961083L >> 41);
+    }
+
+    // floor(log10(3/4 * 2^e))
+    private static int flog10threeQuartersPow2(int e) {
+        return (int)(e * 661971961083L - 274743187321L >> 41);
+    }
+
+    // floor(log2(10^e))
+    private static int flog2pow10(int e) {
+        return (int)(e * 913124641741L >> 38);
+    }
+
+    // Writes f*10^e, f > 0, in the layout of Double.toString()
+    private static int toChars(long f, int e, byte[] buf, int index) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int n = digits(f);
+        int exp = e + n - 1;            // exponent of the first digit
+        if (exp >= 0 && exp < 7) {
+            if (n <= exp+1) {
+                // integer, d..d000.0
+                index = fillDigits(f, n, buf, index);
+                for (int i = n; i <= exp; i++) {
+                    buf[index++] = '0';
+                }
+                buf[index++] = '.';
+                buf[index++] = '0';
+                return index;
+            }
+            // d..d.d..d
+            int point = index + exp + 1;
+            index = fillDigits(f, n, buf, index);
+            System.arraycopy(buf, point, buf, point + 1, index - point);
+            buf[point] = '.';
+            return index + 1;
+        }
+        if (exp < 0 && exp >= -3) {
+            // 0.00d..d
+            buf[index++] = '0';
+            buf[index++] = '.';
+            for (int i = -1; i > exp; i--) {
+                buf[index++] = '0';
+            }
+            return fillDigits(f, n, buf, index);
+        }
+        // d.d..dEn
+        int first = index;
+        index = fillDigits(f, n, buf, index + 1);
+        buf[first] = buf[first + 1];
+        buf[first + 1] = '.';
+        if (n == 1) {
+            buf[index++] = '0';
+        }
+        buf[index++] = 'E';
+        if (exp < 0) {
+            buf[index++] = '-';
+            exp = -exp;
+        }
+        if (exp >= 100) {
+            buf[index++] = (byte)('0' + exp / 100);
+            exp %= 100;
+            buf[index++] = (byte)('0' + exp / 10);
+        } else if (exp >= 10) {
+            buf[index++] = (byte)('0' + exp / 10);
+        }
+        buf[index++] = (byte)('0' + exp % 10);
+        return index;
+    }
+
+    // Number of decimal digits of f > 0
+    private static int digits(long f) {
+        int n = 1;
+        for (long p = 10; n < 19 && f >= p; p *= 10) {
+            n++;
+        }
+        return n;
+    }
+
+    // Places the n digits of f in buf[index, index+n)
+    private static int fillDigits(long f, int n, byte[] buf, int index) {
+        int end = index + n;
+        for (int i = end - 1; i >= index; i--) {
+            long q = f / 10;
+            buf[i] = (byte)('0' + (int)(f - 10*q));
+            f = q;
+        }
+        return end;
+    }
+
+}
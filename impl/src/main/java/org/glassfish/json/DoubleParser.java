@@ -0,0 +1,294 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts the chars or bytes of a JSON number to the closest double,
+ * without creating a {@code String} or {@code BigDecimal}.
+ *
+ * <p>
+ * Up to 19 significant digits are accumulated into a 64-bit mantissa.
+ * Small mantissas with small exponents are converted with one exact
+ * floating point multiplication or division. Others are converted with
+ * the Eisel-Lemire algorithm, which multiplies the mantissa with a
+ * 128-bit approximation of the power of ten and gives up in the rare
+ * cases where the approximation can't decide the rounding. Those, and
+ * numbers with more digits or out of range exponents, fall back to
+ * {@link Double#parseDouble(String)}.
+ */
+final class DoubleParser {
+
+    private static final int MAX_DIGITS = 19;
+
+    // Exactly representable powers of ten
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // 128-bit mantissas of 5^q (and 10^q) for q in [MIN_EXP10, MAX_EXP10],
+    // normalized so that the highest bit is set. Positive powers are
+    // truncated, negative powers are rounded up
+    private static final int MIN_EXP10 = -342;
+    private static final int MAX_EXP10 = 308;
+    private static final long[] POW5_HI = new long[MAX_EXP10-MIN_EXP10+1];
+    private static final long[] POW5_LO = new long[MAX_EXP10-MIN_EXP10+1];
+    static {
+        BigInteger five = BigInteger.valueOf(5);
+        BigInteger pow = BigInteger.ONE;
+        for (int q = 0; q <= MAX_EXP10; q++) {
+            int shift = 128-pow.bitLength();
+            set(q, shift >= 0 ? pow.shiftLeft(shift) : pow.shiftRight(-shift));
+            pow = pow.multiply(five);
+        }
+        pow = five;
+        for (int q = -1; q >= MIN_EXP10; q--) {
+            int z = pow.bitLength();
+            int b = q >= -27 ? z+127 : 2*z+128;
+            BigInteger c = BigInteger.ONE.shiftLeft(b).divide(pow).add(BigInteger.ONE);
+            set(q, c.shiftRight(c.bitLength()-128));
+            pow = pow.multiply(five);
+        }
+    }
+
+    private static void set(int q, BigInteger mantissa) {
+        POW5_HI[q-MIN_EXP10] = mantissa.shiftRight(64).longValue();
+        POW5_LO[q-MIN_EXP10] = mantissa.longValue();
+    }
+
+    private DoubleParser() {
+    }
+
+    // Parses the chars buf[begin, end) of a valid JSON number
+    static double parse(char[] buf, int begin, int end) {
+        int i = begin;
+        boolean neg = buf[i] == '-';
+        if (neg) {
+            i++;
+        }
+        long man = 0;               // unsigned
+        int digits = 0;             // significant digits in man
+        int exp10 = 0;
+        boolean truncated = false;
+        int ch;
+        for (; i < end && (ch = buf[i]) >= '0' && ch <= '9'; i++) {
+            if (digits < MAX_DIGITS) {
+                man = 10*man + (ch-'0');
+                if (man != 0) {
+                    digits++;
+                }
+            } else {
+                exp10++;
+                truncated |= ch != '0';
+            }
+        }
+        if (i < end && buf[i] == '.') {
+            for (i++; i < end && (ch = buf[i]) >= '0' && ch <= '9'; i++) {
+                if (digits < MAX_DIGITS) {
+                    man = 10*man + (ch-'0');
+                    if (man != 0) {
+                        digits++;
+                    }
+                    exp10--;
+                } else {
+                    truncated |= ch != '0';
+                }
+            }
+        }
+        if (i < end) {              // e or E
+            i++;
+            boolean expNeg = buf[i] == '-';
+            if (expNeg || buf[i] == '+') {
+                i++;
+            }
+            int exp = 0;
+            for (; i < end; i++) {
+                if (exp < 100000) {     // way out of range anyway
+                    exp = 10*exp + (buf[i]-'0');
+                }
+            }
+            exp10 += expNeg ? -exp : exp;
+        }
+        double d = toDouble(neg, man, exp10, truncated);
+        return Double.isNaN(d) ? Double.parseDouble(new String(buf, begin, end-begin)) : d;
+    }
+
+    // Parses the bytes buf[begin, end) of a valid JSON number
+    static double parse(byte[] buf, int begin, int end) {
+        int i = begin;
+        boolean neg = buf[i] == '-';
+        if (neg) {
+            i++;
+        }
+        long man = 0;
+        int digits = 0;
+        int exp10 = 0;
+        boolean truncated = false;
+        int ch;
+        for (; i < end && (ch = buf[i]) >= '0' && ch <= '9'; i++) {
+            if (digits < MAX_DIGITS) {
+                man = 10*man + (ch-'0');
+                if (man != 0) {
+                    digits++;
+                }
+            } else {
+                exp10++;
+                truncated |= ch != '0';
+            }
+        }
+        if (i < end && buf[i] == '.') {
+            for (i++; i < end && (ch = buf[i]) >= '0' && ch <= '9'; i++) {
+                if (digits < MAX_DIGITS) {
+                    man = 10*man + (ch-'0');
+                    if (man != 0) {
+                        digits++;
+                    }
+                    exp10--;
+                } else {
+                    truncated |= ch != '0';
+                }
+            }
+        }
+        if (i < end) {
+            i++;
+            boolean expNeg = buf[i] == '-';
+            if (expNeg || buf[i] == '+') {
+                i++;
+            }
+            int exp = 0;
+            for (; i < end; i++) {
+                if (exp < 100000) {
+                    exp = 10*exp + (buf[i]-'0');
+                }
+            }
+            exp10 += expNeg ? -exp : exp;
+        }
+        double d = toDouble(neg, man, exp10, truncated);
+        return Double.isNaN(d)
+                ? Double.parseDouble(new String(buf, begin, end-begin, StandardCharsets.ISO_8859_1))
+                : d;
+    }
+
+    // man * 10^exp10, NaN if it needs the slow path
+    static double toDouble(boolean neg, long man, int exp10, boolean truncated) {
+        if (man == 0) {
+            return neg ? -0.0 : 0.0;
+        }
+        if (truncated) {
+            return Double.NaN;
+        }
+        if (exp10 >= -22 && exp10 <= 22 && man >= 0 && man <= 1L << 53) {
+            // both are exact, so one rounding gives the closest double
+            double d = man;
+            d = exp10 < 0 ? d / POW10[-exp10] : d * POW10[exp10];
+            return neg ? -d : d;
+        }
+        return eiselLemire(neg, man, exp10);
+    }
+
+    private static double eiselLemire(boolean neg, long man, int exp10) {
+        if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10) {
+            return Double.NaN;
+        }
+        int clz = Long.numberOfLeadingZeros(man);
+        man <<= clz;
+        // 217706/2^16 is about log2(10)
+        long exp2 = ((217706L*exp10) >> 16) + 64 + 1023 - clz;
+
+        int q = exp10-MIN_EXP10;
+        long hi = multiplyHigh(man, POW5_HI[q]);
+        long lo = man * POW5_HI[q];
+        if ((hi & 0x1FF) == 0x1FF && Long.compareUnsigned(lo+man, man) < 0) {
+            // the lower bits may carry, use the other 64 bits of the power
+            long yHi = multiplyHigh(man, POW5_LO[q]);
+            long yLo = man * POW5_LO[q];
+            long mergedHi = hi;
+            long mergedLo = lo + yHi;
+            if (Long.compareUnsigned(mergedLo, lo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo+1 == 0
+                    && Long.compareUnsigned(yLo+man, man) < 0) {
+                return Double.NaN;
+            }
+            hi = mergedHi;
+            lo = mergedLo;
+        }
+
+        long msb = hi >>> 63;
+        long mantissa = hi >>> (msb+9);         // 54 bits
+        exp2 -= 1 ^ msb;
+        if (lo == 0 && (hi & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            // exactly half way, can't tell the rounding
+            return Double.NaN;
+        }
+        mantissa += mantissa & 1;               // round to 53 bits
+        mantissa >>>= 1;
+        if ((mantissa >>> 53) > 0) {
+            mantissa >>>= 1;
+            exp2++;
+        }
+        if (exp2 <= 0 || exp2 >= 0x7FF) {
+            // subnormal or infinite
+            return Double.NaN;
+        }
+        long bits = exp2 << 52 | mantissa & 0x000FFFFFFFFFFFFFL;
+        if (neg) {
+            bits |= 0x8000000000000000L;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    // High 64 bits of the unsigned 128-bit product
+    static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long p01 = x0*y1;
+        long middle = x1*y0 + ((x0*y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+        return x1*y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+}
@@ -48,10 +48,12 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
 /**
@@ -62,7 +64,14 @@ import java.util.Set;
  */
 
 class JsonArrayBuilderImpl implements JsonArrayBuilder {
+    private static final JsonValue[] EMPTY_VALUES = new JsonValue[0];
+
+    // Builders created from arrays of at least this size update them
+    // with structural sharing, instead of copying all of their values
+    static final int PERSISTENT_MIN = 64;
+
     private ArrayList<JsonValue> valueList;
+    private PersistentVector vector;        // used instead of valueList
     private final BufferPool bufferPool;
 
     JsonArrayBuilderImpl(BufferPool bufferPool) {
@@ -71,8 +80,19 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
     JsonArrayBuilderImpl(JsonArray array, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
-        valueList = new ArrayList<>();
-        valueList.addAll(array);
+        if (array instanceof PersistentArray) {
+            vector = ((PersistentArray)array).vector;
+            return;
+        }
+        if (array instanceof JsonArrayImpl && array.size() >= PERSISTENT_MIN) {
+            JsonValue[] values = ((JsonArrayImpl)array).values;
+            vector = PersistentVector.of(values, values.length);
+            return;
+        }
+        valueList = new ArrayList<>(array.size());
+        for (JsonValue value : array) {
+            valueList.add(value);
+        }
     }
 
     JsonArrayBuilderImpl(Collection<Object> collection, BufferPool bufferPool) {
@@ -162,6 +182,12 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
         if (builder == null) {
             throw new NullPointerException(JsonMessages.ARRBUILDER_ARRAY_BUILDER_NULL());
         }
+        if (vector != null) {
+            for (JsonValue value : builder.build()) {
+                vector = vector.insert(vector.size(), value);
+            }
+            return this;
+        }
         if (valueList == null) {
             valueList = new ArrayList<>();
         }
@@ -323,6 +349,10 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
     @Override
     public JsonArrayBuilder remove(int index) {
+        if (vector != null) {
+            vector = vector.remove(index);
+            return this;
+        }
         if (valueList == null) {
             throw new IndexOutOfBoundsException();
         }
@@ -332,16 +362,16 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
     @Override
     public JsonArray build() {
-        List<JsonValue> snapshot;
-        if (valueList == null) {
-            snapshot = Collections.emptyList();
-        } else {
-            // Should we trim to minimize storage ?
-            // valueList.trimToSize();
-            snapshot = Collections.unmodifiableList(valueList);
-        }
+        if (vector != null) {
+            JsonArray array = new PersistentArray(vector, bufferPool);
+            vector = null;
+            return array;
+        }
+        JsonValue[] values = (valueList == null)
+                ? EMPTY_VALUES
+                : valueList.toArray(new JsonValue[valueList.size()]);
         valueList = null;
-        return new JsonArrayImpl(snapshot, bufferPool);
+        return new JsonArrayImpl(values, bufferPool);
     }
 
     private void populate(Collection<Object> collection) {
@@ -351,6 +381,10 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
     }
 
     private void addValueList(JsonValue value) {
+        if (vector != null) {
+            vector = vector.insert(vector.size(), value);
+            return;
+        }
         if (valueList == null) {
             valueList = new ArrayList<>();
         }
@@ -358,6 +392,10 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
     }
 
     private void addValueList(int index, JsonValue value) {
+        if (vector != null) {
+            vector = vector.insert(index, value);
+            return;
+        }
         if (valueList == null) {
             valueList = new ArrayList<>();
         }
@@ -365,6 +403,10 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
     }
 
     private void setValueList(int index, JsonValue value) {
+        if (vector != null) {
+            vector = vector.set(index, value);
+            return;
+        }
         if (valueList == null) {
             throw new IndexOutOfBoundsException();
         }
@@ -377,44 +419,72 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
         }
     }
 
-    private static final class JsonArrayImpl extends AbstractList<JsonValue> implements JsonArray {
-        private final List<JsonValue> valueList;    // Unmodifiable
+    /**
+     * JsonArray methods that are common to the implementations, on top
+     * of get(). The lazy reader's views extend it too.
+     */
+    static abstract class AbstractJsonArray extends AbstractList<JsonValue>
+            implements JsonArray, RandomAccess {
         private final BufferPool bufferPool;
+        // Cached hash code, 0 if it isn't computed yet. Nested objects and
+        // arrays cache theirs too, so a tree of values is hashed once
+        private int hash;
 
-        JsonArrayImpl(List<JsonValue> valueList, BufferPool bufferPool) {
-            this.valueList = valueList;
+        AbstractJsonArray(BufferPool bufferPool) {
             this.bufferPool = bufferPool;
         }
 
         @Override
-        public int size() {
-            return valueList.size();
+        public int hashCode() {
+            int h = hash;
+            if (h == 0) {
+                h = super.hashCode();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            // Equal arrays have equal hash codes. Only hash codes that are
+            // cached already are compared, computing them would hash both
+            // trees completely before comparing them
+            if (obj instanceof AbstractJsonArray) {
+                int other = ((AbstractJsonArray)obj).hash;
+                if (hash != 0 && other != 0 && hash != other) {
+                    return false;
+                }
+            }
+            return super.equals(obj);
         }
 
         @Override
         public JsonObject getJsonObject(int index) {
-            return (JsonObject)valueList.get(index);
+            return (JsonObject)get(index);
         }
 
         @Override
         public JsonArray getJsonArray(int index) {
-            return (JsonArray)valueList.get(index);
+            return (JsonArray)get(index);
         }
 
         @Override
         public JsonNumber getJsonNumber(int index) {
-            return (JsonNumber)valueList.get(index);
+            return (JsonNumber)get(index);
         }
 
         @Override
         public JsonString getJsonString(int index) {
-            return (JsonString)valueList.get(index);
+            return (JsonString)get(index);
         }
 
         @Override
         @SuppressWarnings("unchecked")
         public <T extends JsonValue> List<T> getValuesAs(Class<T> clazz) {
-            return (List<T>)valueList;
+            return (List<T>)this;
         }
 
         @Override
@@ -468,7 +538,7 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
 
         @Override
         public boolean isNull(int index) {
-            return valueList.get(index).equals(JsonValue.NULL);
+            return get(index).equals(JsonValue.NULL);
         }
 
         @Override
@@ -476,11 +546,6 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
             return ValueType.ARRAY;
         }
 
-        @Override
-        public JsonValue get(int index) {
-            return valueList.get(index);
-        }
-
         @Override
         public String toString() {
             StringWriter sw = new StringWriter();
@@ -495,5 +560,68 @@ class JsonArrayBuilderImpl implements JsonArrayBuilder {
             return this;
         }
     }
-}
 
+    /**
+     * Immutable array that keeps its values in an array of the exact size.
+     */
+    private static final class JsonArrayImpl extends AbstractJsonArray {
+        private final JsonValue[] values;
+
+        JsonArrayImpl(JsonValue[] values, BufferPool bufferPool) {
+            super(bufferPool);
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public JsonValue get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public Object[] toArray() {
+            // List#toArray() returns Object[], not the component type
+            return Arrays.copyOf(values, values.length, Object[].class);
+        }
+    }
+
+    /**
+     * Immutable array that shares its values with the arrays it is derived
+     * from. The builder copies only the paths to the changed values.
+     */
+    private static final class PersistentArray extends AbstractJsonArray {
+        private final PersistentVector vector;
+
+        PersistentArray(PersistentVector vector, BufferPool bufferPool) {
+            super(bufferPool);
+            this.vector = vector;
+        }
+
+        @Override
+        public int size() {
+            return vector.size();
+        }
+
+        @Override
+        public JsonValue get(int index) {
+            return (JsonValue)vector.get(index);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Iterator<JsonValue> iterator() {
+            return (Iterator<JsonValue>)(Iterator<?>)vector.iterator();
+        }
+
+        @Override
+        public Object[] toArray() {
+            Object[] values = new Object[vector.size()];
+            vector.copyTo(values, 0);
+            return values;
+        }
+    }
+}
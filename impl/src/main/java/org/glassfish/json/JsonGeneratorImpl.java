@@ -50,8 +50,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -60,9 +59,13 @@ import java.util.Map;
 class JsonGeneratorImpl implements JsonGenerator {
 
     private static final char[] INT_MIN_VALUE_CHARS = "-2147483648".toCharArray();
+    private static final char[] LONG_MIN_VALUE_CHARS = "-9223372036854775808".toCharArray();
     private static final int[] INT_CHARS_SIZE_TABLE = { 9, 99, 999, 9999, 99999,
             999999, 9999999, 99999999, 999999999, Integer.MAX_VALUE };
 
+    // Unscaled values of BigDecimal with up to 18 digits fit into a long
+    private static final int MAX_LONG_DIGITS = 18;
+
     private static final char [] DIGIT_TENS = {
             '0', '0', '0', '0', '0', '0', '0', '0', '0', '0',
             '1', '1', '1', '1', '1', '1', '1', '1', '1', '1',
@@ -97,27 +100,65 @@ class JsonGeneratorImpl implements JsonGenerator {
             '6' , '7' , '8' , '9'
     };
 
+    // Pre-encoded literals for UTF-8 output
+    private static final byte[] TRUE_BYTES = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE_BYTES = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] NULL_BYTES = { 'n', 'u', 'l', 'l' };
+
+    private static final byte[] HEX_BYTES = {
+            '0', '1', '2', '3', '4', '5', '6', '7',
+            '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    // true for the ASCII chars that need to be escaped
+    // unescaped = %x20-21 | %x23-5B | %x5D-10FFFF
+    private static final boolean[] ESCAPE = new boolean[0x80];
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            ESCAPE[i] = true;
+        }
+        ESCAPE['"'] = true;
+        ESCAPE['\\'] = true;
+    }
+
     private static enum Scope {
         IN_NONE,
         IN_OBJECT,
         IN_ARRAY
     }
 
+    private static final Scope[] SCOPES = Scope.values();
+
     private final BufferPool bufferPool;
-    private final Writer writer;
-    private Context currentContext = new Context(Scope.IN_NONE);
-    private final Deque<Context> stack = new ArrayDeque<>();
+    private final Writer writer;        // null for UTF-8 byte output
+    private final OutputStream out;     // null for char output
+
+    // State of the current context, the enclosing contexts are kept in
+    // primitive arrays indexed by depth so that nothing is allocated per
+    // object or array
+    private Scope currentScope = Scope.IN_NONE;
+    private boolean currentFirst = true;
+    private byte[] scopeStack = new byte[16];
+    private boolean[] firstStack = new boolean[16];
+    private int depth;
 
     // Using own buffering mechanism as JDK's BufferedWriter uses synchronized
     // methods. Also, flushBuffer() is useful when you don't want to actually
-    // flush the underlying output source
-    private final char buf[];     // capacity >= INT_MIN_VALUE_CHARS.length
+    // flush the underlying output source. UTF-8 output is encoded directly
+    // into bytes[], other outputs use buf[]. Only one of them is non-null.
+    private final char buf[];     // capacity >= LONG_MIN_VALUE_CHARS.length
+    private final byte bytes[];   // capacity >= LONG_MIN_VALUE_CHARS.length
+    private final boolean utf8;
     private int len = 0;
+    private byte[] doubleChars;   // formatted double for char output
 
     JsonGeneratorImpl(Writer writer, BufferPool bufferPool) {
         this.writer = writer;
+        this.out = null;
         this.bufferPool = bufferPool;
         this.buf = bufferPool.take();
+        this.bytes = null;
+        this.utf8 = false;
     }
 
     JsonGeneratorImpl(OutputStream out, BufferPool bufferPool) {
@@ -125,14 +166,33 @@ class JsonGeneratorImpl implements JsonGenerator {
     }
 
     JsonGeneratorImpl(OutputStream out, Charset encoding, BufferPool bufferPool) {
-        this(new OutputStreamWriter(out, encoding), bufferPool);
+        this.bufferPool = bufferPool;
+        if (StandardCharsets.UTF_8.equals(encoding)) {
+            // No OutputStreamWriter, chars are encoded into bytes[] as they
+            // are written
+            this.writer = null;
+            this.out = out;
+            this.buf = null;
+            this.bytes = bufferPool.takeBytes();
+            this.utf8 = true;
+        } else {
+            this.writer = new OutputStreamWriter(out, encoding);
+            this.out = null;
+            this.buf = bufferPool.take();
+            this.bytes = null;
+            this.utf8 = false;
+        }
     }
 
     @Override
     public void flush() {
         flushBuffer();
         try {
-            writer.flush();
+            if (utf8) {
+                out.flush();
+            } else {
+                writer.flush();
+            }
         } catch (IOException ioe) {
             throw new JsonException(JsonMessages.GENERATOR_FLUSH_IO_ERR(), ioe);
         }
@@ -140,29 +200,27 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator writeStartObject() {
-        if (currentContext.scope == Scope.IN_OBJECT) {
-            throw new JsonGenerationException(JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+        if (currentScope == Scope.IN_OBJECT) {
+            throw new JsonGenerationException(JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
-        if (currentContext.scope == Scope.IN_NONE && !currentContext.first) {
+        if (currentScope == Scope.IN_NONE && !currentFirst) {
             throw new JsonGenerationException(JsonMessages.GENERATOR_ILLEGAL_MULTIPLE_TEXT());
         }
         writeComma();
         writeChar('{');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_OBJECT);
+        push(Scope.IN_OBJECT);
         return this;
     }
 
     @Override
     public JsonGenerator writeStartObject(String name) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
         writeChar('{');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_OBJECT);
+        push(Scope.IN_OBJECT);
         return this;
     }
 
@@ -175,9 +233,9 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator write(String name, String fieldValue) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
         writeEscapedString(fieldValue);
@@ -186,9 +244,9 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator write(String name, int value) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
         writeInt(value);
@@ -197,34 +255,34 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator write(String name, long value) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
-        writeString(String.valueOf(value));
+        writeLong(value);
         return this;
     }
 
     @Override
     public JsonGenerator write(String name, double value) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         if (Double.isInfinite(value) || Double.isNaN(value)) {
             throw new NumberFormatException(JsonMessages.GENERATOR_DOUBLE_INFINITE_NAN());
         }
         writeName(name);
-        writeString(String.valueOf(value));
+        writeDouble(value);
         return this;
     }
 
     @Override
     public JsonGenerator write(String name, BigInteger value) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
         writeString(String.valueOf(value));
@@ -233,42 +291,42 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator write(String name, BigDecimal value) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
-        writeString(String.valueOf(value));
+        writeBigDecimal(value);
         return this;
     }
 
     @Override
     public JsonGenerator write(String name, boolean value) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
-        writeString(value? "true" : "false");
+        writeBoolean(value);
         return this;
     }
 
     @Override
     public JsonGenerator writeNull(String name) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
-        writeString("null");
+        writeLiteral("null", NULL_BYTES);
         return this;
     }
 
     @Override
     public JsonGenerator write(JsonValue value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         switch (value.getValueType()) {
             case ARRAY:
@@ -311,37 +369,35 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator writeStartArray() {
-        if (currentContext.scope == Scope.IN_OBJECT) {
-            throw new JsonGenerationException(JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+        if (currentScope == Scope.IN_OBJECT) {
+            throw new JsonGenerationException(JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
-        if (currentContext.scope == Scope.IN_NONE && !currentContext.first) {
+        if (currentScope == Scope.IN_NONE && !currentFirst) {
             throw new JsonGenerationException(JsonMessages.GENERATOR_ILLEGAL_MULTIPLE_TEXT());
         }
         writeComma();
         writeChar('[');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_ARRAY);
+        push(Scope.IN_ARRAY);
         return this;
     }
 
     @Override
     public JsonGenerator writeStartArray(String name) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeName(name);
         writeChar('[');
-        stack.push(currentContext);
-        currentContext = new Context(Scope.IN_ARRAY);
+        push(Scope.IN_ARRAY);
         return this;
     }
 
     @Override
     public JsonGenerator write(String name, JsonValue value) {
-        if (currentContext.scope != Scope.IN_OBJECT) {
+        if (currentScope != Scope.IN_OBJECT) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         switch (value.getValueType()) {
             case ARRAY:
@@ -382,9 +438,9 @@ class JsonGeneratorImpl implements JsonGenerator {
     }
 
     public JsonGenerator write(String value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeComma();
         writeEscapedString(value);
@@ -393,9 +449,9 @@ class JsonGeneratorImpl implements JsonGenerator {
 
 
     public JsonGenerator write(int value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeComma();
         writeInt(value);
@@ -404,32 +460,34 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator write(long value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
-        writeValue(String.valueOf(value));
+        writeComma();
+        writeLong(value);
         return this;
     }
 
     @Override
     public JsonGenerator write(double value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         if (Double.isInfinite(value) || Double.isNaN(value)) {
             throw new NumberFormatException(JsonMessages.GENERATOR_DOUBLE_INFINITE_NAN());
         }
-        writeValue(String.valueOf(value));
+        writeComma();
+        writeDouble(value);
         return this;
     }
 
     @Override
     public JsonGenerator write(BigInteger value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeValue(value.toString());
         return this;
@@ -437,31 +495,32 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator write(BigDecimal value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
-        writeValue(value.toString());
+        writeComma();
+        writeBigDecimal(value);
         return this;
     }
 
     public JsonGenerator write(boolean value) {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeComma();
-        writeString(value ? "true" : "false");
+        writeBoolean(value);
         return this;
     }
 
     public JsonGenerator writeNull() {
-        if (!currentContext.first && currentContext.scope != Scope.IN_ARRAY) {
+        if (!currentFirst && currentScope != Scope.IN_ARRAY) {
             throw new JsonGenerationException(
-                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentContext.scope));
+                    JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
         }
         writeComma();
-        writeString("null");
+        writeLiteral("null", NULL_BYTES);
         return this;
     }
 
@@ -479,42 +538,74 @@ class JsonGeneratorImpl implements JsonGenerator {
 
     @Override
     public JsonGenerator writeEnd() {
-        if (currentContext.scope == Scope.IN_NONE) {
+        if (currentScope == Scope.IN_NONE) {
             throw new JsonGenerationException("writeEnd() cannot be called in no context");
         }
-        writeChar(currentContext.scope == Scope.IN_ARRAY ? ']' : '}');
-        currentContext = stack.pop();
+        writeChar(currentScope == Scope.IN_ARRAY ? ']' : '}');
+        pop();
         return this;
     }
 
     protected void writeComma() {
-        if (!currentContext.first) {
+        if (!currentFirst) {
             writeChar(',');
         }
-        currentContext.first = false;
+        currentFirst = false;
     }
 
-    private static class Context {
-        boolean first = true;
-        final Scope scope;
-
-        Context(Scope scope) {
-            this.scope = scope;
+    private void push(Scope scope) {
+        if (depth == scopeStack.length) {
+            scopeStack = Arrays.copyOf(scopeStack, 2 * depth);
+            firstStack = Arrays.copyOf(firstStack, 2 * depth);
         }
+        scopeStack[depth] = (byte)currentScope.ordinal();
+        firstStack[depth] = currentFirst;
+        depth++;
+        currentScope = scope;
+        currentFirst = true;
+    }
 
+    private void pop() {
+        depth--;
+        currentScope = SCOPES[scopeStack[depth]];
+        currentFirst = firstStack[depth];
     }
 
     public void close() {
-        if (currentContext.scope != Scope.IN_NONE || currentContext.first) {
+        if (currentScope != Scope.IN_NONE || currentFirst) {
             throw new JsonGenerationException(JsonMessages.GENERATOR_INCOMPLETE_JSON());
         }
+        closeOutput();
+    }
+
+    // Writes a top-level value followed by a newline. Any number of values
+    // can be written this way, for newline delimited JSON
+    void writeLine(JsonValue value) {
+        if (currentScope != Scope.IN_NONE) {
+            throw new JsonGenerationException(JsonMessages.GENERATOR_ILLEGAL_METHOD(currentScope));
+        }
+        currentFirst = true;
+        write(value);
+        writeChar('\n');
+    }
+
+    // Closes the output without checking that a value was written
+    void closeOutput() {
         flushBuffer();
         try {
-            writer.close();
+            if (utf8) {
+                out.close();
+            } else {
+                writer.close();
+            }
         } catch (IOException ioe) {
             throw new JsonException(JsonMessages.GENERATOR_CLOSE_IO_ERR(), ioe);
         }
-        bufferPool.recycle(buf);
+        if (utf8) {
+            bufferPool.recycleBytes(bytes);
+        } else {
+            bufferPool.recycle(buf);
+        }
     }
 
     // begin, end-1 indexes represent characters that need not
@@ -525,6 +616,10 @@ class JsonGeneratorImpl implements JsonGenerator {
     //    |           |                     |             |
     //   begin       end                   begin         end
     void writeEscapedString(String string) {
+        if (utf8) {
+            writeEscapedUtf8(string);
+            return;
+        }
         writeChar('"');
         int len = string.length();
         for(int i = 0; i < len; i++) {
@@ -576,7 +671,100 @@ class JsonGeneratorImpl implements JsonGenerator {
         writeChar('"');
     }
 
+    // Same output as writeEscapedString() but encodes to bytes[] directly.
+    // Runs of ASCII chars that need not be escaped are copied without any
+    // per-char capacity checks
+    private void writeEscapedUtf8(String string) {
+        writeByte('"');
+        int strLen = string.length();
+        int i = 0;
+        while (i < strLen) {
+            int end = i + Math.min(strLen - i, bytes.length - len);
+            char c = 0;
+            while (i < end && (c = string.charAt(i)) < 0x80 && !ESCAPE[c]) {
+                bytes[len++] = (byte)c;
+                i++;
+            }
+            if (i == strLen) {
+                break;
+            }
+            if (i == end) {             // bytes[] is full
+                flushBuffer();
+                continue;
+            }
+            i++;
+            if (c >= 0x80) {
+                i = writeUtf8(string, c, i, strLen);
+                continue;
+            }
+            if (len + 6 > bytes.length) {
+                flushBuffer();
+            }
+            bytes[len++] = '\\';
+            switch (c) {
+                case '"':
+                case '\\':
+                    bytes[len++] = (byte)c;
+                    break;
+                case '\b':
+                    bytes[len++] = 'b';
+                    break;
+                case '\f':
+                    bytes[len++] = 'f';
+                    break;
+                case '\n':
+                    bytes[len++] = 'n';
+                    break;
+                case '\r':
+                    bytes[len++] = 'r';
+                    break;
+                case '\t':
+                    bytes[len++] = 't';
+                    break;
+                default:
+                    bytes[len++] = 'u';
+                    bytes[len++] = '0';
+                    bytes[len++] = '0';
+                    bytes[len++] = HEX_BYTES[c >> 4];
+                    bytes[len++] = HEX_BYTES[c & 0xF];
+            }
+        }
+        writeByte('"');
+    }
+
+    // Encodes the non-ASCII char c, which was at index i-1 of str. A
+    // surrogate pair takes the following char too. Returns the index
+    // of the next char to be written.
+    private int writeUtf8(String str, char c, int i, int end) {
+        if (len + 4 > bytes.length) {
+            flushBuffer();
+        }
+        if (c < 0x800) {
+            bytes[len++] = (byte)(0xC0 | (c >> 6));
+            bytes[len++] = (byte)(0x80 | (c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+            bytes[len++] = (byte)(0xE0 | (c >> 12));
+            bytes[len++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            bytes[len++] = (byte)(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i < end
+                && Character.isLowSurrogate(str.charAt(i))) {
+            int cp = Character.toCodePoint(c, str.charAt(i++));
+            bytes[len++] = (byte)(0xF0 | (cp >> 18));
+            bytes[len++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+            bytes[len++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+            bytes[len++] = (byte)(0x80 | (cp & 0x3F));
+        } else {
+            // Unpaired surrogate, replaced as OutputStreamWriter would do
+            bytes[len++] = '?';
+        }
+        return i;
+    }
+
     void writeString(String str, int begin, int end) {
+        if (utf8) {
+            writeUtf8(str, begin, end);
+            return;
+        }
         while (begin < end) {       // source begin and end indexes
             int no = Math.min(buf.length - len, end - begin);
             str.getChars(begin, begin + no, buf, len);
@@ -588,17 +776,71 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
     }
 
+    private void writeUtf8(String str, int begin, int end) {
+        while (begin < end) {
+            int no = begin + Math.min(end - begin, bytes.length - len);
+            char c = 0;
+            while (begin < no && (c = str.charAt(begin)) < 0x80) {
+                bytes[len++] = (byte)c;
+                begin++;
+            }
+            if (begin == no) {
+                if (len >= bytes.length) {
+                    flushBuffer();
+                }
+            } else {
+                begin = writeUtf8(str, c, begin + 1, end);
+            }
+        }
+    }
+
     void writeString(String str) {
         writeString(str, 0, str.length());
     }
 
     void writeChar(char c) {
+        if (utf8) {
+            if (c < 0x80) {
+                writeByte(c);
+            } else {
+                writeUtf8(String.valueOf(c), c, 1, 1);
+            }
+            return;
+        }
         if (len >= buf.length) {
             flushBuffer();
         }
         buf[len++] = c;
     }
 
+    private void writeByte(char c) {
+        if (len >= bytes.length) {
+            flushBuffer();
+        }
+        bytes[len++] = (byte)c;
+    }
+
+    private void writeBoolean(boolean value) {
+        if (value) {
+            writeLiteral("true", TRUE_BYTES);
+        } else {
+            writeLiteral("false", FALSE_BYTES);
+        }
+    }
+
+    // encoded is the UTF-8 form of literal
+    private void writeLiteral(String literal, byte[] encoded) {
+        if (utf8) {
+            if (len + encoded.length > bytes.length) {
+                flushBuffer();
+            }
+            System.arraycopy(encoded, 0, bytes, len, encoded.length);
+            len += encoded.length;
+        } else {
+            writeString(literal);
+        }
+    }
+
     // Not using Integer.toString() since it creates intermediary String
     // Also, we want the chars to be copied to our buffer directly
     void writeInt(int num) {
@@ -608,25 +850,172 @@ class JsonGeneratorImpl implements JsonGenerator {
         } else {
             size = (num < 0) ? stringSize(-num) + 1 : stringSize(num);
         }
-        if (len+size >= buf.length) {
+        if (len+size >= capacity()) {
             flushBuffer();
         }
         if (num == Integer.MIN_VALUE) {
-            System.arraycopy(INT_MIN_VALUE_CHARS, 0, buf, len, size);
+            copyChars(INT_MIN_VALUE_CHARS);
+            return;
+        }
+        if (utf8) {
+            fillIntBytes(num, bytes, len+size);
         } else {
             fillIntChars(num, buf, len+size);
         }
         len += size;
     }
 
-    // flushBuffer writes the buffered contents to writer. But incase of
-    // byte stream, an OuputStreamWriter is created and that buffers too.
+    // Not using Long.toString() since it creates intermediary String
+    void writeLong(long num) {
+        if ((int)num == num) {
+            writeInt((int)num);
+            return;
+        }
+        int size;
+        if (num == Long.MIN_VALUE) {
+            size = LONG_MIN_VALUE_CHARS.length;
+        } else {
+            size = (num < 0) ? stringSize(-num) + 1 : stringSize(num);
+        }
+        if (len+size >= capacity()) {
+            flushBuffer();
+        }
+        if (num == Long.MIN_VALUE) {
+            copyChars(LONG_MIN_VALUE_CHARS);
+            return;
+        }
+        if (utf8) {
+            fillLongBytes(num, bytes, len+size);
+        } else {
+            fillLongChars(num, buf, len+size);
+        }
+        len += size;
+    }
+
+    // Not using Double.toString() since it creates intermediary String.
+    // The digits are the shortest ones that read back as the same double
+    void writeDouble(double num) {
+        if (len+DoubleFormatter.MAX_CHARS >= capacity()) {
+            flushBuffer();
+        }
+        if (utf8) {
+            len = DoubleFormatter.format(num, bytes, len);
+            return;
+        }
+        if (doubleChars == null) {
+            doubleChars = new byte[DoubleFormatter.MAX_CHARS];
+        }
+        int size = DoubleFormatter.format(num, doubleChars, 0);
+        for (int i = 0; i < size; i++) {
+            buf[len++] = (char)doubleChars[i];
+        }
+    }
+
+    // Not using BigDecimal.toString() for the values whose unscaled value
+    // fits into a long and whose toString() isn't in scientific notation
+    void writeBigDecimal(BigDecimal value) {
+        int scale = value.scale();
+        int precision = value.precision();
+        if (scale == 0 && precision <= MAX_LONG_DIGITS) {
+            writeLong(value.longValue());
+            return;
+        }
+        if (scale > 0 && scale <= MAX_LONG_DIGITS && precision-scale >= -5) {
+            BigInteger unscaled = value.unscaledValue();
+            // Long.MIN_VALUE can't be negated by writeDecimal
+            if (unscaled.bitLength() < 64 && unscaled.longValue() != Long.MIN_VALUE) {
+                writeDecimal(unscaled.longValue(), scale);
+                return;
+            }
+        }
+        writeString(value.toString());
+    }
+
+    // Writes unscaled*10^-scale in plain notation, same as BigDecimal does
+    private void writeDecimal(long unscaled, int scale) {
+        boolean neg = unscaled < 0;
+        if (neg) {
+            unscaled = -unscaled;
+        }
+        int size = stringSize(unscaled);
+        int zeros = Math.max(scale - size, 0);      // 0.00ddd
+        if (len + (neg ? 1 : 0) + zeros + size + 2 >= capacity()) {
+            flushBuffer();
+        }
+        if (neg) {
+            putChar('-');
+        }
+        if (size <= scale) {
+            putChar('0');
+            putChar('.');
+            for (int i = 0; i < zeros; i++) {
+                putChar('0');
+            }
+            fillDigits(unscaled, size);
+            return;
+        }
+        // ddd.ddd, the fraction is moved to make room for the point
+        int point = len + size - scale;
+        fillDigits(unscaled, size);
+        if (utf8) {
+            System.arraycopy(bytes, point, bytes, point + 1, scale);
+            bytes[point] = '.';
+        } else {
+            System.arraycopy(buf, point, buf, point + 1, scale);
+            buf[point] = '.';
+        }
+        len++;
+    }
+
+    // Places the size digits of num >= 0, the buffer needs to have
+    // enough space
+    private void fillDigits(long num, int size) {
+        if (utf8) {
+            fillLongBytes(num, bytes, len+size);
+        } else {
+            fillLongChars(num, buf, len+size);
+        }
+        len += size;
+    }
+
+    // The buffer needs to have enough space
+    private void putChar(char c) {
+        if (utf8) {
+            bytes[len++] = (byte)c;
+        } else {
+            buf[len++] = c;
+        }
+    }
+
+    private int capacity() {
+        return utf8 ? bytes.length : buf.length;
+    }
+
+    // Copies ASCII chars, the buffer needs to have enough space
+    private void copyChars(char[] chars) {
+        if (utf8) {
+            for (char c : chars) {
+                bytes[len++] = (byte)c;
+            }
+        } else {
+            System.arraycopy(chars, 0, buf, len, chars.length);
+            len += chars.length;
+        }
+    }
+
+    // flushBuffer writes the buffered contents to writer or, for UTF-8,
+    // directly to the byte stream. But incase of other encodings, an
+    // OuputStreamWriter is created and that buffers too.
     // We may need to call OutputStreamWriter#flushBuffer() using
     // reflection if that is really required (commented out below)
     void flushBuffer() {
         try {
             if (len > 0) {
-                writer.write(buf, 0, len);
+                if (utf8) {
+                    out.write(bytes, 0, len);
+                } else {
+                    writer.write(buf, 0, len);
+                }
                 len = 0;
             }
         } catch (IOException ioe) {
@@ -706,4 +1095,92 @@ class JsonGeneratorImpl implements JsonGenerator {
         }
     }
 
+    // Same as fillIntChars() but places the digits in a byte array
+    private static void fillIntBytes(int i, byte[] buf, int index) {
+        int q, r;
+        int charPos = index;
+
+        if (i < 0) {
+            buf [index - stringSize(-i) - 1] = '-';
+            i = -i;
+        }
+
+        while (i >= 65536) {
+            q = i / 100;
+            r = i - ((q << 6) + (q << 5) + (q << 2));
+            i = q;
+            buf [--charPos] = (byte)DIGIT_ONES[r];
+            buf [--charPos] = (byte)DIGIT_TENS[r];
+        }
+
+        for (;;) {
+            q = (i * 52429) >>> (16+3);
+            r = i - ((q << 3) + (q << 1));
+            buf [--charPos] = (byte)DIGITS[r];
+            i = q;
+            if (i == 0) break;
+        }
+    }
+
+    // Requires positive x
+    private static int stringSize(long x) {
+        long p = 10;
+        for (int i=1; i<19; i++) {
+            if (x < p)
+                return i;
+            p = 10*p;
+        }
+        return 19;
+    }
+
+    /**
+     * Places characters representing the long i into the
+     * character array buf, backwards from the specified index
+     * (exclusive). Two digits are generated per iteration using
+     * long arithmetic until the remaining value fits into an int.
+     *
+     * Will fail if i == Long.MIN_VALUE
+     */
+    private static void fillLongChars(long i, char[] buf, int index) {
+        long q;
+        int r;
+        int charPos = index;
+
+        if (i < 0) {
+            buf [index - stringSize(-i) - 1] = '-';
+            i = -i;
+        }
+
+        while (i > Integer.MAX_VALUE) {
+            q = i / 100;
+            // really: r = i - (q * 100);
+            r = (int)(i - ((q << 6) + (q << 5) + (q << 2)));
+            i = q;
+            buf [--charPos] = DIGIT_ONES[r];
+            buf [--charPos] = DIGIT_TENS[r];
+        }
+        fillIntChars((int)i, buf, charPos);
+    }
+
+    // Same as fillLongChars() but places the digits in a byte array
+    private static void fillLongBytes(long i, byte[] buf, int index) {
+        long q;
+        int r;
+        int charPos = index;
+
+        if (i < 0) {
+            buf [index - stringSize(-i) - 1] = '-';
+            i = -i;
+        }
+
+        while (i > Integer.MAX_VALUE) {
+            q = i / 100;
+            r = (int)(i - ((q << 6) + (q << 5) + (q << 2)));
+            i = q;
+            buf [--charPos] = (byte)DIGIT_ONES[r];
+            buf [--charPos] = (byte)DIGIT_TENS[r];
+        }
+        fillIntBytes((int)i, buf, charPos);
+    }
+
 }
@@ -0,0 +1,555 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.*;
+import javax.json.stream.JsonParser.Event;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * JsonReader that doesn't build the tree up front. The whole document is
+ * scanned once, which validates it, and the scanned tokens are recorded in
+ * a tape of byte ranges of the UTF-8 input. The returned objects and
+ * arrays are views of the tape: the names of an object are decoded when
+ * the object is first accessed, and a member or an element is turned into
+ * a {@code JsonValue} only when it is asked for. Subtrees that are never
+ * accessed stay as byte ranges.
+ *
+ * <p>
+ * The views keep the input bytes. A heap buffer is used in place, so it
+ * must not be modified while the tree is in use.
+ */
+final class JsonLazyReader implements JsonReader {
+
+    // Tape entry types
+    private static final int OBJECT = 0;
+    private static final int ARRAY = 1;
+    private static final int STRING = 2;
+    private static final int ESCAPED_STRING = 3;    // escapes or non-ASCII
+    private static final int INT = 4;
+    private static final int LONG = 5;
+    private static final int DECIMAL = 6;
+    private static final int TRUE = 7;
+    private static final int FALSE = 8;
+    private static final int NULL = 9;
+
+    private final BufferPool bufferPool;
+    private final InputStream in;       // null if the bytes are given
+    private byte[] bytes;
+    private int offset;
+    private int length;
+    private boolean readDone;
+
+    JsonLazyReader(ByteBuffer buffer, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.in = null;
+        ByteBuffer bb = ByteBufferInputStream.skipBom(buffer.duplicate());
+        length = bb.remaining();
+        if (bb.hasArray()) {
+            bytes = bb.array();
+            offset = bb.arrayOffset()+bb.position();
+        } else {
+            bytes = new byte[length];
+            bb.get(bytes);
+        }
+    }
+
+    // The stream is read fully when the value is read
+    JsonLazyReader(InputStream in, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.in = in;
+    }
+
+    @Override
+    public JsonStructure read() {
+        JsonValue value = readValue();
+        if (value instanceof JsonStructure) {
+            return (JsonStructure)value;
+        }
+        throw new JsonException("Internal Error");
+    }
+
+    @Override
+    public JsonObject readObject() {
+        JsonValue value = readValue();
+        if (value instanceof JsonObject) {
+            return (JsonObject)value;
+        }
+        throw new IllegalStateException(
+                JsonMessages.PARSER_GETOBJECT_ERR(event(value)));
+    }
+
+    @Override
+    public JsonArray readArray() {
+        JsonValue value = readValue();
+        if (value instanceof JsonArray) {
+            return (JsonArray)value;
+        }
+        throw new IllegalStateException(
+                JsonMessages.PARSER_GETARRAY_ERR(event(value)));
+    }
+
+    // Event of the first token of a value
+    private static Event event(JsonValue value) {
+        switch (value.getValueType()) {
+            case OBJECT:
+                return Event.START_OBJECT;
+            case ARRAY:
+                return Event.START_ARRAY;
+            case STRING:
+                return Event.VALUE_STRING;
+            case NUMBER:
+                return Event.VALUE_NUMBER;
+            case TRUE:
+                return Event.VALUE_TRUE;
+            case FALSE:
+                return Event.VALUE_FALSE;
+            default:
+                return Event.VALUE_NULL;
+        }
+    }
+
+    @Override
+    public JsonValue readValue() {
+        if (readDone) {
+            throw new IllegalStateException(JsonMessages.READER_READ_ALREADY_CALLED());
+        }
+        readDone = true;
+        if (in != null) {
+            readFully();
+        }
+        Tape tape = new Tape(bytes, length, bufferPool);
+        JsonUtf8Tokenizer tokenizer = new JsonUtf8Tokenizer(bytes, offset, length, bufferPool);
+        try (JsonParserImpl parser = new JsonParserImpl(tokenizer, bufferPool)) {
+            if (parser.hasNext()) {
+                tape.scan(parser, tokenizer);
+                return tape.value(0);
+            }
+        }
+        throw new JsonException("Internal Error");
+    }
+
+    // Reads the whole stream as UTF-8 bytes
+    private void readFully() {
+        UnicodeDetectingInputStream uin = new UnicodeDetectingInputStream(in);
+        try {
+            if (StandardCharsets.UTF_8.equals(uin.getCharset())) {
+                byte[] buf = new byte[8192];
+                int len = 0;
+                int n;
+                while ((n = uin.read(buf, len, buf.length-len)) != -1) {
+                    len += n;
+                    if (len == buf.length) {
+                        buf = Arrays.copyOf(buf, 2*buf.length);
+                    }
+                }
+                bytes = buf;
+                length = len;
+            } else {
+                Reader reader = new InputStreamReader(uin, uin.getCharset());
+                StringBuilder sb = new StringBuilder();
+                char[] buf = new char[4096];
+                int n;
+                while ((n = reader.read(buf)) != -1) {
+                    sb.append(buf, 0, n);
+                }
+                bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                length = bytes.length;
+            }
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    @Override
+    public void close() {
+        readDone = true;
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ioe) {
+                throw new JsonException(JsonMessages.PARSER_TOKENIZER_CLOSE_IO(), ioe);
+            }
+        }
+    }
+
+    /**
+     * Tokens of a document, a type and two ints for each token. A string
+     * or number token has its byte range in the input. An object or array
+     * token has the index of the token after its end, and the number of
+     * its members or elements. Members are a name token followed by the
+     * tokens of the value.
+     */
+    private static final class Tape {
+        final byte[] bytes;
+        final BufferPool bufferPool;
+        private byte[] types;
+        private int[] tokens;           // two ints for each token
+        private int size;               // number of tokens
+
+        Tape(byte[] bytes, int length, BufferPool bufferPool) {
+            this.bytes = bytes;
+            this.bufferPool = bufferPool;
+            // typical documents have a token for every 8-16 bytes
+            int capacity = Math.max(64, length/16);
+            types = new byte[capacity];
+            tokens = new int[2*capacity];
+        }
+
+        // Records the tokens of the parser's first value
+        void scan(JsonParserImpl parser, JsonUtf8Tokenizer tokenizer) {
+            // open objects and arrays, and their number of members so far
+            int[] open = new int[16];
+            int[] counts = new int[16];
+            int depth = 0;
+            do {
+                Event e = parser.next();
+                if (depth > 0 && e != Event.END_OBJECT && e != Event.END_ARRAY
+                        && (e == Event.KEY_NAME || type(open[depth-1]) == ARRAY)) {
+                    counts[depth-1]++;
+                }
+                switch (e) {
+                    case START_OBJECT:
+                    case START_ARRAY:
+                        if (depth == open.length) {
+                            open = Arrays.copyOf(open, 2*depth);
+                            counts = Arrays.copyOf(counts, 2*depth);
+                        }
+                        open[depth] = add(e == Event.START_OBJECT ? OBJECT : ARRAY, 0, 0);
+                        counts[depth++] = 0;
+                        break;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        int t = open[--depth];
+                        tokens[2*t] = size;
+                        tokens[2*t+1] = counts[depth];
+                        break;
+                    case KEY_NAME:
+                    case VALUE_STRING:
+                        add(tokenizer.needsDecoding() ? ESCAPED_STRING : STRING,
+                                tokenizer.storeBegin, tokenizer.storeEnd);
+                        break;
+                    case VALUE_NUMBER:
+                        add(tokenizer.isDefinitelyInt() ? INT
+                                        : tokenizer.isDefinitelyLong() ? LONG : DECIMAL,
+                                tokenizer.storeBegin, tokenizer.storeEnd);
+                        break;
+                    case VALUE_TRUE:
+                        add(TRUE, 0, 0);
+                        break;
+                    case VALUE_FALSE:
+                        add(FALSE, 0, 0);
+                        break;
+                    default:
+                        add(NULL, 0, 0);
+                }
+            } while (depth > 0);
+        }
+
+        private int add(int type, int a, int b) {
+            if (size == types.length) {
+                types = Arrays.copyOf(types, 2*size);
+                tokens = Arrays.copyOf(tokens, 4*size);
+            }
+            types[size] = (byte)type;
+            tokens[2*size] = a;
+            tokens[2*size+1] = b;
+            return size++;
+        }
+
+        int type(int t) {
+            return types[t];
+        }
+
+        // Number of members or elements of an object or array token
+        int count(int t) {
+            return tokens[2*t+1];
+        }
+
+        // Token after the given value
+        int next(int t) {
+            int type = types[t];
+            return type == OBJECT || type == ARRAY ? tokens[2*t] : t+1;
+        }
+
+        String string(int t) {
+            int begin = tokens[2*t];
+            int end = tokens[2*t+1];
+            if (types[t] == STRING) {
+                return new String(bytes, begin, end-begin, StandardCharsets.ISO_8859_1);
+            }
+            char[] dest = new char[end-begin];
+            int len = JsonUtf8Tokenizer.decodeChars(bytes, begin, end, dest);
+            return new String(dest, 0, len);
+        }
+
+        JsonValue value(int t) {
+            int begin = tokens[2*t];
+            int end = tokens[2*t+1];
+            switch (types[t]) {
+                case OBJECT:
+                    return new LazyObject(this, t);
+                case ARRAY:
+                    return new LazyArray(this, t);
+                case STRING:
+                case ESCAPED_STRING:
+                    return new JsonStringImpl(string(t));
+                case INT:
+                    return JsonNumberImpl.getJsonNumber((int)parseLong(begin, end));
+                case LONG:
+                    return JsonNumberImpl.getJsonNumber(parseLong(begin, end));
+                case DECIMAL:
+                    char[] chars = new char[end-begin];
+                    for (int i = 0; i < chars.length; i++) {
+                        chars[i] = (char)bytes[begin+i];
+                    }
+                    return JsonNumberImpl.getJsonNumber(new BigDecimal(chars));
+                case TRUE:
+                    return JsonValue.TRUE;
+                case FALSE:
+                    return JsonValue.FALSE;
+                default:
+                    return JsonValue.NULL;
+            }
+        }
+
+        private long parseLong(int begin, int end) {
+            boolean minus = bytes[begin] == '-';
+            long num = 0;
+            for (int i = minus ? begin+1 : begin; i < end; i++) {
+                num = num * 10 + (bytes[i] - '0');
+            }
+            return minus ? -num : num;
+        }
+    }
+
+    // Names and value tokens of an object, decoded on first access. The
+    // values are created when they are asked for. Concurrent first
+    // accesses may create a value twice, both are equal. A repeated name
+    // keeps its first position and takes the last value, the same as the
+    // object builder does
+    private static final class Members {
+        final String[] names;
+        final int[] tokens;
+        final int[] index;
+        final JsonValue[] values;
+
+        Members(Tape tape, int t) {
+            int count = tape.count(t);
+            String[] names = new String[count];
+            int[] tokens = new int[count];
+            int[] index = count > JsonObjectBuilderImpl.LINEAR_MAX
+                    ? JsonObjectBuilderImpl.newIndex(count) : null;
+            int size = 0;
+            int token = t+1;
+            for (int i = 0; i < count; i++) {
+                String name = tape.string(token);
+                int at = JsonObjectBuilderImpl.find(names, size, index, name);
+                if (at == -1) {
+                    names[size] = name;
+                    tokens[size] = token+1;
+                    if (index != null) {
+                        JsonObjectBuilderImpl.insert(index, name, size);
+                    }
+                    size++;
+                } else {
+                    tokens[at] = token+1;
+                }
+                token = tape.next(token+1);
+            }
+            if (size < count) {
+                names = Arrays.copyOf(names, size);
+                tokens = Arrays.copyOf(tokens, size);
+            }
+            this.names = names;
+            this.tokens = tokens;
+            this.index = index;
+            this.values = new JsonValue[size];
+        }
+    }
+
+    private static final class LazyObject extends JsonObjectBuilderImpl.AbstractJsonObject {
+        private final Tape tape;
+        private final Members members;
+
+        LazyObject(Tape tape, int t) {
+            super(tape.bufferPool);
+            this.tape = tape;
+            this.members = new Members(tape, t);
+        }
+
+        private JsonValue value(int i) {
+            JsonValue value = members.values[i];
+            if (value == null) {
+                value = tape.value(members.tokens[i]);
+                members.values[i] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue>> entrySet() {
+            return new AbstractSet<Entry<String, JsonValue>>() {
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new Iterator<Entry<String, JsonValue>>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < members.names.length;
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue> next() {
+                            if (i == members.names.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, JsonValue> e =
+                                    new SimpleImmutableEntry<>(members.names[i], value(i));
+                            i++;
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return members.names.length;
+                }
+            };
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return Collections.unmodifiableList(Arrays.asList(members.names)).iterator();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return members.names.length;
+                }
+            };
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super JsonValue> action) {
+            for (int i = 0; i < members.names.length; i++) {
+                action.accept(members.names[i], value(i));
+            }
+        }
+
+        @Override
+        public int size() {
+            return members.names.length;
+        }
+
+        @Override
+        public JsonValue get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int i = JsonObjectBuilderImpl.find(members.names, members.names.length,
+                    members.index, (String)key);
+            return i == -1 ? null : value(i);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String
+                    && JsonObjectBuilderImpl.find(members.names, members.names.length,
+                            members.index, (String)key) != -1;
+        }
+    }
+
+    private static final class LazyArray extends JsonArrayBuilderImpl.AbstractJsonArray {
+        private final Tape tape;
+        private final int[] tokens;         // token of each element
+        private final JsonValue[] values;   // created when asked for
+
+        LazyArray(Tape tape, int t) {
+            super(tape.bufferPool);
+            this.tape = tape;
+            int count = tape.count(t);
+            tokens = new int[count];
+            values = new JsonValue[count];
+            int token = t+1;
+            for (int i = 0; i < count; i++) {
+                tokens[i] = token;
+                token = tape.next(token);
+            }
+        }
+
+        @Override
+        public int size() {
+            return tokens.length;
+        }
+
+        @Override
+        public JsonValue get(int index) {
+            JsonValue value = values[index];
+            if (value == null) {
+                value = tape.value(tokens[index]);
+                values[index] = value;
+            }
+            return value;
+        }
+    }
+
+}
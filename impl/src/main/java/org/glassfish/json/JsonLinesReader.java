@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonValue;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParsingException;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Reads newline delimited JSON (JSON Lines), where every line of a UTF-8
+ * stream is a JSON value. Blank lines are skipped. A malformed line fails
+ * on its own: {@link #read()} throws for it, and the next call continues
+ * with the following line.
+ *
+ * <p>
+ * One tokenizer and its buffer are used for all the records. Instances are
+ * created with {@link JsonProviderImpl#createLinesReader(InputStream)}.
+ */
+public final class JsonLinesReader implements Closeable {
+
+    private final JsonUtf8Tokenizer tokenizer;
+    private final JsonParserImpl parser;
+    private long recordOffset = -1;
+    private long recordLine = -1;
+
+    JsonLinesReader(InputStream in, BufferPool bufferPool) {
+        tokenizer = new JsonUtf8Tokenizer(in, bufferPool);
+        parser = new JsonParserImpl(tokenizer, bufferPool);
+    }
+
+    /**
+     * Reads the value of the next non-blank line.
+     *
+     * @return the value, or null at the end of the stream
+     * @throws JsonParsingException if the line is not a single valid JSON
+     *      value. The reader continues with the next line afterwards
+     * @throws javax.json.JsonException if an i/o error occurs
+     */
+    public JsonValue read() {
+        while (tokenizer.nextLine()) {
+            recordOffset = tokenizer.getByteOffset();
+            recordLine = tokenizer.lineNo;
+            try {
+                if (!parser.hasNext()) {
+                    continue;           // blank line
+                }
+                parser.next();
+                JsonValue value = parser.getValue();
+                if (parser.hasNext()) {
+                    JsonTokenizer.JsonToken token = tokenizer.nextToken();
+                    JsonLocation location = tokenizer.getLastCharLocation();
+                    throw new JsonParsingException(
+                            JsonMessages.PARSER_EXPECTED_EOF(token), location);
+                }
+                return value;
+            } catch (RuntimeException re) {
+                parser.clearContext();
+                throw re;
+            } finally {
+                tokenizer.endLine();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the values of up to {@code max} lines into a list. A malformed
+     * line ends the batch with an exception, the values before it are
+     * already added to the list.
+     *
+     * @param records list the values are added to
+     * @param max maximum number of values to read
+     * @return number of values that are added, 0 at the end of the stream
+     * @throws JsonParsingException if a line is not a single valid JSON
+     *      value
+     * @throws javax.json.JsonException if an i/o error occurs
+     */
+    public int read(List<? super JsonValue> records, int max) {
+        int count = 0;
+        JsonValue value;
+        while (count < max && (value = read()) != null) {
+            records.add(value);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the byte offset in the stream of the line that was read
+     * last, whether it was valid or not.
+     *
+     * @return the byte offset, -1 if no line is read yet
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Returns the line number of the line that was read last, whether it
+     * was valid or not. The first line is 1.
+     *
+     * @return the line number, -1 if no line is read yet
+     */
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * Closes this reader and the underlying stream.
+     *
+     * @throws javax.json.JsonException if an i/o error occurs
+     */
+    @Override
+    public void close() {
+        parser.close();
+    }
+
+}
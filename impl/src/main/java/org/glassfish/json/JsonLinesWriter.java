@@ -0,0 +1,109 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonValue;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes newline delimited JSON (JSON Lines), one compact value per line,
+ * encoded in UTF-8. The output is buffered, and the stream is flushed
+ * after every {@code flushInterval} values, or only when this writer is
+ * flushed or closed if the interval is 0.
+ *
+ * <p>
+ * Instances are created with
+ * {@link JsonProviderImpl#createLinesWriter(OutputStream, int)}.
+ */
+public final class JsonLinesWriter implements Closeable, Flushable {
+
+    private final JsonGeneratorImpl generator;
+    private final int flushInterval;
+    private int unflushed;
+
+    JsonLinesWriter(OutputStream out, int flushInterval, BufferPool bufferPool) {
+        if (flushInterval < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.generator = new JsonGeneratorImpl(out, StandardCharsets.UTF_8, bufferPool);
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Writes a value and a newline.
+     *
+     * @param value a JSON value
+     * @throws javax.json.JsonException if an i/o error occurs
+     */
+    public void write(JsonValue value) {
+        generator.writeLine(value);
+        if (flushInterval > 0 && ++unflushed == flushInterval) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered values and flushes the stream.
+     *
+     * @throws javax.json.JsonException if an i/o error occurs
+     */
+    @Override
+    public void flush() {
+        generator.flush();
+        unflushed = 0;
+    }
+
+    /**
+     * Writes the buffered values and closes the stream.
+     *
+     * @throws javax.json.JsonException if an i/o error occurs
+     */
+    @Override
+    public void close() {
+        generator.closeOutput();
+    }
+
+}
@@ -86,6 +86,10 @@ final class JsonMessages {
         return localize("parser.getLong.err", event);
     }
 
+    static String PARSER_GETDOUBLE_ERR(JsonParser.Event event) {
+        return localize("parser.getDouble.err", event);
+    }
+
     static String PARSER_GETBIGDECIMAL_ERR(JsonParser.Event event) {
         return localize("parser.getBigDecimal.err", event);
     }
@@ -114,6 +118,18 @@ final class JsonMessages {
         return localize("parser.tokenizer.close.io");
     }
 
+    static String PARSER_PATH_IO_ERR(Object path) {
+        return localize("parser.path.io.err", path);
+    }
+
+    static String PARSER_NEEDS_INPUT(String method) {
+        return localize("parser.needs.input", method);
+    }
+
+    static String PARSER_INPUT_ENDED() {
+        return localize("parser.input.ended");
+    }
+
     static String PARSER_INVALID_TOKEN(JsonTokenizer.JsonToken token, JsonLocation location, String expectedTokens) {
         return localize("parser.invalid.token", token, location, expectedTokens);
     }
@@ -123,6 +139,10 @@ final class JsonMessages {
         return localize("generator.flush.io.err");
     }
 
+    static String GENERATOR_NO_BUFFER() {
+        return localize("generator.no.buffer");
+    }
+
     static String GENERATOR_CLOSE_IO_ERR() {
         return localize("generator.close.io.err");
     }
@@ -192,6 +212,11 @@ final class JsonMessages {
         return localize("arrbuilder.array.builder.null");
     }
 
+    // projection messages
+    static String PROJECTION_POINTER_INVALID(String pointer) {
+        return localize("projection.pointer.invalid", pointer);
+    }
+
 
     private static String localize(String key, Object ... args) {
         try {
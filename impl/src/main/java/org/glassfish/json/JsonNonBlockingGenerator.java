@@ -0,0 +1,268 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * A generator that doesn't block on slow output. The UTF-8 bytes are
+ * written into {@code ByteBuffer}s, and every full buffer is handed to a
+ * {@link Sink}, for example one that writes to a non-blocking channel.
+ * When the sink doesn't take all the bytes, the generator keeps them and
+ * reports {@link #isBackpressured() backpressure}. The caller then stops
+ * generating, and calls {@link #resume()} when the sink can take more,
+ * for example when the channel is writable again.
+ *
+ * <p>
+ * Writing doesn't fail under backpressure, the bytes are kept until the
+ * sink takes them, so the caller decides how much is buffered.
+ * {@link #flush()} hands the partly filled buffer to the sink as well.
+ * After {@link #close()}, {@code resume()} is called until it returns true
+ * if there is backpressure.
+ *
+ * <p>
+ * The buffers are pooled byte[] buffers, or ones that the caller supplies,
+ * such as direct buffers for channel writes. A buffer is reused once the
+ * sink has taken all its bytes. Instances are created with
+ * {@link JsonProviderImpl#createNonBlockingGenerator(Sink)}.
+ */
+public final class JsonNonBlockingGenerator extends JsonGeneratorImpl {
+
+    /**
+     * Takes the generated bytes.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Takes the remaining bytes of a buffer, as much as it can, the
+         * same as a write to a non-blocking channel. The generator reuses
+         * the buffer after the call, so the bytes have to be written or
+         * copied.
+         *
+         * @param buffer bytes from the buffer's position to its limit
+         * @return false if the sink can't take more bytes for now. The
+         *      bytes that it didn't take are handed again on
+         *      {@link JsonNonBlockingGenerator#resume()}
+         */
+        boolean write(ByteBuffer buffer);
+    }
+
+    private final Output output;
+
+    JsonNonBlockingGenerator(Sink sink, Supplier<ByteBuffer> buffers, BufferPool bufferPool) {
+        this(new Output(sink, buffers, bufferPool), bufferPool);
+    }
+
+    private JsonNonBlockingGenerator(Output output, BufferPool bufferPool) {
+        super(output, StandardCharsets.UTF_8, bufferPool);
+        this.output = output;
+    }
+
+    /**
+     * Returns true if the sink doesn't take more bytes for now. The caller
+     * should stop generating until {@link #resume()} returns true.
+     *
+     * @return true if there is backpressure
+     */
+    public boolean isBackpressured() {
+        return output.backpressured;
+    }
+
+    /**
+     * Hands the bytes that the sink didn't take to it again.
+     *
+     * @return true if the sink took them all and can take more, so
+     *      generating can continue
+     */
+    public boolean resume() {
+        return output.drain();
+    }
+
+    /**
+     * Returns the number of bytes that are handed to the sink, but not
+     * taken by it yet.
+     *
+     * @return number of pending bytes
+     */
+    public long getPendingBytes() {
+        long pending = 0;
+        for (ByteBuffer buffer : output.pending) {
+            pending += buffer.remaining();
+        }
+        return pending;
+    }
+
+    /**
+     * The bytes that the generator flushes, copied into the buffers that
+     * are handed to the sink.
+     */
+    private static final class Output extends OutputStream {
+        private final Sink sink;
+        private final Supplier<ByteBuffer> buffers;     // null for pooled buffers
+        private final BufferPool bufferPool;
+
+        // Buffers whose bytes the sink didn't take all of, ready for reading
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        // Buffers that the sink took all the bytes of, for reuse
+        private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+        private ByteBuffer current;                     // being filled
+        private boolean backpressured;
+        private boolean closed;
+
+        Output(Sink sink, Supplier<ByteBuffer> buffers, BufferPool bufferPool) {
+            this.sink = sink;
+            this.buffers = buffers;
+            this.bufferPool = bufferPool;
+        }
+
+        @Override
+        public void write(int b) {
+            if (current == null) {
+                current = newBuffer();
+            }
+            current.put((byte)b);
+            if (!current.hasRemaining()) {
+                handOver();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (current == null) {
+                    current = newBuffer();
+                }
+                int n = Math.min(len, current.remaining());
+                current.put(b, off, n);
+                off += n;
+                len -= n;
+                if (!current.hasRemaining()) {
+                    handOver();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (current != null && current.position() > 0) {
+                handOver();
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+            closed = true;
+            recycle();
+        }
+
+        private ByteBuffer newBuffer() {
+            ByteBuffer buffer = free.poll();
+            if (buffer != null) {
+                buffer.clear();
+                return buffer;
+            }
+            if (buffers == null) {
+                return ByteBuffer.wrap(bufferPool.takeBytes());
+            }
+            buffer = buffers.get();
+            if (buffer == null || !buffer.hasRemaining()) {
+                throw new IllegalStateException(JsonMessages.GENERATOR_NO_BUFFER());
+            }
+            return buffer;
+        }
+
+        // Hands the current buffer to the sink, or queues it while there
+        // is backpressure so that the bytes stay in order
+        private void handOver() {
+            ByteBuffer buffer = current;
+            current = null;
+            buffer.flip();
+            if (backpressured) {
+                pending.add(buffer);
+                return;
+            }
+            boolean more = sink.write(buffer);
+            if (buffer.hasRemaining()) {
+                pending.add(buffer);
+                backpressured = true;
+            } else {
+                free.add(buffer);
+                backpressured = !more;
+            }
+        }
+
+        boolean drain() {
+            boolean more = true;
+            while (more && !pending.isEmpty()) {
+                ByteBuffer buffer = pending.peek();
+                more = sink.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return false;
+                }
+                free.add(pending.poll());
+            }
+            backpressured = !more || !pending.isEmpty();
+            if (closed) {
+                recycle();
+            }
+            return !backpressured;
+        }
+
+        // Gives the pooled buffers back once nothing is pending
+        private void recycle() {
+            if (buffers == null && pending.isEmpty()) {
+                ByteBuffer buffer;
+                while ((buffer = free.poll()) != null) {
+                    bufferPool.recycleBytes(buffer.array());
+                }
+            }
+        }
+    }
+
+}
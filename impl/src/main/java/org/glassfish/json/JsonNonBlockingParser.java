@@ -0,0 +1,605 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParser;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * A parser that doesn't block for input. The UTF-8 bytes of the JSON text
+ * are fed in chunks as they arrive, with {@link #feed(ByteBuffer)}, and
+ * {@link #endOfInput()} is called after the last chunk. The parser
+ * returns events for as long as their tokens are complete, and then
+ * reports that it {@link #needsInput() needs more input}. A chunk may end
+ * anywhere, in the middle of a string, an escape sequence, a number or a
+ * literal.
+ *
+ * <p>
+ * The fed bytes are scanned just enough to find where the tokens end, so
+ * that the parser knows whether the next event is complete. The events
+ * and their values come from a {@link JsonParserImpl} that reads the fed
+ * bytes, and are the same as it returns for the whole text.
+ *
+ * <p>
+ * {@link #getObject()}, {@link #getArray()}, {@link #getValue()},
+ * {@link #skipObject()} and {@link #skipArray()} need all the tokens up
+ * to the end of the current object or array, and the streams need the
+ * whole input. They throw {@code IllegalStateException} otherwise.
+ *
+ * <p>
+ * Instances are created with {@link JsonProviderImpl#createNonBlockingParser()}.
+ */
+public final class JsonNonBlockingParser implements JsonParser {
+
+    // Kinds of the complete tokens in the queue
+    private static final byte VALUE = 0;        // string, number, literal, or a bad char
+    private static final byte OPEN = 1;
+    private static final byte CLOSE = 2;
+    private static final byte SEPARATOR = 3;    // , or :
+
+    // Scanner states, between tokens or within a token that isn't complete
+    private static final int BETWEEN = 0;
+    private static final int STRING = 1;
+    private static final int STRING_ESCAPE = 2;
+    private static final int NUMBER = 3;
+    private static final int LITERAL = 4;
+
+    // Classes of the bytes between tokens, 0 for the bytes that can't
+    // start a token. A number continues while the class is C_DIGIT or
+    // C_NUMBER
+    private static final byte C_WHITESPACE = 1;
+    private static final byte C_QUOTE = 2;
+    private static final byte C_OPEN = 3;
+    private static final byte C_CLOSE = 4;
+    private static final byte C_SEPARATOR = 5;
+    private static final byte C_LITERAL = 6;
+    private static final byte C_DIGIT = 7;      // also starts a number
+    private static final byte C_NUMBER = 8;
+    private static final byte[] CLASSES = new byte[256];
+
+    static {
+        CLASSES[' '] = CLASSES['\t'] = CLASSES['\n'] = CLASSES['\r'] = C_WHITESPACE;
+        CLASSES['"'] = C_QUOTE;
+        CLASSES['{'] = CLASSES['['] = C_OPEN;
+        CLASSES['}'] = CLASSES[']'] = C_CLOSE;
+        CLASSES[','] = CLASSES[':'] = C_SEPARATOR;
+        CLASSES['t'] = CLASSES['f'] = CLASSES['n'] = C_LITERAL;
+        CLASSES['-'] = C_DIGIT;
+        for (int ch = '0'; ch <= '9'; ch++) {
+            CLASSES[ch] = C_DIGIT;
+        }
+        CLASSES['.'] = CLASSES['e'] = CLASSES['E'] = CLASSES['+'] = C_NUMBER;
+    }
+
+    private final FeedInputStream in;
+    private final JsonParserImpl parser;
+
+    private int state = BETWEEN;
+    private int literalLeft;            // bytes of the literal still to come
+    private boolean bomChecked;
+    private boolean ended;
+    private Event currentEvent;
+
+    // Ring buffer of the complete tokens that the parser hasn't read yet
+    private byte[] tokens = new byte[64];
+    private int tokensHead;
+    private int tokensSize;
+
+    // true for the enclosing arrays, false for the enclosing objects
+    private boolean[] scopes = new boolean[16];
+    private int depth;
+
+    JsonNonBlockingParser(BufferPool bufferPool) {
+        in = new FeedInputStream(bufferPool);
+        parser = new JsonParserImpl(in, StandardCharsets.UTF_8, bufferPool);
+    }
+
+    /**
+     * Feeds the remaining bytes of a chunk of UTF-8 encoded JSON text. The
+     * bytes are copied, and the buffer's position is advanced to its limit.
+     *
+     * @param chunk the next bytes of the JSON text
+     * @throws IllegalStateException if {@link #endOfInput()} is called
+     *      already
+     */
+    public void feed(ByteBuffer chunk) {
+        if (ended) {
+            throw new IllegalStateException(JsonMessages.PARSER_INPUT_ENDED());
+        }
+        in.append(chunk);
+        scan();
+    }
+
+    /**
+     * Tells the parser that all the input is fed. The rest of the events
+     * are then returned without waiting for more input, and a text that
+     * ends in the middle of a value fails with a parsing exception.
+     */
+    public void endOfInput() {
+        if (!ended) {
+            ended = true;
+            bomChecked = true;
+            in.ended = true;
+            scan();
+            if (state == NUMBER) {
+                enqueue(VALUE);     // a number at the end is complete
+                state = BETWEEN;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the next event needs more input, and so
+     * {@link #hasNext()} is false only until more bytes are fed.
+     *
+     * @return true if more input has to be fed for the next event
+     */
+    public boolean needsInput() {
+        return !ended && tokensSize < tokensNeeded();
+    }
+
+    /**
+     * Returns true if the next event is available with the input that
+     * is fed so far.
+     *
+     * @return true if {@link #next()} can be called
+     */
+    @Override
+    public boolean hasNext() {
+        if (ended) {
+            return parser.hasNext();
+        }
+        return tokensSize >= tokensNeeded();
+    }
+
+    @Override
+    public Event next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int needed = ended ? 0 : tokensNeeded();
+        Event event = parser.next();
+        dequeue(needed);
+        currentEvent = event;
+        switch (event) {
+            case START_OBJECT:
+                push(false);
+                break;
+            case START_ARRAY:
+                push(true);
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                depth--;
+                break;
+        }
+        return event;
+    }
+
+    @Override
+    public String getString() {
+        return parser.getString();
+    }
+
+    @Override
+    public boolean isIntegralNumber() {
+        return parser.isIntegralNumber();
+    }
+
+    @Override
+    public int getInt() {
+        return parser.getInt();
+    }
+
+    @Override
+    public long getLong() {
+        return parser.getLong();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal() {
+        return parser.getBigDecimal();
+    }
+
+    @Override
+    public JsonLocation getLocation() {
+        return parser.getLocation();
+    }
+
+    @Override
+    public JsonObject getObject() {
+        if (currentEvent != Event.START_OBJECT) {
+            return parser.getObject();      // fails
+        }
+        int needed = tokensToEnd("getObject");
+        JsonObject object = parser.getObject();
+        dequeue(needed);
+        end(Event.END_OBJECT);
+        return object;
+    }
+
+    @Override
+    public JsonArray getArray() {
+        if (currentEvent != Event.START_ARRAY) {
+            return parser.getArray();       // fails
+        }
+        int needed = tokensToEnd("getArray");
+        JsonArray array = parser.getArray();
+        dequeue(needed);
+        end(Event.END_ARRAY);
+        return array;
+    }
+
+    @Override
+    public JsonValue getValue() {
+        if (currentEvent != Event.START_OBJECT && currentEvent != Event.START_ARRAY) {
+            return parser.getValue();
+        }
+        int needed = tokensToEnd("getValue");
+        JsonValue value = parser.getValue();
+        dequeue(needed);
+        end(currentEvent == Event.START_OBJECT ? Event.END_OBJECT : Event.END_ARRAY);
+        return value;
+    }
+
+    @Override
+    public Stream<JsonValue> getArrayStream() {
+        checkEnded("getArrayStream");
+        return parser.getArrayStream();
+    }
+
+    @Override
+    public Stream<Map.Entry<String, JsonValue>> getObjectStream() {
+        checkEnded("getObjectStream");
+        return parser.getObjectStream();
+    }
+
+    @Override
+    public Stream<JsonValue> getValueStream() {
+        checkEnded("getValueStream");
+        return parser.getValueStream();
+    }
+
+    @Override
+    public void skipArray() {
+        if (depth > 0 && scopes[depth-1]) {
+            int needed = tokensToEnd("skipArray");
+            parser.skipArray();
+            dequeue(needed);
+            end(Event.END_ARRAY);
+        }
+    }
+
+    @Override
+    public void skipObject() {
+        if (depth > 0 && !scopes[depth-1]) {
+            int needed = tokensToEnd("skipObject");
+            parser.skipObject();
+            dequeue(needed);
+            end(Event.END_OBJECT);
+        }
+    }
+
+    @Override
+    public void close() {
+        parser.close();
+    }
+
+    // Number of tokens that the parser reads for the next event, a comma
+    // or colon comes with the token after it
+    private int tokensNeeded() {
+        if (tokensSize == 0) {
+            return 1;
+        }
+        return tokens[tokensHead] == SEPARATOR ? 2 : 1;
+    }
+
+    // Number of tokens up to and including the close of the current
+    // object or array, 0 if the input is ended already
+    private int tokensToEnd(String method) {
+        if (ended) {
+            return 0;
+        }
+        int open = 0;
+        for (int i = 0; i < tokensSize; i++) {
+            byte kind = tokens[(tokensHead+i) & (tokens.length-1)];
+            if (kind == OPEN) {
+                open++;
+            } else if (kind == CLOSE && open-- == 0) {
+                return i+1;
+            }
+        }
+        throw new IllegalStateException(JsonMessages.PARSER_NEEDS_INPUT(method));
+    }
+
+    private void checkEnded(String method) {
+        if (!ended) {
+            throw new IllegalStateException(JsonMessages.PARSER_NEEDS_INPUT(method));
+        }
+    }
+
+    private void push(boolean array) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, 2*depth);
+        }
+        scopes[depth++] = array;
+    }
+
+    // The parser is at the end of the current object or array
+    private void end(Event event) {
+        currentEvent = event;
+        depth--;
+    }
+
+    private void enqueue(byte kind) {
+        if (tokensSize == tokens.length) {
+            byte[] bigger = new byte[2*tokens.length];
+            for (int i = 0; i < tokensSize; i++) {
+                bigger[i] = tokens[(tokensHead+i) & (tokens.length-1)];
+            }
+            tokens = bigger;
+            tokensHead = 0;
+        }
+        tokens[(tokensHead+tokensSize) & (tokens.length-1)] = kind;
+        tokensSize++;
+    }
+
+    private void dequeue(int n) {
+        tokensHead = (tokensHead+n) & (tokens.length-1);
+        tokensSize -= n;
+    }
+
+    // Scans the bytes that are fed since the last call, and queues the
+    // tokens that they complete
+    private void scan() {
+        byte[] buf = in.buf;
+        int i = in.scanned;
+        int end = in.end;
+        if (!bomChecked) {
+            if (i == end) {
+                return;
+            }
+            if (buf[i] == (byte)0xEF) {
+                if (end-i < 3) {
+                    return;         // wait for the rest of a BOM
+                }
+                if (buf[i+1] == (byte)0xBB && buf[i+2] == (byte)0xBF) {
+                    i += 3;
+                    in.begin = i;
+                }
+            }
+            bomChecked = true;
+        }
+        // Continue the token that the last chunk ended in
+        switch (state) {
+            case STRING_ESCAPE:
+                if (i == end) {
+                    return;
+                }
+                i = scanString(buf, i+1, end);
+                break;
+            case STRING:
+                i = scanString(buf, i, end);
+                break;
+            case NUMBER:
+                i = scanNumber(buf, i, end);
+                break;
+            case LITERAL:
+                i = scanLiteral(i, end);
+                break;
+        }
+        while (i < end) {
+            switch (CLASSES[buf[i++] & 0xFF]) {
+                case C_WHITESPACE:
+                    break;
+                case C_QUOTE:
+                    i = scanString(buf, i, end);
+                    break;
+                case C_OPEN:
+                    enqueue(OPEN);
+                    break;
+                case C_CLOSE:
+                    enqueue(CLOSE);
+                    break;
+                case C_SEPARATOR:
+                    enqueue(SEPARATOR);
+                    break;
+                case C_LITERAL:
+                    literalLeft = buf[i-1] == 'f' ? 4 : 3;
+                    i = scanLiteral(i, end);
+                    break;
+                case C_DIGIT:
+                    i = scanNumber(buf, i, end);
+                    break;
+                default:
+                    // The parser reads it as a token, and fails
+                    enqueue(VALUE);
+            }
+        }
+        in.scanned = i;
+    }
+
+    // Scans the rest of a string after its opening quote, returns the
+    // index after the closing quote or the end of the bytes
+    private int scanString(byte[] buf, int i, int end) {
+        while (i < end) {
+            byte b = buf[i++];
+            if (b == '"') {
+                enqueue(VALUE);
+                state = BETWEEN;
+                return i;
+            }
+            if (b == '\\') {
+                if (i == end) {
+                    state = STRING_ESCAPE;
+                    return i;
+                }
+                i++;        // the escaped char, or the u of a hex escape
+            }
+        }
+        state = STRING;
+        return i;
+    }
+
+    // The number ends at the first char that can't be in a number, which
+    // is then scanned as the start of the next token
+    private int scanNumber(byte[] buf, int i, int end) {
+        while (i < end && CLASSES[buf[i] & 0xFF] >= C_DIGIT) {
+            i++;
+        }
+        if (i < end) {
+            enqueue(VALUE);
+            state = BETWEEN;
+        } else {
+            state = NUMBER;
+        }
+        return i;
+    }
+
+    private int scanLiteral(int i, int end) {
+        int n = Math.min(literalLeft, end-i);
+        literalLeft -= n;
+        if (literalLeft == 0) {
+            enqueue(VALUE);
+            state = BETWEEN;
+        } else {
+            state = LITERAL;
+        }
+        return i+n;
+    }
+
+    /**
+     * The bytes that are fed and not read by the tokenizer yet. Reads
+     * never block: the parser only reads the bytes of complete tokens
+     * before the end of the input.
+     */
+    private static final class FeedInputStream extends InputStream {
+        private final BufferPool bufferPool;
+        private byte[] buf;
+        private int begin;          // next byte to read
+        private int end;            // end of the fed bytes
+        private int scanned;        // end of the bytes that are scanned
+        private boolean ended;
+
+        FeedInputStream(BufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            this.buf = bufferPool.takeBytes();
+        }
+
+        void append(ByteBuffer chunk) {
+            int len = chunk.remaining();
+            if (len > buf.length-end) {
+                // Discard the bytes that are read, and grow if the
+                // rest still doesn't fit
+                int keep = end-begin;
+                byte[] dest = keep+len > buf.length
+                        ? bufferPool.takeBytes(keep+len) : buf;
+                System.arraycopy(buf, begin, dest, 0, keep);
+                if (dest != buf) {
+                    bufferPool.recycleBytes(buf);
+                    buf = dest;
+                }
+                scanned -= begin;
+                end = keep;
+                begin = 0;
+            }
+            chunk.get(buf, end, len);
+            end += len;
+        }
+
+        @Override
+        public int read() {
+            if (begin == end) {
+                checkEnded();
+                return -1;
+            }
+            return buf[begin++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (begin == end) {
+                checkEnded();
+                return -1;
+            }
+            int no = Math.min(len, end-begin);
+            System.arraycopy(buf, begin, b, off, no);
+            begin += no;
+            return no;
+        }
+
+        private void checkEnded() {
+            if (!ended) {
+                throw new IllegalStateException("internal error");
+            }
+        }
+
+        @Override
+        public int available() {
+            return end-begin;
+        }
+
+        @Override
+        public void close() {
+            if (buf != null) {
+                bufferPool.recycleBytes(buf);
+                buf = null;
+            }
+        }
+    }
+
+}
@@ -65,9 +65,10 @@ abstract class JsonNumberImpl implements JsonNumber {
     }
 
     static JsonNumber getJsonNumber(double value) {
-        //bigDecimal = new BigDecimal(value);
-        // This is the preferred way to convert double to BigDecimal
-        return new JsonBigDecimalNumber(BigDecimal.valueOf(value));
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new NumberFormatException(JsonMessages.GENERATOR_DOUBLE_INFINITE_NAN());
+        }
+        return new JsonDoubleNumber(value);
     }
 
     static JsonNumber getJsonNumber(BigDecimal value) {
@@ -177,6 +178,31 @@ abstract class JsonNumberImpl implements JsonNumber {
 
     }
 
+    // Optimized JsonNumber impl for double numbers.
+    private static final class JsonDoubleNumber extends JsonNumberImpl {
+        private final double num;
+        private BigDecimal bigDecimal;  // assigning it lazily on demand
+
+        JsonDoubleNumber(double num) {
+            this.num = num;
+        }
+
+        @Override
+        public double doubleValue() {
+            return num;
+        }
+
+        @Override
+        public BigDecimal bigDecimalValue() {
+            // This is the preferred way to convert double to BigDecimal
+            BigDecimal bd = bigDecimal;
+            if (bd == null) {
+                bigDecimal = bd = BigDecimal.valueOf(num);
+            }
+            return bd;
+        }
+    }
+
     // JsonNumber impl using BigDecimal numbers.
     private static final class JsonBigDecimalNumber extends JsonNumberImpl {
         private final BigDecimal bigDecimal;
@@ -48,6 +48,7 @@ import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * JsonObjectBuilder implementation
@@ -57,7 +58,26 @@ import java.util.*;
  */
 class JsonObjectBuilderImpl implements JsonObjectBuilder {
 
-    private Map<String, JsonValue> valueMap;
+    // Objects up to this size are searched linearly, bigger ones have an
+    // open addressed index of their names
+    static final int LINEAR_MAX = 8;
+
+    // Builders created from objects of at least this size update them
+    // with structural sharing, instead of copying all of their members
+    static final int PERSISTENT_MIN = 64;
+
+    private static final String[] EMPTY_NAMES = new String[0];
+    private static final JsonValue[] EMPTY_VALUES = new JsonValue[0];
+
+    // Members in insertion order, names[i] is mapped to values[i]
+    private String[] names;
+    private JsonValue[] values;
+    private int size;
+    private int[] index;            // null while size <= LINEAR_MAX
+    // Used instead of the arrays for big objects. The entries are in
+    // insertion order, removed members leave a null behind
+    private PersistentVector members;
+    private PersistentNameIndex positions;
     private final BufferPool bufferPool;
 
     JsonObjectBuilderImpl(BufferPool bufferPool) {
@@ -66,13 +86,35 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
 
     JsonObjectBuilderImpl(JsonObject object, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
-        valueMap = new LinkedHashMap<>();
-        valueMap.putAll(object);
+        if (object instanceof PersistentObject) {
+            PersistentObject impl = (PersistentObject)object;
+            members = impl.members;
+            positions = impl.positions;
+            size = impl.size;
+        } else if (object instanceof JsonObjectImpl && object.size() >= PERSISTENT_MIN) {
+            JsonObjectImpl impl = (JsonObjectImpl)object;
+            size = impl.names.length;
+            Object[] entries = new Object[size];
+            for (int i = 0; i < size; i++) {
+                entries[i] = new AbstractMap.SimpleImmutableEntry<>(impl.names[i], impl.values[i]);
+            }
+            members = PersistentVector.of(entries, size);
+            positions = PersistentNameIndex.of(impl.names, size);
+        } else if (object instanceof JsonObjectImpl) {
+            JsonObjectImpl impl = (JsonObjectImpl)object;
+            size = impl.names.length;
+            names = Arrays.copyOf(impl.names, Math.max(size, LINEAR_MAX));
+            values = Arrays.copyOf(impl.values, names.length);
+            index = impl.index == null ? null : impl.index.clone();
+        } else {
+            for (Map.Entry<String, JsonValue> e : object.entrySet()) {
+                putValueMap(e.getKey(), e.getValue());
+            }
+        }
     }
 
     JsonObjectBuilderImpl(Map<String, Object> map, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
-        valueMap = new LinkedHashMap<>();
         populate(map);
     }
 
@@ -168,42 +210,175 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
         if (builder == null) {
             throw new NullPointerException(JsonMessages.OBJBUILDER_OBJECT_BUILDER_NULL());
         }
-        if (valueMap == null) {
-            this.valueMap = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonValue> e : builder.build().entrySet()) {
+            putValueMap(e.getKey(), e.getValue());
         }
-        this.valueMap.putAll(builder.build());
         return this;
     }
 
     @Override
     public JsonObjectBuilder remove(String name) {
         validateName(name);
-        this.valueMap.remove(name);
+        if (members != null) {
+            int i = positions.get(name);
+            if (i != -1) {
+                positions = positions.remove(name);
+                members = members.set(i, null);
+                size--;
+                if (members.size() > 2 * size + PERSISTENT_MIN) {
+                    compact();
+                }
+            }
+            return this;
+        }
+        int i = find(names, size, index, name);
+        if (i != -1) {
+            System.arraycopy(names, i+1, names, i, size-i-1);
+            System.arraycopy(values, i+1, values, i, size-i-1);
+            size--;
+            names[size] = null;
+            values[size] = null;
+            index = size > LINEAR_MAX ? createIndex(names, size) : null;
+        }
         return this;
     }
 
     @Override
     public JsonObject build() {
-        Map<String, JsonValue> snapshot = (valueMap == null)
-                ? Collections.<String, JsonValue>emptyMap()
-                : Collections.unmodifiableMap(valueMap);
-        valueMap = null;
-        return new JsonObjectImpl(snapshot, bufferPool);
+        JsonObject object;
+        if (members != null) {
+            object = new PersistentObject(members, positions, size, bufferPool);
+            members = null;
+            positions = null;
+            size = 0;
+            return object;
+        }
+        if (size == 0) {
+            object = new JsonObjectImpl(EMPTY_NAMES, EMPTY_VALUES, null, bufferPool);
+        } else {
+            // The index refers to positions, it is still valid for the
+            // trimmed arrays
+            object = new JsonObjectImpl(Arrays.copyOf(names, size),
+                    Arrays.copyOf(values, size), index, bufferPool);
+        }
+        names = null;
+        values = null;
+        index = null;
+        size = 0;
+        return object;
     }
 
     private void populate(Map<String, Object> map) {
         final Set<String> fields = map.keySet();
         for (String field : fields) {
             Object value = map.get(field);
-            this.valueMap.put(field, MapUtil.handle(value, bufferPool));
+            putValueMap(field, MapUtil.handle(value, bufferPool));
         }
     }
 
+    // Replaces the value of an existing name in place, the same as
+    // LinkedHashMap#put, otherwise appends the member
     private void putValueMap(String name, JsonValue value) {
-        if (valueMap == null) {
-            this.valueMap = new LinkedHashMap<>();
+        if (members != null) {
+            Map.Entry<String, JsonValue> e = new AbstractMap.SimpleImmutableEntry<>(name, value);
+            int i = positions.get(name);
+            if (i != -1) {
+                members = members.set(i, e);
+            } else {
+                positions = positions.put(name, members.size());
+                members = members.insert(members.size(), e);
+                size++;
+            }
+            return;
+        }
+        int i = find(names, size, index, name);
+        if (i != -1) {
+            values[i] = value;
+            return;
+        }
+        if (names == null) {
+            names = new String[LINEAR_MAX];
+            values = new JsonValue[LINEAR_MAX];
+        } else if (size == names.length) {
+            names = Arrays.copyOf(names, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        names[size] = name;
+        values[size] = value;
+        size++;
+        if (index != null && 2 * size <= index.length) {
+            insert(index, name, size-1);
+        } else if (size > LINEAR_MAX) {
+            index = createIndex(names, size);
+        }
+    }
+
+    // Drops the nulls of the removed members
+    private void compact() {
+        Object[] entries = new Object[size];
+        String[] live = new String[size];
+        int i = 0;
+        for (Object e : members) {
+            if (e != null) {
+                entries[i] = e;
+                live[i++] = (String)((Map.Entry<?, ?>)e).getKey();
+            }
+        }
+        members = PersistentVector.of(entries, size);
+        positions = PersistentNameIndex.of(live, size);
+    }
+
+    // Position of the name in names[0, size), -1 if it is not there
+    static int find(String[] names, int size, int[] index, String name) {
+        int hash = name.hashCode();
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                String n = names[i];
+                if (n == name || (n.hashCode() == hash && n.equals(name))) {
+                    return i;
+                }
+            }
+            return -1;
         }
-        valueMap.put(name, value);
+        int mask = index.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int i = index[slot] - 1;
+            if (i == -1) {
+                return -1;
+            }
+            String n = names[i];
+            if (n == name || (n.hashCode() == hash && n.equals(name))) {
+                return i;
+            }
+        }
+    }
+
+    // Linear probing table of positions + 1, 0 for empty slots. It has a
+    // power of two length and is at most half full
+    static int[] createIndex(String[] names, int size) {
+        int[] index = newIndex(size);
+        for (int i = 0; i < size; i++) {
+            insert(index, names[i], i);
+        }
+        return index;
+    }
+
+    // Empty index for up to size names
+    static int[] newIndex(int size) {
+        return new int[Integer.highestOneBit(2 * size - 1) << 1];
+    }
+
+    static void insert(int[] index, String name, int i) {
+        int mask = index.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = i + 1;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
     }
 
     private void validateName(String name) {
@@ -218,15 +393,47 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
         }
     }
 
-    private static final class JsonObjectImpl extends AbstractMap<String, JsonValue> implements JsonObject {
-        private final Map<String, JsonValue> valueMap;      // unmodifiable
+    /**
+     * JsonObject methods that are common to the implementations, on top
+     * of get(). The lazy reader's views extend it too.
+     */
+    static abstract class AbstractJsonObject extends AbstractMap<String, JsonValue> implements JsonObject {
         private final BufferPool bufferPool;
+        // Cached hash code, 0 if it isn't computed yet. Nested objects and
+        // arrays cache theirs too, so a tree of values is hashed once
+        private int hash;
 
-        JsonObjectImpl(Map<String, JsonValue> valueMap, BufferPool bufferPool) {
-            this.valueMap = valueMap;
+        AbstractJsonObject(BufferPool bufferPool) {
             this.bufferPool = bufferPool;
         }
 
+        @Override
+        public int hashCode() {
+            int h = hash;
+            if (h == 0) {
+                h = super.hashCode();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            // Equal objects have equal hash codes. Only hash codes that are
+            // cached already are compared, computing them would hash both
+            // trees completely before comparing them
+            if (obj instanceof AbstractJsonObject) {
+                int other = ((AbstractJsonObject)obj).hash;
+                if (hash != 0 && other != 0 && hash != other) {
+                    return false;
+                }
+            }
+            return super.equals(obj);
+        }
+
         @Override
         public JsonArray getJsonArray(String name) {
             return (JsonArray)get(name);
@@ -308,11 +515,6 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
             return ValueType.OBJECT;
         }
 
-        @Override
-        public Set<Entry<String, JsonValue>> entrySet() {
-            return valueMap.entrySet();
-        }
-
         @Override
         public String toString() {
             StringWriter sw = new StringWriter();
@@ -326,20 +528,190 @@ class JsonObjectBuilderImpl implements JsonObjectBuilder {
         public JsonObject asJsonObject() {
             return this;
         }
+    }
+
+    /**
+     * Immutable object that keeps its members in two arrays, instead of
+     * the tables and entries of a map.
+     */
+    private static final class JsonObjectImpl extends AbstractJsonObject {
+        private final String[] names;
+        private final JsonValue[] values;
+        private final int[] index;          // null for small objects
+
+        JsonObjectImpl(String[] names, JsonValue[] values, int[] index, BufferPool bufferPool) {
+            super(bufferPool);
+            this.names = names;
+            this.values = values;
+            this.index = index;
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue>> entrySet() {
+            return new AbstractSet<Entry<String, JsonValue>>() {
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new Iterator<Entry<String, JsonValue>>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue> next() {
+                            if (i == names.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, JsonValue> e =
+                                    new SimpleImmutableEntry<>(names[i], values[i]);
+                            i++;
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return Collections.unmodifiableList(Arrays.asList(names)).iterator();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+
+        @Override
+        public Collection<JsonValue> values() {
+            return Collections.unmodifiableList(Arrays.asList(values));
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super JsonValue> action) {
+            for (int i = 0; i < names.length; i++) {
+                action.accept(names[i], values[i]);
+            }
+        }
 
         @Override
         public int size() {
-            return valueMap.size();
+            return names.length;
         }
 
         @Override
         public JsonValue get(Object key) {
-            return valueMap.get(key);
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int i = find(names, names.length, index, (String)key);
+            return i == -1 ? null : values[i];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String
+                    && find(names, names.length, index, (String)key) != -1;
+        }
+    }
+
+    /**
+     * Immutable object that shares its members with the objects it is
+     * derived from. The builder copies only the paths to the changed
+     * members.
+     */
+    private static final class PersistentObject extends AbstractJsonObject {
+        private final PersistentVector members;     // entries or null
+        private final PersistentNameIndex positions;
+        private final int size;
+
+        PersistentObject(PersistentVector members, PersistentNameIndex positions,
+                int size, BufferPool bufferPool) {
+            super(bufferPool);
+            this.members = members;
+            this.positions = positions;
+            this.size = size;
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue>> entrySet() {
+            return new AbstractSet<Entry<String, JsonValue>>() {
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new Iterator<Entry<String, JsonValue>>() {
+                        private final Iterator<Object> it = members.iterator();
+                        private Entry<String, JsonValue> next = advance();
+
+                        @SuppressWarnings("unchecked")
+                        private Entry<String, JsonValue> advance() {
+                            while (it.hasNext()) {
+                                Object e = it.next();
+                                if (e != null) {
+                                    return (Entry<String, JsonValue>)e;
+                                }
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue> next() {
+                            if (next == null) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, JsonValue> e = next;
+                            next = advance();
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonValue get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int i = positions.get((String)key);
+            return i == -1 ? null : ((Entry<String, JsonValue>)members.get(i)).getValue();
         }
 
         @Override
         public boolean containsKey(Object key) {
-            return valueMap.containsKey(key);
+            return key instanceof String && positions.get((String)key) != -1;
         }
     }
 
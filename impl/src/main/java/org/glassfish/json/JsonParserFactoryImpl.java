@@ -44,38 +44,142 @@ import org.glassfish.json.api.BufferPool;
 
 import javax.json.JsonArray;
 import javax.json.JsonObject;
+import javax.json.JsonValue;
 import javax.json.stream.JsonParserFactory;
 import javax.json.stream.JsonParser;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * @author Jitendra Kotamraju
  */
-class JsonParserFactoryImpl implements JsonParserFactory {
-    private final Map<String, ?> config = Collections.emptyMap();
+public class JsonParserFactoryImpl implements JsonParserFactory {
+    private final Map<String, ?> config;
     private final BufferPool bufferPool;
+    // key names shared by the factory's parsers, may be null
+    private final JsonSymbolTable symbols;
 
     JsonParserFactoryImpl(BufferPool bufferPool) {
+        this(Collections.emptyMap(), null, bufferPool);
+    }
+
+    JsonParserFactoryImpl(Map<String, ?> config, JsonSymbolTable symbols,
+            BufferPool bufferPool) {
+        this.config = config;
+        this.symbols = symbols;
         this.bufferPool = bufferPool;
     }
 
     @Override
     public JsonParser createParser(Reader reader) {
-        return new JsonParserImpl(reader, bufferPool);
+        return withSymbols(new JsonParserImpl(reader, bufferPool));
     }
 
     @Override
     public JsonParser createParser(InputStream in) {
-        return new JsonParserImpl(in, bufferPool);
+        return withSymbols(new JsonParserImpl(in, bufferPool));
     }
 
     @Override
     public JsonParser createParser(InputStream in, Charset charset) {
-        return new JsonParserImpl(in, charset, bufferPool);
+        return withSymbols(new JsonParserImpl(in, charset, bufferPool));
+    }
+
+    private JsonParser withSymbols(JsonParserImpl parser) {
+        parser.setSymbolTable(symbols);
+        return parser;
+    }
+
+    /**
+     * Creates a JSON parser for the remaining UTF-8 bytes of a buffer,
+     * without decoding them to chars first. The buffer's position is not
+     * changed.
+     *
+     * @param buffer UTF-8 encoded JSON text, heap or direct buffer
+     * @return a JSON parser
+     */
+    public JsonParser createParser(ByteBuffer buffer) {
+        return withSymbols(new JsonParserImpl(buffer, bufferPool));
+    }
+
+    /**
+     * Creates a JSON parser for a UTF-8 encoded file. The file is memory
+     * mapped and parsed without decoding it to chars first.
+     *
+     * @param path UTF-8 encoded JSON file
+     * @return a JSON parser
+     * @throws javax.json.JsonException if the file cannot be opened
+     */
+    public JsonParser createParser(Path path) {
+        return withSymbols(new JsonParserImpl(path, bufferPool));
+    }
+
+    /**
+     * Creates a stream of the elements of the top-level array in a buffer
+     * of UTF-8 bytes. The stream can be split at element boundaries, so
+     * that a parallel stream parses the elements concurrently. The
+     * buffer's position is not changed.
+     * A stream that is short-circuited, e.g. by {@code findFirst()},
+     * is closed to recycle the buffers of its parsers.
+     *
+     * @param buffer UTF-8 encoded JSON array, heap or direct buffer
+     * @return a sequential stream of the array's elements
+     * @throws javax.json.stream.JsonParsingException if the input is not
+     *      valid JSON, when the stream is consumed
+     */
+    public Stream<JsonValue> createArrayStream(ByteBuffer buffer) {
+        return JsonSpliterator.stream(buffer, true, symbols, bufferPool);
+    }
+
+    /**
+     * Creates a stream of the elements of the top-level array in a
+     * memory mapped UTF-8 file. The stream can be split like
+     * {@link #createArrayStream(ByteBuffer)}, and it has to be closed to
+     * close the file.
+     *
+     * @param path UTF-8 encoded JSON file
+     * @return a sequential stream of the array's elements
+     * @throws javax.json.JsonException if the file cannot be opened
+     */
+    public Stream<JsonValue> createArrayStream(Path path) {
+        return JsonSpliterator.stream(path, true, symbols, bufferPool);
+    }
+
+    /**
+     * Creates a stream of the values of newline delimited JSON in a buffer
+     * of UTF-8 bytes, where every value is on a line of its own. The stream
+     * can be split at newlines, so that a parallel stream parses the values
+     * concurrently. The buffer's position is not changed.
+     * A stream that is short-circuited, e.g. by {@code findFirst()},
+     * is closed to recycle the buffers of its parsers.
+     *
+     * @param buffer UTF-8 encoded JSON values, heap or direct buffer
+     * @return a sequential stream of the values
+     * @throws javax.json.stream.JsonParsingException if the input is not
+     *      valid JSON, when the stream is consumed
+     */
+    public Stream<JsonValue> createValueStream(ByteBuffer buffer) {
+        return JsonSpliterator.stream(buffer, false, symbols, bufferPool);
+    }
+
+    /**
+     * Creates a stream of the values of newline delimited JSON in a
+     * memory mapped UTF-8 file. The stream can be split like
+     * {@link #createValueStream(ByteBuffer)}, and it has to be closed to
+     * close the file.
+     *
+     * @param path UTF-8 encoded file of JSON values, one per line
+     * @return a sequential stream of the values
+     * @throws javax.json.JsonException if the file cannot be opened
+     */
+    public Stream<JsonValue> createValueStream(Path path) {
+        return JsonSpliterator.stream(path, false, symbols, bufferPool);
     }
 
     @Override
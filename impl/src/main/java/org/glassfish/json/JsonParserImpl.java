@@ -46,7 +46,12 @@ import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParsingException;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.*;
 import java.util.function.Consumer;
@@ -63,8 +68,19 @@ import org.glassfish.json.api.BufferPool;
  */
 public class JsonParserImpl implements JsonParser {
 
+    private static final byte SCOPE_NONE = 0;
+    private static final byte SCOPE_OBJECT = 1;
+    private static final byte SCOPE_ARRAY = 2;
+
     private final BufferPool bufferPool;
-    private Context currentContext = new NoneContext();
+
+    // One instance of each context, the state of the enclosing containers
+    // is kept in the stack
+    private final Context noneContext = new NoneContext();
+    private final Context objectContext = new ObjectContext();
+    private final Context arrayContext = new ArrayContext();
+    private Context currentContext = noneContext;
+    private boolean firstValue;         // of the current object/array
     private Event currentEvent;
 
     private final Stack stack = new Stack();
@@ -72,29 +88,163 @@ public class JsonParserImpl implements JsonParser {
 
     public JsonParserImpl(Reader reader, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
-        tokenizer = new JsonTokenizer(reader, bufferPool);
+        tokenizer = new JsonCharTokenizer(reader, bufferPool);
     }
 
     public JsonParserImpl(InputStream in, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
         UnicodeDetectingInputStream uin = new UnicodeDetectingInputStream(in);
-        tokenizer = new JsonTokenizer(new InputStreamReader(uin, uin.getCharset()), bufferPool);
+        tokenizer = createTokenizer(uin, uin.getCharset(), bufferPool);
     }
 
     public JsonParserImpl(InputStream in, Charset encoding, BufferPool bufferPool) {
         this.bufferPool = bufferPool;
-        tokenizer = new JsonTokenizer(new InputStreamReader(in, encoding), bufferPool);
+        tokenizer = createTokenizer(in, encoding, bufferPool);
+    }
+
+    /**
+     * Creates a parser for the remaining UTF-8 bytes of the buffer. The
+     * buffer's position is not changed. Heap buffers are scanned in place,
+     * direct and mapped buffers are read into the pooled byte buffer with
+     * bulk copies. Locations are relative to the buffer's position.
+     *
+     * @param buffer UTF-8 encoded JSON text
+     * @param bufferPool pool for the parser's buffers
+     */
+    public JsonParserImpl(ByteBuffer buffer, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        ByteBuffer bb = ByteBufferInputStream.skipBom(buffer.duplicate());
+        if (bb.hasArray()) {
+            tokenizer = new JsonUtf8Tokenizer(bb.array(),
+                    bb.arrayOffset()+bb.position(), bb.remaining(), bufferPool);
+        } else {
+            tokenizer = new JsonUtf8Tokenizer(new ByteBufferInputStream(bb), bufferPool);
+        }
+    }
+
+    /**
+     * Creates a parser for a UTF-8 encoded file. The file is memory mapped
+     * rather than read through a {@code Reader}.
+     *
+     * @param path UTF-8 encoded JSON file
+     * @param bufferPool pool for the parser's buffers
+     * @throws JsonException if the file cannot be opened or mapped
+     */
+    public JsonParserImpl(Path path, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            tokenizer = new JsonUtf8Tokenizer(new ByteBufferInputStream(channel), bufferPool);
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.PARSER_PATH_IO_ERR(path), ioe);
+        }
+    }
+
+    // UTF-8 streams are scanned as bytes, other encodings are decoded to
+    // chars first
+    private static JsonTokenizer createTokenizer(InputStream in,
+            Charset encoding, BufferPool bufferPool) {
+        if (StandardCharsets.UTF_8.equals(encoding)) {
+            return new JsonUtf8Tokenizer(in, bufferPool);
+        }
+        return new JsonCharTokenizer(new InputStreamReader(in, encoding), bufferPool);
+    }
+
+    // Key names are looked up in the given table from now on
+    void setSymbolTable(JsonSymbolTable symbols) {
+        tokenizer.symbols = symbols;
     }
 
     public String getString() {
-        if (currentEvent == Event.KEY_NAME || currentEvent == Event.VALUE_STRING
-                || currentEvent == Event.VALUE_NUMBER) {
+        if (currentEvent == Event.KEY_NAME) {
+            return tokenizer.getName();
+        }
+        if (currentEvent == Event.VALUE_STRING || currentEvent == Event.VALUE_NUMBER) {
             return tokenizer.getValue();
         }
         throw new IllegalStateException(
                 JsonMessages.PARSER_GETSTRING_ERR(currentEvent));
     }
 
+    /**
+     * Returns a view of the chars of the current {@code KEY_NAME},
+     * {@code VALUE_STRING} or {@code VALUE_NUMBER} event, without creating
+     * a {@code String}. The view is only valid until the next call to
+     * {@link #next()}, and the same instance may be returned for the
+     * following events. Use {@code toString()} to keep the value.
+     *
+     * @return a char sequence for name, string or number value
+     * @throws IllegalStateException when the parser state is not
+     *      {@code KEY_NAME}, {@code VALUE_STRING} or {@code VALUE_NUMBER}
+     */
+    public CharSequence getCharSequence() {
+        checkStringEvent();
+        return tokenizer.getCharSequence();
+    }
+
+    /**
+     * Returns the buffer that holds the chars of the current
+     * {@code KEY_NAME}, {@code VALUE_STRING} or {@code VALUE_NUMBER} event.
+     * The chars are from {@link #getStringOffset()} and there are
+     * {@link #getStringLength()} of them. The buffer is owned by the parser,
+     * it must not be modified and its contents are only valid until the
+     * next call to {@link #next()}.
+     *
+     * @return the parser's buffer with the chars of the current value
+     * @throws IllegalStateException when the parser state is not
+     *      {@code KEY_NAME}, {@code VALUE_STRING} or {@code VALUE_NUMBER}
+     */
+    public char[] getStringChars() {
+        checkStringEvent();
+        return tokenizer.getChars();
+    }
+
+    /**
+     * Returns the offset of the current value's chars in
+     * {@link #getStringChars()}.
+     *
+     * @return offset of the first char
+     * @throws IllegalStateException when the parser state is not
+     *      {@code KEY_NAME}, {@code VALUE_STRING} or {@code VALUE_NUMBER}
+     */
+    public int getStringOffset() {
+        checkStringEvent();
+        return tokenizer.getCharsBegin();
+    }
+
+    /**
+     * Returns the number of the current value's chars in
+     * {@link #getStringChars()}.
+     *
+     * @return number of chars
+     * @throws IllegalStateException when the parser state is not
+     *      {@code KEY_NAME}, {@code VALUE_STRING} or {@code VALUE_NUMBER}
+     */
+    public int getStringLength() {
+        checkStringEvent();
+        return tokenizer.getCharsEnd()-tokenizer.getCharsBegin();
+    }
+
+    /**
+     * Returns true if the current event is {@code KEY_NAME} and the name
+     * is equal to the given one. The name is compared in the parser's
+     * buffer, no {@code String} is created for it.
+     *
+     * @param name a name
+     * @return true if the parser is at the given key name
+     */
+    public boolean matchesKey(String name) {
+        return currentEvent == Event.KEY_NAME && tokenizer.valueEquals(name);
+    }
+
+    private void checkStringEvent() {
+        if (currentEvent != Event.KEY_NAME && currentEvent != Event.VALUE_STRING
+                && currentEvent != Event.VALUE_NUMBER) {
+            throw new IllegalStateException(
+                    JsonMessages.PARSER_GETSTRING_ERR(currentEvent));
+        }
+    }
+
     @Override
     public boolean isIntegralNumber() {
         if (currentEvent != Event.VALUE_NUMBER) {
@@ -130,6 +280,24 @@ public class JsonParserImpl implements JsonParser {
         return tokenizer.getLong();
     }
 
+    /**
+     * Returns the closest double to the current {@code VALUE_NUMBER}. The
+     * number is converted from the parser's buffer, without creating a
+     * {@code BigDecimal}. It is the same as
+     * {@code getBigDecimal().doubleValue()}.
+     *
+     * @return a double for the number
+     * @throws IllegalStateException when the parser state is not
+     *      {@code VALUE_NUMBER}
+     */
+    public double getDouble() {
+        if (currentEvent != Event.VALUE_NUMBER) {
+            throw new IllegalStateException(
+                    JsonMessages.PARSER_GETDOUBLE_ERR(currentEvent));
+        }
+        return tokenizer.getDouble();
+    }
+
     @Override
     public BigDecimal getBigDecimal() {
         if (currentEvent != Event.VALUE_NUMBER) {
@@ -259,7 +427,7 @@ public class JsonParserImpl implements JsonParser {
 
     @Override
     public Stream<JsonValue> getValueStream() {
-        if (! (currentContext instanceof NoneContext)) {
+        if (currentContext != noneContext) {
             throw new IllegalStateException(
                 JsonMessages.PARSER_GETVALUESTREAM_ERR());
         }
@@ -287,23 +455,21 @@ public class JsonParserImpl implements JsonParser {
 
     @Override
     public void skipArray() {
-        Context previousContext = stack.peek();
-        while (hasNext()) {
-            if (next() == JsonParser.Event.END_ARRAY &&
-                previousContext == currentContext) {
-                    return;
-            }
+        // The tokenizer scans to the matching ']' without creating tokens
+        if (currentContext == arrayContext) {
+            tokenizer.skipToEnd(']');
+            pop();
+            currentEvent = Event.END_ARRAY;
         }
     }
 
     @Override
     public void skipObject() {
-        Context previousContext = stack.peek();
-        while (hasNext()) {
-            if (next() == JsonParser.Event.END_OBJECT &&
-                previousContext == currentContext) {
-                    return;
-            }
+        // The tokenizer scans to the matching '}' without creating tokens
+        if (currentContext == objectContext) {
+            tokenizer.skipToEnd('}');
+            pop();
+            currentEvent = Event.END_OBJECT;
         }
     }
 
@@ -361,51 +527,104 @@ public class JsonParserImpl implements JsonParser {
         }
     }
 
-    // Using the optimized stack impl as we don't require other things
-    // like iterator etc.
+    // Creates a parser for a tokenizer that is set up by the caller
+    JsonParserImpl(JsonTokenizer tokenizer, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.tokenizer = tokenizer;
+    }
+
+    // Forgets the enclosing objects and arrays, so that parsing continues
+    // with a new top-level value after a malformed one
+    void clearContext() {
+        stack.clear();
+        currentContext = noneContext;
+        currentEvent = null;
+    }
+
+    // Continues as if '[' was read, for a range of an array's comma
+    // separated elements that was split from the array
+    void startElements() {
+        push(arrayContext);
+    }
+
+    // Starts a new object or array
+    private void push(Context context) {
+        stack.push(currentContext.scope, firstValue);
+        currentContext = context;
+        firstValue = true;
+    }
+
+    // Ends the current object or array, continues with the enclosing one
+    private void pop() {
+        byte scope = stack.pop();
+        currentContext = scope == SCOPE_OBJECT ? objectContext
+                : scope == SCOPE_ARRAY ? arrayContext : noneContext;
+        firstValue = stack.poppedFirstValue();
+    }
+
+    // Keeps the state of the enclosing containers in primitive arrays
+    // indexed by depth, so that no objects are allocated per container.
+    // The arrays are only grown for deeper nesting.
     private static final class Stack {
-        private Context head;
+        private byte[] scopes = new byte[16];
+        private boolean[] firstValues = new boolean[16];
+        private int size;
+
+        private void push(byte scope, boolean firstValue) {
+            if (size == scopes.length) {
+                scopes = Arrays.copyOf(scopes, 2 * size);
+                firstValues = Arrays.copyOf(firstValues, 2 * size);
+            }
+            scopes[size] = scope;
+            firstValues[size] = firstValue;
+            size++;
+        }
 
-        private void push(Context context) {
-            context.next = head;
-            head = context;
+        private void clear() {
+            size = 0;
         }
 
-        private Context pop() {
-            if (head == null) {
+        private byte pop() {
+            if (size == 0) {
                 throw new NoSuchElementException();
             }
-            Context temp = head;
-            head = head.next;
-            return temp;
+            return scopes[--size];
         }
 
-        private Context peek() {
-            return head;
+        // firstValue of the context that was popped last
+        private boolean poppedFirstValue() {
+            return firstValues[size];
         }
 
-        private boolean isEmpty() {
-            return head == null;
+        private int size() {
+            return size;
         }
     }
 
     private abstract class Context {
-        Context next;
+        final byte scope;
+
+        Context(byte scope) {
+            this.scope = scope;
+        }
+
         abstract Event getNextEvent();
     }
 
     private final class NoneContext extends Context {
+        NoneContext() {
+            super(SCOPE_NONE);
+        }
+
         @Override
         public Event getNextEvent() {
             // Handle 1. {   2. [   3. value
             JsonToken token = tokenizer.nextToken();
             if (token == JsonToken.CURLYOPEN) {
-                stack.push(currentContext);
-                currentContext = new ObjectContext();
+                push(objectContext);
                 return Event.START_OBJECT;
             } else if (token == JsonToken.SQUAREOPEN) {
-                stack.push(currentContext);
-                currentContext = new ArrayContext();
+                push(arrayContext);
                 return Event.START_ARRAY;
             } else if (token.isValue()) {
                 return token.getEvent();
@@ -421,7 +640,9 @@ public class JsonParserImpl implements JsonParser {
     }
 
     private final class ObjectContext extends Context {
-        private boolean firstValue = true;
+        ObjectContext() {
+            super(SCOPE_OBJECT);
+        }
 
         /*
          * Some more things could be optimized. For example, instead
@@ -443,19 +664,17 @@ public class JsonParserImpl implements JsonParser {
                 if (token.isValue()) {
                     return token.getEvent();
                 } else if (token == JsonToken.CURLYOPEN) {
-                    stack.push(currentContext);
-                    currentContext = new ObjectContext();
+                    push(objectContext);
                     return Event.START_OBJECT;
                 } else if (token == JsonToken.SQUAREOPEN) {
-                    stack.push(currentContext);
-                    currentContext = new ArrayContext();
+                    push(arrayContext);
                     return Event.START_ARRAY;
                 }
                 throw parsingException(token, "[CURLYOPEN, SQUAREOPEN, STRING, NUMBER, TRUE, FALSE, NULL]");
             } else {
                 // Handle 1. }   2. name   3. ,name
                 if (token == JsonToken.CURLYCLOSE) {
-                    currentContext = stack.pop();
+                    pop();
                     return Event.END_OBJECT;
                 }
                 if (firstValue) {
@@ -476,14 +695,16 @@ public class JsonParserImpl implements JsonParser {
     }
 
     private final class ArrayContext extends Context {
-        private boolean firstValue = true;
+        ArrayContext() {
+            super(SCOPE_ARRAY);
+        }
 
         // Handle 1. ]   2. value   3. ,value
         @Override
         public Event getNextEvent() {
             JsonToken token = tokenizer.nextToken();
             if (token == JsonToken.SQUARECLOSE) {
-                currentContext = stack.pop();
+                pop();
                 return Event.END_ARRAY;
             }
             if (firstValue) {
@@ -497,12 +718,10 @@ public class JsonParserImpl implements JsonParser {
             if (token.isValue()) {
                 return token.getEvent();
             } else if (token == JsonToken.CURLYOPEN) {
-                stack.push(currentContext);
-                currentContext = new ObjectContext();
+                push(objectContext);
                 return Event.START_OBJECT;
             } else if (token == JsonToken.SQUAREOPEN) {
-                stack.push(currentContext);
-                currentContext = new ArrayContext();
+                push(arrayContext);
                 return Event.START_ARRAY;
             }
             throw parsingException(token, "[CURLYOPEN, SQUAREOPEN, STRING, NUMBER, TRUE, FALSE, NULL]");
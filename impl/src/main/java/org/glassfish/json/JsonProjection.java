@@ -0,0 +1,325 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Selects the values of a few JSON Pointers from a parser, without building
+ * the rest of the document. Values that are not on the path of any of the
+ * pointers are skipped with {@link JsonParser#skipObject()} and
+ * {@link JsonParser#skipArray()}, and once all the pointers are matched
+ * the remaining input of the value is skipped too.
+ *
+ * <p>
+ * A projection is immutable and can be used with any number of parsers
+ * concurrently. Instances are created with
+ * {@link JsonProviderImpl#createProjection(Collection)}.
+ */
+public final class JsonProjection {
+
+    private final Node root = new Node();
+    private final List<String> pointers = new ArrayList<>();
+    private final BufferPool bufferPool;
+
+    JsonProjection(Collection<String> pointers, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        for (String pointer : pointers) {
+            Node node = root;
+            for (String token : tokens(pointer)) {
+                node = node.child(token);
+            }
+            if (node.id == -1) {
+                node.id = this.pointers.size();
+                this.pointers.add(pointer);
+            }
+        }
+    }
+
+    /**
+     * Returns the JSON Pointers of this projection.
+     *
+     * @return the pointers, without duplicates
+     */
+    public List<String> getPointers() {
+        return Collections.unmodifiableList(pointers);
+    }
+
+    /**
+     * Reads the next JSON value from the parser and returns the selected
+     * values in an object whose names are the matched pointers. Pointers
+     * that don't refer to any value are not in the object.
+     *
+     * @param parser parser that is positioned before a JSON value
+     * @return the selected values
+     * @throws javax.json.stream.JsonParsingException if the value is not
+     *      valid JSON
+     */
+    public JsonObject project(JsonParser parser) {
+        JsonObjectBuilder builder = new JsonObjectBuilderImpl(bufferPool);
+        project(parser, builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Reads the next JSON value from the parser and passes each selected
+     * value to the action, in the order they appear in the value. The
+     * parser is positioned at the last event of the value afterwards.
+     *
+     * @param parser parser that is positioned before a JSON value
+     * @param action called with the pointer and its value for each match
+     * @throws javax.json.stream.JsonParsingException if the value is not
+     *      valid JSON
+     */
+    public void project(JsonParser parser, BiConsumer<String, JsonValue> action) {
+        new Run(parser, action).value(parser.next(), root);
+    }
+
+    // Decodes the reference tokens of a pointer, see RFC 6901
+    private static List<String> tokens(String pointer) {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new JsonException(JsonMessages.PROJECTION_POINTER_INVALID(pointer));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= pointer.length(); i++) {
+            char ch = i < pointer.length() ? pointer.charAt(i) : '/';
+            if (ch == '/') {
+                tokens.add(sb.toString());
+                sb.setLength(0);
+            } else if (ch == '~' && i+1 < pointer.length() && pointer.charAt(i+1) == '0') {
+                sb.append('~');
+                i++;
+            } else if (ch == '~' && i+1 < pointer.length() && pointer.charAt(i+1) == '1') {
+                sb.append('/');
+                i++;
+            } else {
+                sb.append(ch);
+            }
+        }
+        return tokens;
+    }
+
+    // Array index of a reference token, -1 if it cannot refer to an element
+    private static int index(String token) {
+        int len = token.length();
+        if (len == 0 || len > 9 || (len > 1 && token.charAt(0) == '0')) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < len; i++) {
+            char ch = token.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            index = index*10 + (ch - '0');
+        }
+        return index;
+    }
+
+    /**
+     * A reference token of the pointers. Object members are looked up by
+     * name, array elements by index.
+     */
+    private static final class Node {
+        int id = -1;                    // index of the pointer ending here
+        final Map<String, Node> members = new HashMap<>();
+        String[] names = new String[0];  // keys of members, in insertion order
+        Node[] elements = new Node[0];
+
+        Node child(String token) {
+            Node child = members.get(token);
+            if (child == null) {
+                child = new Node();
+                members.put(token, child);
+                names = Arrays.copyOf(names, names.length+1);
+                names[names.length-1] = token;
+                int index = index(token);
+                if (index != -1) {
+                    if (index >= elements.length) {
+                        elements = Arrays.copyOf(elements, index+1);
+                    }
+                    elements[index] = child;
+                }
+            }
+            return child;
+        }
+
+        Node element(int index) {
+            return index < elements.length ? elements[index] : null;
+        }
+
+        // Compares the key in the parser's buffer with the names, so that
+        // a String is only created for the keys of other parsers
+        Node member(JsonParser parser) {
+            if (parser instanceof JsonParserImpl) {
+                JsonParserImpl impl = (JsonParserImpl)parser;
+                for (String name : names) {
+                    if (impl.matchesKey(name)) {
+                        return members.get(name);
+                    }
+                }
+                return null;
+            }
+            return members.get(parser.getString());
+        }
+    }
+
+    /**
+     * State of one projection of a value.
+     */
+    private final class Run {
+        private final JsonParser parser;
+        private final BiConsumer<String, JsonValue> action;
+        private final boolean[] matched = new boolean[pointers.size()];
+        private int remaining = pointers.size();
+
+        Run(JsonParser parser, BiConsumer<String, JsonValue> action) {
+            this.parser = parser;
+            this.action = action;
+        }
+
+        void value(Event event, Node node) {
+            if (node.id != -1) {
+                JsonValue value = parser.getValue();
+                match(node, value);
+                descendants(node, value);
+            } else if (event == Event.START_OBJECT) {
+                object(node);
+            } else if (event == Event.START_ARRAY) {
+                array(node);
+            }
+        }
+
+        private void object(Node node) {
+            Event event;
+            while (remaining > 0 && (event = parser.next()) != Event.END_OBJECT) {
+                Node child = node.member(parser);
+                event = parser.next();
+                if (child != null) {
+                    value(event, child);
+                } else {
+                    skip(event);
+                }
+            }
+            if (remaining == 0) {
+                parser.skipObject();
+            }
+        }
+
+        private void array(Node node) {
+            Event event;
+            int index = 0;
+            while (remaining > 0 && (event = parser.next()) != Event.END_ARRAY) {
+                Node child = node.element(index++);
+                if (child != null) {
+                    value(event, child);
+                } else {
+                    skip(event);
+                }
+            }
+            if (remaining == 0) {
+                parser.skipArray();
+            }
+        }
+
+        private void skip(Event event) {
+            if (event == Event.START_OBJECT) {
+                parser.skipObject();
+            } else if (event == Event.START_ARRAY) {
+                parser.skipArray();
+            }
+        }
+
+        // Matches the pointers below an already materialized value
+        private void descendants(Node node, JsonValue value) {
+            if (value instanceof JsonObject) {
+                JsonObject object = (JsonObject)value;
+                for (Map.Entry<String, Node> e : node.members.entrySet()) {
+                    JsonValue child = object.get(e.getKey());
+                    if (child != null) {
+                        match(e.getValue(), child);
+                        descendants(e.getValue(), child);
+                    }
+                }
+            } else if (value instanceof JsonArray) {
+                JsonArray array = (JsonArray)value;
+                for (int i = 0; i < node.elements.length && i < array.size(); i++) {
+                    if (node.elements[i] != null) {
+                        match(node.elements[i], array.get(i));
+                        descendants(node.elements[i], array.get(i));
+                    }
+                }
+            }
+        }
+
+        private void match(Node node, JsonValue value) {
+            if (node.id == -1) {
+                return;
+            }
+            if (!matched[node.id]) {
+                matched[node.id] = true;
+                remaining--;
+            }
+            action.accept(pointers.get(node.id), value);
+        }
+    }
+
+}
@@ -52,10 +52,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -88,16 +92,165 @@ public class JsonProviderImpl extends JsonProvider {
         return new JsonParserImpl(in, bufferPool);
     }
 
+    /**
+     * Creates a JSON parser for the remaining UTF-8 bytes of a buffer.
+     *
+     * @param buffer UTF-8 encoded JSON text, heap or direct buffer
+     * @return a JSON parser
+     * @see JsonParserFactoryImpl#createParser(ByteBuffer)
+     */
+    public JsonParser createParser(ByteBuffer buffer) {
+        return new JsonParserImpl(buffer, bufferPool);
+    }
+
+    /**
+     * Creates a JSON parser for a memory mapped UTF-8 encoded file.
+     *
+     * @param path UTF-8 encoded JSON file
+     * @return a JSON parser
+     * @see JsonParserFactoryImpl#createParser(Path)
+     */
+    public JsonParser createParser(Path path) {
+        return new JsonParserImpl(path, bufferPool);
+    }
+
+    /**
+     * Creates a splittable stream of the elements of the top-level array
+     * in a buffer of UTF-8 bytes.
+     *
+     * @param buffer UTF-8 encoded JSON array, heap or direct buffer
+     * @return a sequential stream of the array's elements
+     * @see JsonParserFactoryImpl#createArrayStream(ByteBuffer)
+     */
+    public Stream<JsonValue> createArrayStream(ByteBuffer buffer) {
+        return JsonSpliterator.stream(buffer, true, null, bufferPool);
+    }
+
+    /**
+     * Creates a splittable stream of the elements of the top-level array
+     * in a memory mapped UTF-8 file.
+     *
+     * @param path UTF-8 encoded JSON file
+     * @return a sequential stream of the array's elements
+     * @see JsonParserFactoryImpl#createArrayStream(Path)
+     */
+    public Stream<JsonValue> createArrayStream(Path path) {
+        return JsonSpliterator.stream(path, true, null, bufferPool);
+    }
+
+    /**
+     * Creates a splittable stream of the values of newline delimited JSON
+     * in a buffer of UTF-8 bytes.
+     *
+     * @param buffer UTF-8 encoded JSON values, heap or direct buffer
+     * @return a sequential stream of the values
+     * @see JsonParserFactoryImpl#createValueStream(ByteBuffer)
+     */
+    public Stream<JsonValue> createValueStream(ByteBuffer buffer) {
+        return JsonSpliterator.stream(buffer, false, null, bufferPool);
+    }
+
+    /**
+     * Creates a splittable stream of the values of newline delimited JSON
+     * in a memory mapped UTF-8 file.
+     *
+     * @param path UTF-8 encoded file of JSON values, one per line
+     * @return a sequential stream of the values
+     * @see JsonParserFactoryImpl#createValueStream(Path)
+     */
+    public Stream<JsonValue> createValueStream(Path path) {
+        return JsonSpliterator.stream(path, false, null, bufferPool);
+    }
+
+    /**
+     * Creates a reader of newline delimited JSON, one value per line of
+     * the UTF-8 stream.
+     *
+     * @param in UTF-8 encoded JSON Lines
+     * @return a JSON Lines reader
+     */
+    public JsonLinesReader createLinesReader(InputStream in) {
+        return new JsonLinesReader(in, bufferPool);
+    }
+
+    /**
+     * Creates a writer of newline delimited JSON, one value per line.
+     *
+     * @param out stream the UTF-8 encoded lines are written to
+     * @param flushInterval number of values after which the stream is
+     *      flushed, 0 to flush it only when the writer is flushed or closed
+     * @return a JSON Lines writer
+     * @throws IllegalArgumentException if flushInterval is negative
+     */
+    public JsonLinesWriter createLinesWriter(OutputStream out, int flushInterval) {
+        return new JsonLinesWriter(out, flushInterval, bufferPool);
+    }
+
+    /**
+     * Creates a parser that is fed chunks of UTF-8 bytes as they arrive,
+     * and doesn't block for more input.
+     *
+     * @return a non-blocking parser
+     */
+    public JsonNonBlockingParser createNonBlockingParser() {
+        return new JsonNonBlockingParser(bufferPool);
+    }
+
+    /**
+     * Creates a generator that hands the UTF-8 bytes in pooled buffers to
+     * the sink, and doesn't block when the sink can't take more.
+     *
+     * @param sink takes the buffers that are full or flushed
+     * @return a non-blocking generator
+     */
+    public JsonNonBlockingGenerator createNonBlockingGenerator(JsonNonBlockingGenerator.Sink sink) {
+        return new JsonNonBlockingGenerator(sink, null, bufferPool);
+    }
+
+    /**
+     * Creates a generator that writes the UTF-8 bytes into the buffers
+     * the caller supplies, and hands them to the sink.
+     *
+     * @param sink takes the buffers that are full or flushed
+     * @param buffers supplies a buffer whenever the generator needs one
+     *      and has none to reuse, for example direct buffers
+     * @return a non-blocking generator
+     */
+    public JsonNonBlockingGenerator createNonBlockingGenerator(JsonNonBlockingGenerator.Sink sink,
+            Supplier<ByteBuffer> buffers) {
+        return new JsonNonBlockingGenerator(sink, buffers, bufferPool);
+    }
+
+    /**
+     * Creates a projection that selects the values of the given JSON
+     * Pointers from a parser, and skips everything else.
+     *
+     * @param pointers JSON Pointers of the values to select
+     * @return a projection that can be shared by threads
+     * @throws javax.json.JsonException if a pointer is not valid
+     */
+    public JsonProjection createProjection(Collection<String> pointers) {
+        return new JsonProjection(pointers, bufferPool);
+    }
+
     @Override
     public JsonParserFactory createParserFactory(Map<String, ?> config) {
-        BufferPool pool = null;
-        if (config != null && config.containsKey(BufferPool.class.getName())) {
-            pool = (BufferPool)config.get(BufferPool.class.getName());
+        if (config == null) {
+            return new JsonParserFactoryImpl(bufferPool);
         }
-        if (pool == null) {
+        Map<String, Object> providerConfig = new HashMap<>();
+        BufferPool pool = (BufferPool)config.get(BufferPool.class.getName());
+        if (pool != null) {
+            providerConfig.put(BufferPool.class.getName(), pool);
+        } else {
             pool = bufferPool;
         }
-        return new JsonParserFactoryImpl(pool);
+        JsonSymbolTable symbols = (JsonSymbolTable)config.get(JsonSymbolTable.class.getName());
+        if (symbols != null) {
+            providerConfig.put(JsonSymbolTable.class.getName(), symbols);
+        }
+        return new JsonParserFactoryImpl(
+                Collections.unmodifiableMap(providerConfig), symbols, pool);
     }
 
     @Override
@@ -136,6 +289,34 @@ public class JsonProviderImpl extends JsonProvider {
         return new JsonReaderImpl(in, bufferPool);
     }
 
+    /**
+     * Creates a JSON reader that returns a lazily materialized tree of the
+     * remaining UTF-8 bytes of a buffer. The document is validated when it
+     * is read, but strings and numbers are only decoded, and objects and
+     * arrays only created, when they are accessed. A heap buffer is used in
+     * place and must not be modified while the tree is in use. The
+     * buffer's position is not changed.
+     *
+     * @param buffer UTF-8 encoded JSON text, heap or direct buffer
+     * @return a JSON reader
+     */
+    public JsonReader createLazyReader(ByteBuffer buffer) {
+        return new JsonLazyReader(buffer, bufferPool);
+    }
+
+    /**
+     * Creates a JSON reader that returns a lazily materialized tree of a
+     * stream. The stream is read fully when the value is read, and the
+     * tree keeps its bytes.
+     *
+     * @param in a byte stream of JSON text
+     * @return a JSON reader
+     * @see #createLazyReader(ByteBuffer)
+     */
+    public JsonReader createLazyReader(InputStream in) {
+        return new JsonLazyReader(in, bufferPool);
+    }
+
     @Override
     public JsonWriter createWriter(Writer writer) {
         return new JsonWriterImpl(writer, bufferPool);
@@ -173,14 +354,22 @@ public class JsonProviderImpl extends JsonProvider {
 
     @Override
     public JsonReaderFactory createReaderFactory(Map<String, ?> config) {
-        BufferPool pool = null;
-        if (config != null && config.containsKey(BufferPool.class.getName())) {
-            pool = (BufferPool)config.get(BufferPool.class.getName());
+        if (config == null) {
+            return new JsonReaderFactoryImpl(bufferPool);
         }
-        if (pool == null) {
+        Map<String, Object> providerConfig = new HashMap<>();
+        BufferPool pool = (BufferPool)config.get(BufferPool.class.getName());
+        if (pool != null) {
+            providerConfig.put(BufferPool.class.getName(), pool);
+        } else {
             pool = bufferPool;
         }
-        return new JsonReaderFactoryImpl(pool);
+        JsonSymbolTable symbols = (JsonSymbolTable)config.get(JsonSymbolTable.class.getName());
+        if (symbols != null) {
+            providerConfig.put(JsonSymbolTable.class.getName(), symbols);
+        }
+        return new JsonReaderFactoryImpl(
+                Collections.unmodifiableMap(providerConfig), symbols, pool);
     }
 
     @Override
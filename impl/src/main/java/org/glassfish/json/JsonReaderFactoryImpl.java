@@ -54,26 +54,40 @@ import java.util.Map;
  * @author Jitendra Kotamraju
  */
 class JsonReaderFactoryImpl implements JsonReaderFactory {
-    private final Map<String, ?> config = Collections.emptyMap();
+    private final Map<String, ?> config;
     private final BufferPool bufferPool;
+    // key names shared by the factory's readers, may be null
+    private final JsonSymbolTable symbols;
 
     JsonReaderFactoryImpl(BufferPool bufferPool) {
+        this(Collections.emptyMap(), null, bufferPool);
+    }
+
+    JsonReaderFactoryImpl(Map<String, ?> config, JsonSymbolTable symbols,
+            BufferPool bufferPool) {
+        this.config = config;
+        this.symbols = symbols;
         this.bufferPool = bufferPool;
     }
 
     @Override
     public JsonReader createReader(Reader reader) {
-        return new JsonReaderImpl(reader, bufferPool);
+        return withSymbols(new JsonReaderImpl(reader, bufferPool));
     }
 
     @Override
     public JsonReader createReader(InputStream in) {
-        return new JsonReaderImpl(in, bufferPool);
+        return withSymbols(new JsonReaderImpl(in, bufferPool));
     }
 
     @Override
     public JsonReader createReader(InputStream in, Charset charset) {
-        return new JsonReaderImpl(in, charset, bufferPool);
+        return withSymbols(new JsonReaderImpl(in, charset, bufferPool));
+    }
+
+    private JsonReader withSymbols(JsonReaderImpl reader) {
+        reader.setSymbolTable(symbols);
+        return reader;
     }
 
     @Override
@@ -73,6 +73,10 @@ class JsonReaderImpl implements JsonReader {
         this.bufferPool = bufferPool;
     }
 
+    void setSymbolTable(JsonSymbolTable symbols) {
+        parser.setSymbolTable(symbols);
+    }
+
     @Override
     public JsonStructure read() {
         if (readDone) {
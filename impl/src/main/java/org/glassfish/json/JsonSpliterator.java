@@ -0,0 +1,445 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonException;
+import javax.json.JsonValue;
+import javax.json.stream.JsonLocation;
+import javax.json.stream.JsonParsingException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterator of the elements of a top-level array, or of the values of
+ * newline delimited JSON, in UTF-8 bytes. The input is divided into chunks
+ * of about {@link #CHUNK_SIZE} bytes at element boundaries, and every
+ * chunk is parsed by a parser of its own. Splitting hands out ranges of
+ * chunks, so that a parallel stream parses them concurrently.
+ *
+ * <p>
+ * The boundaries of array elements are found by a sequential scan that
+ * only tracks bracket depth and strings, it is done when the spliterator
+ * is first used. Newline delimited values are split at the first newline
+ * after each chunk, without scanning the input.
+ *
+ * <p>
+ * Locations in the parsing exceptions of a chunk are relative to the
+ * start of the chunk.
+ *
+ * <p>
+ * The parsers of the chunks that are not parsed to the end, when the
+ * stream is short-circuited, are closed with the stream.
+ */
+final class JsonSpliterator implements Spliterator<JsonValue> {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Chunks chunks;
+    private int lo, hi;                 // chunks [lo, hi) are not parsed yet
+    private JsonParserImpl parser;      // parser of chunk lo-1
+
+    JsonSpliterator(Source source, boolean elements,
+            JsonSymbolTable symbols, BufferPool bufferPool) {
+        this(new Chunks(source, elements, symbols, bufferPool), 0, -1);
+    }
+
+    private JsonSpliterator(Chunks chunks, int lo, int hi) {
+        this.chunks = chunks;
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    // Sequential stream of the elements or values of a buffer, that can
+    // be made parallel. symbols may be null
+    static Stream<JsonValue> stream(ByteBuffer buffer, boolean elements,
+            JsonSymbolTable symbols, BufferPool bufferPool) {
+        JsonSpliterator spliterator = new JsonSpliterator(
+                new Source(buffer), elements, symbols, bufferPool);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator.chunks::close);
+    }
+
+    // Same for a file, that is closed when the stream is closed
+    static Stream<JsonValue> stream(Path path, boolean elements,
+            JsonSymbolTable symbols, BufferPool bufferPool) {
+        Source source;
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            source = new Source(channel);
+        } catch (IOException ioe) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                ioe.addSuppressed(e);
+            }
+            throw new JsonException(JsonMessages.PARSER_PATH_IO_ERR(path), ioe);
+        }
+        JsonSpliterator spliterator = new JsonSpliterator(source, elements, symbols, bufferPool);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(spliterator.chunks::close)
+                .onClose(source::close);
+    }
+
+    // The root spliterator finds the chunks when it is first used
+    private void init() {
+        if (hi == -1) {
+            hi = chunks.init();
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super JsonValue> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        init();
+        while (parser == null || !parser.hasNext()) {
+            if (parser != null) {
+                chunks.close(parser);
+                parser = null;
+            }
+            if (lo == hi) {
+                return false;
+            }
+            parser = chunks.parser(lo++);
+        }
+        parser.next();
+        action.accept(parser.getValue());
+        return true;
+    }
+
+    @Override
+    public Spliterator<JsonValue> trySplit() {
+        init();
+        if (hi - lo < 2) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        JsonSpliterator prefix = new JsonSpliterator(chunks, lo, mid);
+        lo = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        // Remaining bytes, enough to balance the splits
+        init();
+        return lo == hi ? 0 : chunks.bounds[hi] - chunks.bounds[lo];
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    /**
+     * Chunk boundaries of the input, shared by the spliterators that are
+     * split from the same root.
+     */
+    private static final class Chunks {
+        private final Source source;
+        private final boolean elements;
+        private final JsonSymbolTable symbols;
+        private final BufferPool bufferPool;
+        // chunk i is the range (bounds[i], bounds[i+1]) of the input. The
+        // bounds are the array's brackets and commas, or newlines
+        private long[] bounds;
+        // parsers that are not closed yet, one per spliterator at most
+        private final Set<JsonParserImpl> open =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Chunks(Source source, boolean elements,
+                JsonSymbolTable symbols, BufferPool bufferPool) {
+            this.source = source;
+            this.elements = elements;
+            this.symbols = symbols;
+            this.bufferPool = bufferPool;
+        }
+
+        // Returns the number of chunks
+        int init() {
+            try {
+                bounds = elements ? scanArray() : scanLines();
+            } catch (IOException ioe) {
+                throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+            }
+            return bounds.length - 1;
+        }
+
+        JsonParserImpl parser(int i) {
+            try {
+                JsonParserImpl parser = new JsonParserImpl(
+                        source.slice(bounds[i]+1, bounds[i+1]), bufferPool);
+                parser.setSymbolTable(symbols);
+                if (elements) {
+                    parser.startElements();
+                }
+                synchronized (open) {
+                    open.add(parser);
+                }
+                return parser;
+            } catch (IOException ioe) {
+                throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+            }
+        }
+
+        void close(JsonParserImpl parser) {
+            synchronized (open) {
+                open.remove(parser);
+            }
+            parser.close();
+        }
+
+        // Closes the parsers of a short-circuited stream
+        void close() {
+            synchronized (open) {
+                for (JsonParserImpl parser : open) {
+                    parser.close();
+                }
+                open.clear();
+            }
+        }
+
+        private long[] scanArray() throws IOException {
+            long[] bounds = new long[16];
+            int count = 0;
+            long size = source.size();
+            long pos = source.begin();
+            int depth = 0;
+            boolean inString = false, escape = false;
+            byte[] buf = bufferPool.takeBytes();
+            try {
+                while (pos < size) {
+                    int len = source.read(pos, buf);
+                    for (int i = 0; i < len; i++, pos++) {
+                        int ch = buf[i] & 0xFF;
+                        if (inString) {
+                            if (escape) {
+                                escape = false;
+                            } else if (ch == '\\') {
+                                escape = true;
+                            } else if (ch == '"') {
+                                inString = false;
+                            }
+                        } else if (depth == 0) {
+                            if (count == 0 && ch == '[') {
+                                depth = 1;
+                                bounds[count++] = pos;
+                            } else if (ch != 0x20 && ch != 0x09 && ch != 0x0a && ch != 0x0d) {
+                                throw unexpectedChar(ch, pos, count == 0);
+                            }
+                        } else if (ch == '"') {
+                            inString = true;
+                        } else if (ch == '[' || ch == '{') {
+                            depth++;
+                        } else if (ch == ']' || ch == '}') {
+                            if (--depth == 0) {
+                                bounds = add(bounds, count++, pos);
+                            }
+                        } else if (ch == ',' && depth == 1
+                                && pos - bounds[count-1] >= CHUNK_SIZE) {
+                            bounds = add(bounds, count++, pos);
+                        }
+                    }
+                }
+            } finally {
+                bufferPool.recycleBytes(buf);
+            }
+            if (depth != 0 || count == 0) {
+                throw unexpectedChar(-1, pos, count == 0);
+            }
+            return Arrays.copyOf(bounds, count);
+        }
+
+        private long[] scanLines() throws IOException {
+            long[] bounds = new long[16];
+            int count = 0;
+            long size = source.size();
+            long begin = source.begin();
+            bounds[count++] = begin - 1;
+            byte[] buf = bufferPool.takeBytes();
+            try {
+                long pos = begin + CHUNK_SIZE;
+                search:
+                while (pos < size) {
+                    int len = source.read(pos, buf);
+                    for (int i = 0; i < len; i++) {
+                        if (buf[i] == '\n') {
+                            bounds = add(bounds, count++, pos + i);
+                            pos += i + CHUNK_SIZE;
+                            continue search;
+                        }
+                    }
+                    pos += len;
+                }
+            } finally {
+                bufferPool.recycleBytes(buf);
+            }
+            bounds = add(bounds, count++, size);
+            return Arrays.copyOf(bounds, count);
+        }
+
+        private static long[] add(long[] bounds, int count, long bound) {
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, 2 * count);
+            }
+            bounds[count] = bound;
+            return bounds;
+        }
+
+        private static JsonParsingException unexpectedChar(int ch, long pos, boolean start) {
+            JsonLocation location = new JsonLocationImpl(-1, -1, pos);
+            String msg = start
+                    ? JsonMessages.TOKENIZER_EXPECTED_CHAR(ch, location, '[')
+                    : JsonMessages.TOKENIZER_UNEXPECTED_CHAR(ch, location);
+            return new JsonParsingException(msg, location);
+        }
+    }
+
+    /**
+     * UTF-8 input of the spliterator, a buffer or a file. A file is mapped
+     * in overlapping windows, so that any chunk that is not bigger than
+     * half a window is a slice of a single mapping.
+     */
+    static final class Source implements AutoCloseable {
+        private static final long HALF_WINDOW = 1L << 29;
+
+        private final ByteBuffer buffer;        // null for a file
+        private final FileChannel channel;      // null for a buffer
+        private final long size;
+        private final ByteBuffer[] windows;
+        private final long begin;               // after the BOM
+
+        Source(ByteBuffer buffer) {
+            this.buffer = buffer.slice();
+            this.channel = null;
+            this.size = this.buffer.limit();
+            this.windows = null;
+            this.begin = bomLength(this.buffer);
+        }
+
+        Source(FileChannel channel) throws IOException {
+            this.buffer = null;
+            this.channel = channel;
+            this.size = channel.size();
+            this.windows = new ByteBuffer[(int)(size / HALF_WINDOW) + 1];
+            this.begin = size == 0 ? 0 : bomLength(slice(0, Math.min(3, size)));
+        }
+
+        private static int bomLength(ByteBuffer bb) {
+            return ByteBufferInputStream.skipBom(bb.duplicate()).position() - bb.position();
+        }
+
+        long begin() {
+            return begin;
+        }
+
+        long size() {
+            return size;
+        }
+
+        // Reads the bytes from pos into buf, returns the number of bytes
+        int read(long pos, byte[] buf) throws IOException {
+            int len = (int)Math.min(buf.length, size - pos);
+            slice(pos, pos + len).get(buf, 0, len);
+            return len;
+        }
+
+        // The bytes [begin, end) of the input
+        ByteBuffer slice(long begin, long end) throws IOException {
+            ByteBuffer bb;
+            long offset;
+            if (buffer != null) {
+                bb = buffer.duplicate();
+                offset = 0;
+            } else if (end - begin <= HALF_WINDOW) {
+                int w = (int)(begin / HALF_WINDOW);
+                bb = window(w);
+                offset = w * HALF_WINDOW;
+            } else {
+                return channel.map(FileChannel.MapMode.READ_ONLY, begin, end - begin);
+            }
+            bb.limit((int)(end - offset)).position((int)(begin - offset));
+            return bb.slice();
+        }
+
+        private ByteBuffer window(int w) throws IOException {
+            ByteBuffer bb;
+            synchronized (windows) {
+                bb = windows[w];
+                if (bb == null) {
+                    long offset = w * HALF_WINDOW;
+                    bb = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                            Math.min(2 * HALF_WINDOW, size - offset));
+                    windows[w] = bb;
+                }
+            }
+            return bb.duplicate();
+        }
+
+        @Override
+        public void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ioe) {
+                    throw new JsonException(JsonMessages.PARSER_TOKENIZER_CLOSE_IO(), ioe);
+                }
+            }
+        }
+    }
+
+}
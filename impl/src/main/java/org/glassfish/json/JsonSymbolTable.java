@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bounded table of object key names that are shared by the parsers of a
+ * factory. The parsers look up the chars of a {@code KEY_NAME} token in
+ * place, and a name that is already in the table is returned without
+ * creating a new {@code String}. So the keys that repeat across documents
+ * are allocated once, and the objects built from the documents share them.
+ *
+ * <p>
+ * The table is a fixed size cache, a name replaces the one that was in its
+ * slot. Names longer than {@link #MAX_NAME_LENGTH} chars are not kept.
+ * A table can be used by any number of parsers concurrently, and no locks
+ * are taken: a slot only ever holds a complete, immutable {@code String}.
+ *
+ * <p>
+ * An instance can be given to the parser and reader factories with the
+ * {@code JsonSymbolTable.class.getName()} config key.
+ */
+public final class JsonSymbolTable {
+
+    /**
+     * Default number of slots.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * Names longer than this are not kept in the table.
+     */
+    public static final int MAX_NAME_LENGTH = 64;
+
+    private final String[] slots;
+    private final int mask;
+
+    /**
+     * Creates a table with the default capacity.
+     */
+    public JsonSymbolTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a table that keeps at most the given number of names.
+     *
+     * @param capacity number of slots, rounded up to a power of two
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public JsonSymbolTable(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException();
+        }
+        int length = Integer.highestOneBit(capacity);
+        if (length < capacity) {
+            length <<= 1;
+        }
+        slots = new String[length];
+        mask = length-1;
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     *
+     * @return the number of names that can be kept
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    // Name for the chars buf[begin, end)
+    String get(char[] buf, int begin, int end) {
+        int len = end-begin;
+        if (len > MAX_NAME_LENGTH) {
+            return new String(buf, begin, len);
+        }
+        // same as String#hashCode(), which the strings cache
+        int hash = 0;
+        for (int i = begin; i < end; i++) {
+            hash = 31*hash + buf[i];
+        }
+        int slot = spread(hash) & mask;
+        String name = slots[slot];
+        if (name != null && name.hashCode() == hash && name.length() == len) {
+            int i = 0;
+            while (i < len && name.charAt(i) == buf[begin+i]) {
+                i++;
+            }
+            if (i == len) {
+                return name;
+            }
+        }
+        name = new String(buf, begin, len);
+        slots[slot] = name;
+        return name;
+    }
+
+    // Name for the ASCII bytes buf[begin, end)
+    String get(byte[] buf, int begin, int end) {
+        int len = end-begin;
+        if (len > MAX_NAME_LENGTH) {
+            return new String(buf, begin, len, StandardCharsets.ISO_8859_1);
+        }
+        int hash = 0;
+        for (int i = begin; i < end; i++) {
+            hash = 31*hash + buf[i];
+        }
+        int slot = spread(hash) & mask;
+        String name = slots[slot];
+        if (name != null && name.hashCode() == hash && name.length() == len) {
+            int i = 0;
+            while (i < len && name.charAt(i) == buf[begin+i]) {
+                i++;
+            }
+            if (i == len) {
+                return name;
+            }
+        }
+        name = new String(buf, begin, len, StandardCharsets.ISO_8859_1);
+        slots[slot] = name;
+        return name;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+}
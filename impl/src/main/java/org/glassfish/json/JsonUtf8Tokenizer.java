@@ -0,0 +1,981 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.JsonException;
+import javax.json.stream.JsonLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON Tokenizer that scans UTF-8 encoded bytes directly, without decoding
+ * them to chars first. Structural chars, literals and numbers are matched
+ * as bytes. String tokens are only validated while scanning, their raw bytes
+ * are kept in the buffer and decoded (and unescaped) when the value is
+ * actually asked for.
+ *
+ * <p>
+ * Locations are reported in chars, the same as {@link JsonCharTokenizer}
+ * reports them for the decoded stream.
+ */
+final class JsonUtf8Tokenizer extends JsonTokenizer {
+
+    private final BufferPool bufferPool;
+
+    // null if the bytes are scanned in place
+    private final InputStream in;
+
+    // Internal buffer that is used for parsing. It also keeps the raw
+    // bytes of the current string and number value token
+    private byte[] buf;
+
+    // Scratch buffer for decoding string tokens and number tokens. It is
+    // taken from the pool on first use
+    private char[] chars;
+
+    // Stream offset of the token whose chars are in chars[0, charsLength)
+    // for getChars(), -1 if none
+    private long charsToken = -1;
+    private int charsLength;
+
+    // created on first use of getCharSequence()
+    private CharsView charsView;
+    private AsciiView asciiView;
+
+    // true while a string or number token is being scanned. The stored
+    // bytes need to be preserved when the buffer is filled again
+    private boolean storing;
+
+    // true if the current string token has escapes or non-ASCII bytes,
+    // false if its bytes can be used as chars as they are
+    private boolean decode;
+
+    // Number of consumed bytes that don't start a new char (UTF-8
+    // continuation bytes, less one for each surrogate pair). It is used to
+    // convert byte offsets to char offsets
+    private long extraBytes;
+
+    // Continuation bytes that are still expected in the current multi-byte
+    // sequence, the stream offset of the next one and the lead byte of the
+    // sequence. Malformed bytes decode to one U+FFFD each, they are not
+    // counted as extra bytes
+    private int expected;
+    private long nextContinuation;
+    private int leadByte;
+
+    // true while the scanning is limited to a line by nextLine(). readEnd
+    // is then the end of the line, and the end of the bytes in buf is kept
+    // in bufEnd
+    private boolean inLine;
+    private int bufEnd;
+
+    JsonUtf8Tokenizer(InputStream in, BufferPool bufferPool) {
+        this.in = in;
+        this.bufferPool = bufferPool;
+        buf = bufferPool.takeBytes();
+    }
+
+    // Scans the given bytes in place, they are neither copied nor modified.
+    // Locations are relative to offset
+    JsonUtf8Tokenizer(byte[] bytes, int offset, int length, BufferPool bufferPool) {
+        this.in = null;
+        this.bufferPool = bufferPool;
+        buf = bytes;
+        readBegin = offset;
+        readEnd = offset+length;
+        bufferOffset = -offset;
+    }
+
+    private void readString() {
+        storing = true;
+        storeBegin = readBegin;
+        do {
+            int ch;
+            // Skip the unescaped ASCII chars within the current buffer
+            while (readBegin < readEnd && (ch=buf[readBegin]) >= 0x20
+                    && ch != '"' && ch != '\\') {
+                readBegin++;
+            }
+
+            // string may be crossing buffer boundaries and may contain
+            // escaped characters or multi-byte characters.
+            ch = read();
+            if (ch >= 0x20 && ch < 0x80 && ch != '"' && ch != '\\') {
+                continue;
+            }
+            if (ch >= 0x80) {
+                decode = true;
+                countExtraBytes(ch, readBegin-1);
+                continue;
+            }
+            switch (ch) {
+                case '\\':
+                    decode = true;
+                    readEscape();
+                    break;
+                case '"':
+                    storeEnd = readBegin-1;
+                    storing = false;
+                    return;
+                default:
+                    throw unexpectedChar(ch);
+            }
+        } while (true);
+    }
+
+    // Only validates the escape sequence, unescaping happens in
+    // decodeChars() if the string value is asked for
+    private void readEscape() {
+        int ch = read();
+        switch (ch) {
+            case 'b':
+            case 't':
+            case 'n':
+            case 'f':
+            case 'r':
+            case '"':
+            case '\\':
+            case '/':
+                break;
+            case 'u': {
+                for (int i = 0; i < 4; i++) {
+                    int ch3 = read();
+                    int digit = (ch3 >= 0 && ch3 < HEX_LENGTH) ? HEX[ch3] : -1;
+                    if (digit < 0) {
+                        throw unexpectedChar(ch3);
+                    }
+                }
+                break;
+            }
+            default:
+                throw unexpectedChar(ch);
+        }
+    }
+
+    // Reads a number char. If the char is within the buffer, directly
+    // reads from the buffer. Otherwise, uses read() which takes care
+    // of filling up the buf while keeping the stored bytes
+    private int readNumberChar() {
+        if (readBegin < readEnd) {
+            return buf[readBegin++] & 0xFF;
+        } else {
+            return read();
+        }
+    }
+
+    private void readNumber(int ch)  {
+        storing = true;
+        storeBegin = readBegin-1;
+        // sign
+        if (ch == '-') {
+            this.minus = true;
+            ch = readNumberChar();
+            if (ch < '0' || ch >'9') {
+                throw unexpectedChar(ch);
+            }
+        }
+
+        // int
+        if (ch == '0') {
+            ch = readNumberChar();
+        } else {
+            do {
+                ch = readNumberChar();
+            } while (ch >= '0' && ch <= '9');
+        }
+
+        // frac
+        if (ch == '.') {
+            this.fracOrExp = true;
+            int count = 0;
+            do {
+                ch = readNumberChar();
+                count++;
+            } while (ch >= '0' && ch <= '9');
+            if (count == 1) {
+                throw unexpectedChar(ch);
+            }
+        }
+
+        // exp
+        if (ch == 'e' || ch == 'E') {
+            this.fracOrExp = true;
+            ch = readNumberChar();
+            if (ch == '+' || ch == '-') {
+                ch = readNumberChar();
+            }
+            int count;
+            for (count = 0; ch >= '0' && ch <= '9'; count++) {
+                ch = readNumberChar();
+            }
+            if (count == 0) {
+                throw unexpectedChar(ch);
+            }
+        }
+        if (ch != -1) {
+            // Only reset readBegin if eof has not been reached
+            readBegin--;
+        }
+        storeEnd = readBegin;
+        storing = false;
+    }
+
+    private void readTrue() {
+        int ch1 = read();
+        if (ch1 != 'r') {
+            throw expectedChar(ch1, 'r');
+        }
+        int ch2 = read();
+        if (ch2 != 'u') {
+            throw expectedChar(ch2, 'u');
+        }
+        int ch3 = read();
+        if (ch3 != 'e') {
+            throw expectedChar(ch3, 'e');
+        }
+    }
+
+    private void readFalse() {
+        int ch1 = read();
+        if (ch1 != 'a') {
+            throw expectedChar(ch1, 'a');
+        }
+        int ch2 = read();
+        if (ch2 != 'l') {
+            throw expectedChar(ch2, 'l');
+        }
+        int ch3 = read();
+        if (ch3 != 's') {
+            throw expectedChar(ch3, 's');
+        }
+        int ch4 = read();
+        if (ch4 != 'e') {
+            throw expectedChar(ch4, 'e');
+        }
+    }
+
+    private void readNull() {
+        int ch1 = read();
+        if (ch1 != 'u') {
+            throw expectedChar(ch1, 'u');
+        }
+        int ch2 = read();
+        if (ch2 != 'l') {
+            throw expectedChar(ch2, 'l');
+        }
+        int ch3 = read();
+        if (ch3 != 'l') {
+            throw expectedChar(ch3, 'l');
+        }
+    }
+
+    @Override
+    JsonToken nextToken() {
+        reset();
+        int ch = read();
+
+        // whitespace
+        while (ch == 0x20 || ch == 0x09 || ch == 0x0a || ch == 0x0d) {
+            if (ch == '\r') {
+                ++lineNo;
+                ch = read();
+                if (ch == '\n') {
+                    lastLineOffset = bufferOffset+readBegin-extraBytes;
+                } else {
+                    lastLineOffset = bufferOffset+readBegin-1-extraBytes;
+                    continue;
+                }
+            } else if (ch == '\n') {
+                ++lineNo;
+                lastLineOffset = bufferOffset+readBegin-extraBytes;
+            }
+            ch = read();
+        }
+
+        switch (ch) {
+            case '"':
+                readString();
+                return JsonToken.STRING;
+            case '{':
+                return JsonToken.CURLYOPEN;
+            case '[':
+                return JsonToken.SQUAREOPEN;
+            case ':':
+                return JsonToken.COLON;
+            case ',':
+                return JsonToken.COMMA;
+            case 't':
+                readTrue();
+                return JsonToken.TRUE;
+            case 'f':
+                readFalse();
+                return JsonToken.FALSE;
+            case 'n':
+                readNull();
+                return JsonToken.NULL;
+            case ']':
+                return JsonToken.SQUARECLOSE;
+            case '}':
+                return JsonToken.CURLYCLOSE;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case '-':
+                readNumber(ch);
+                return JsonToken.NUMBER;
+            case -1:
+                return JsonToken.EOF;
+            default:
+                throw unexpectedChar(ch);
+        }
+    }
+
+    @Override
+    void skipToEnd(int close) {
+        reset();
+        int depth = 1;
+        openLevel(depth, close == '}' ? '{' : '[');
+        int prev = 0;
+        for (;;) {
+            int ch = read();
+            switch (ch) {
+                case '"':
+                    skipString();
+                    break;
+                case '[':
+                case '{':
+                    openLevel(++depth, ch);
+                    break;
+                case ']':
+                case '}':
+                    if (!closesLevel(depth, ch)) {
+                        throw unexpectedChar(ch);
+                    }
+                    if (--depth == 0) {
+                        return;
+                    }
+                    break;
+                case '\r':
+                    ++lineNo;
+                    lastLineOffset = bufferOffset+readBegin-extraBytes;
+                    break;
+                case '\n':
+                    if (prev != '\r') {
+                        ++lineNo;
+                    }
+                    lastLineOffset = bufferOffset+readBegin-extraBytes;
+                    break;
+                case -1:
+                    throw unexpectedChar(ch);
+                default:
+                    if (ch >= 0x80) {
+                        countExtraBytes(ch, readBegin-1);
+                    }
+            }
+            prev = ch;
+        }
+    }
+
+    // Skips the rest of a string token, after its opening quote. Only
+    // the multi-byte chars are looked at, for the char offsets
+    private void skipString() {
+        for (;;) {
+            int ch;
+            while (readBegin < readEnd && (ch=buf[readBegin]) != '"' && ch != '\\') {
+                if (ch < 0) {
+                    countExtraBytes(ch & 0xFF, readBegin);
+                }
+                readBegin++;
+            }
+            ch = read();
+            if (ch == '"') {
+                return;
+            }
+            if (ch == '\\') {
+                ch = read();        // escaped char, always ASCII
+            }
+            if (ch >= 0x80) {
+                countExtraBytes(ch, readBegin-1);
+            } else if (ch == -1) {
+                throw unexpectedChar(ch);
+            }
+        }
+    }
+
+    // Counts a non-ASCII byte that is at buf[i]. Only the bytes of
+    // well-formed sequences are counted, the same as the decoder does
+    private void countExtraBytes(int ch, int i) {
+        long offset = bufferOffset+i;
+        if ((ch & 0xC0) == 0x80) {
+            if (expected == 0 || offset != nextContinuation
+                    || (expected == length(leadByte)-1 && !validSecondByte(ch))) {
+                expected = 0;       // stray continuation byte
+                return;
+            }
+            extraBytes++;
+            nextContinuation++;
+            if (--expected == 0 && leadByte >= 0xF0) {
+                extraBytes--;       // surrogate pair, two chars
+            }
+            return;
+        }
+        if (ch >= 0xC2 && ch <= 0xF4) {
+            leadByte = ch;
+            expected = length(ch)-1;
+            nextContinuation = offset+1;
+        } else {
+            expected = 0;           // invalid lead byte
+        }
+    }
+
+    // Length of the sequence that starts with a valid lead byte
+    private static int length(int leadByte) {
+        return leadByte < 0xE0 ? 2 : leadByte < 0xF0 ? 3 : 4;
+    }
+
+    // Overlong forms and code points above U+10FFFF are malformed after
+    // their lead byte. An encoded surrogate is one malformed sequence of
+    // three bytes for the decoder, so it is counted as one char
+    private boolean validSecondByte(int ch) {
+        switch (leadByte) {
+            case 0xE0: return ch >= 0xA0;
+            case 0xF0: return ch >= 0x90;
+            case 0xF4: return ch <= 0x8F;
+            default: return true;
+        }
+    }
+
+    @Override
+    boolean hasNextToken() {
+        reset();
+        int ch = peek();
+
+        // whitespace
+        while (ch == 0x20 || ch == 0x09 || ch == 0x0a || ch == 0x0d) {
+            if (ch == '\r') {
+                ++lineNo;
+                ++readBegin;
+                ch = peek();
+                if (ch == '\n') {
+                    lastLineOffset = bufferOffset+readBegin+1-extraBytes;
+                } else {
+                    lastLineOffset = bufferOffset+readBegin-extraBytes;
+                    continue;
+                }
+            } else if (ch == '\n') {
+                ++lineNo;
+                lastLineOffset = bufferOffset+readBegin+1-extraBytes;
+            }
+            ++readBegin;
+            ch = peek();
+        }
+        return ch != -1;
+    }
+
+    private int peek() {
+        try {
+            if (readBegin == readEnd) {     // need to fill the buffer
+                if (fillBuf() == -1) {
+                    return -1;
+                }
+            }
+            return buf[readBegin] & 0xFF;
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    @Override
+    JsonLocation getLastCharLocation() {
+        // Already read the char, so subtracting -1
+        long offset = bufferOffset+readBegin-extraBytes;
+        return new JsonLocationImpl(lineNo, offset-lastLineOffset, offset-1);
+    }
+
+    @Override
+    JsonLocation getLocation() {
+        long offset = bufferOffset+readBegin-extraBytes;
+        return new JsonLocationImpl(lineNo, offset-lastLineOffset+1, offset);
+    }
+
+    private int read() {
+        try {
+            if (readBegin == readEnd) {     // need to fill the buffer
+                if (fillBuf() == -1) {
+                    return -1;
+                }
+            }
+            return buf[readBegin++] & 0xFF;
+        } catch (IOException ioe) {
+            throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+        }
+    }
+
+    // Called when all the bytes in the buffer are consumed. Discards the
+    // consumed bytes except the ones of the token that is being stored,
+    // and reads more bytes after them.
+    private int fillBuf() throws IOException {
+        if (in == null || inLine) {
+            return -1;          // all the bytes are already in buf
+        }
+        int keep = storing ? storeBegin : readBegin;
+        if (keep > 0) {
+            // Left shift the stored bytes (if any) to make space
+            int storeLen = readEnd-keep;
+            if (storeLen > 0) {
+                System.arraycopy(buf, keep, buf, 0, storeLen);
+            }
+            storeBegin = 0;
+            readBegin = readEnd = storeLen;
+            bufferOffset += keep;
+        } else if (readEnd == buf.length) {
+            // buffer is full with the stored token, move to a buffer of
+            // a bigger size class
+            byte[] bigger = bufferPool.takeBytes(
+                    BufferPoolImpl.grownByteLength(bufferPool, buf.length));
+            System.arraycopy(buf, 0, bigger, 0, readEnd);
+            bufferPool.recycleBytes(buf);
+            buf = bigger;
+        }
+        int len;
+        do {
+            len = in.read(buf, readEnd, buf.length-readEnd);
+        } while (len == 0);
+        if (len != -1) {
+            readEnd += len;
+        }
+        return len;
+    }
+
+    // Reads the next line into the buffer in full, and limits scanning
+    // to it, without its line terminator. Returns false at the end of
+    // the stream
+    boolean nextLine() {
+        reset();
+        int i = readBegin;
+        for (;;) {
+            while (i < readEnd && buf[i] != '\n') {
+                i++;
+            }
+            if (i < readEnd) {
+                break;
+            }
+            // Keep the bytes of the line when the buffer is filled again
+            int scanned = i - readBegin;
+            storing = true;
+            storeBegin = readBegin;
+            int len;
+            try {
+                len = fillBuf();
+            } catch (IOException ioe) {
+                throw new JsonException(JsonMessages.TOKENIZER_IO_ERR(), ioe);
+            } finally {
+                storing = false;
+            }
+            readBegin = storeBegin;
+            storeBegin = 0;
+            i = readBegin + scanned;
+            if (len == -1) {
+                if (readBegin == readEnd) {
+                    return false;
+                }
+                break;
+            }
+        }
+        bufEnd = readEnd;
+        readEnd = (i > readBegin && buf[i-1] == '\r') ? i-1 : i;
+        inLine = true;
+        return true;
+    }
+
+    // Skips the rest of the current line, even after a malformed token,
+    // and continues after its line terminator
+    void endLine() {
+        for (; readBegin < readEnd; readBegin++) {
+            if (buf[readBegin] < 0) {
+                countExtraBytes(buf[readBegin] & 0xFF, readBegin);
+            }
+        }
+        readEnd = bufEnd;
+        inLine = false;
+        storing = false;
+        storeBegin = storeEnd = 0;
+        bd = null;
+        minus = fracOrExp = decode = false;
+        if (readBegin < readEnd && buf[readBegin] == '\r') {
+            readBegin++;
+        }
+        if (readBegin < readEnd && buf[readBegin] == '\n') {
+            readBegin++;
+            ++lineNo;
+            lastLineOffset = bufferOffset+readBegin-extraBytes;
+        }
+    }
+
+    // true if the current string token has escapes or non-ASCII bytes
+    boolean needsDecoding() {
+        return decode;
+    }
+
+    // Offset of the next byte in the stream
+    long getByteOffset() {
+        return bufferOffset+readBegin;
+    }
+
+    // state associated with the current token is no more valid
+    private void reset() {
+        if (storeEnd != 0) {
+            storeBegin = 0;
+            storeEnd = 0;
+            bd = null;
+            minus = false;
+            fracOrExp = false;
+            decode = false;
+        }
+    }
+
+    // Gives a scratch char buffer of at least the given length
+    private char[] charBuffer(int len) {
+        if (chars == null) {
+            chars = bufferPool.take(len);
+        } else if (chars.length < len) {
+            bufferPool.recycle(chars);
+            chars = bufferPool.take(len);
+        }
+        return chars;
+    }
+
+    @Override
+    String getValue() {
+        int storeLen = storeEnd-storeBegin;
+        if (!decode) {
+            return new String(buf, storeBegin, storeLen, StandardCharsets.ISO_8859_1);
+        }
+        char[] dest = charBuffer(storeLen);
+        int len = decodeChars(buf, storeBegin, storeEnd, dest);
+        return new String(dest, 0, len);
+    }
+
+    @Override
+    char[] getChars() {
+        long token = bufferOffset+storeBegin;
+        if (charsToken != token) {
+            int storeLen = storeEnd-storeBegin;
+            char[] dest = charBuffer(storeLen);
+            if (decode) {
+                charsLength = decodeChars(buf, storeBegin, storeEnd, dest);
+            } else {
+                for (int i = 0; i < storeLen; i++) {
+                    dest[i] = (char)buf[storeBegin+i];
+                }
+                charsLength = storeLen;
+            }
+            charsToken = token;
+        }
+        return chars;
+    }
+
+    @Override
+    int getCharsBegin() {
+        return 0;
+    }
+
+    @Override
+    int getCharsEnd() {
+        getChars();
+        return charsLength;
+    }
+
+    @Override
+    CharSequence getCharSequence() {
+        if (!decode) {
+            // ASCII bytes are the chars
+            if (asciiView == null) {
+                asciiView = new AsciiView();
+            }
+            return asciiView.set(buf, storeBegin, storeEnd-storeBegin);
+        }
+        if (charsView == null) {
+            charsView = new CharsView();
+        }
+        return charsView.set(getChars(), 0, charsLength);
+    }
+
+    @Override
+    boolean valueEquals(String s) {
+        if (decode) {
+            char[] value = getChars();
+            if (s.length() != charsLength) {
+                return false;
+            }
+            for (int i = 0; i < charsLength; i++) {
+                if (value[i] != s.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int len = storeEnd-storeBegin;
+        if (s.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buf[storeBegin+i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reusable CharSequence of ASCII bytes buf[begin, begin+length)
+    private static final class AsciiView implements CharSequence {
+        private byte[] buf;
+        private int begin;
+        private int length;
+
+        AsciiView set(byte[] buf, int begin, int length) {
+            this.buf = buf;
+            this.begin = begin;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException();
+            }
+            return (char)buf[begin+index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException();
+            }
+            return new String(buf, begin+start, end-start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf, begin, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @Override
+    String getName() {
+        if (symbols == null) {
+            return getValue();
+        }
+        if (!decode) {
+            return symbols.get(buf, storeBegin, storeEnd);
+        }
+        char[] dest = charBuffer(storeEnd-storeBegin);
+        int len = decodeChars(buf, storeBegin, storeEnd, dest);
+        return symbols.get(dest, 0, len);
+    }
+
+    @Override
+    BigDecimal getBigDecimal() {
+        if (bd == null) {
+            int storeLen = storeEnd-storeBegin;
+            char[] dest = charBuffer(storeLen);
+            for (int i = 0; i < storeLen; i++) {
+                dest[i] = (char)buf[storeBegin+i];
+            }
+            bd = new BigDecimal(dest, 0, storeLen);
+        }
+        return bd;
+    }
+
+    @Override
+    int getInt() {
+        // no need to create BigDecimal for common integer values (1-9 digits)
+        int storeLen = storeEnd-storeBegin;
+        if (!fracOrExp && (storeLen <= 9 || (minus && storeLen <= 10))) {
+            int num = 0;
+            int i = minus ? 1 : 0;
+            for(; i < storeLen; i++) {
+                num = num * 10 + (buf[storeBegin+i] - '0');
+            }
+            return minus ? -num : num;
+        } else {
+            return getBigDecimal().intValue();
+        }
+    }
+
+    @Override
+    long getLong() {
+        // no need to create BigDecimal for common integer values (1-18 digits)
+        int storeLen = storeEnd-storeBegin;
+        if (!fracOrExp && (storeLen <= 18 || (minus && storeLen <= 19))) {
+            long num = 0;
+            int i = minus ? 1 : 0;
+            for(; i < storeLen; i++) {
+                num = num * 10 + (buf[storeBegin+i] - '0');
+            }
+            return minus ? -num : num;
+        } else {
+            return getBigDecimal().longValue();
+        }
+    }
+
+    @Override
+    double getDouble() {
+        if (isDefinitelyLong()) {
+            long num = getLong();
+            return (num == 0 && minus) ? -0.0 : num;
+        }
+        return DoubleParser.parse(buf, storeBegin, storeEnd);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+            bufferPool.recycleBytes(buf);
+        }
+        if (chars != null) {
+            bufferPool.recycle(chars);
+        }
+    }
+
+    /**
+     * Decodes the UTF-8 bytes of a scanned string token and unescapes its
+     * escape sequences. The escape sequences must have been validated
+     * already. Malformed byte sequences are replaced with U+FFFD, the same
+     * as the JDK decoder does.
+     *
+     * @param src bytes of the string token, without the quotes
+     * @param begin begin index of the bytes (inclusive)
+     * @param end end index of the bytes (exclusive)
+     * @param dest destination buffer, its length must be at least
+     *      {@code end-begin}
+     * @return number of chars written to dest
+     */
+    static int decodeChars(byte[] src, int begin, int end, char[] dest) {
+        int i = begin;
+        int j = 0;
+        while (i < end) {
+            int b = src[i++];
+            if (b >= 0) {
+                if (b != '\\') {
+                    dest[j++] = (char)b;
+                    continue;
+                }
+                b = src[i++];
+                switch (b) {
+                    case 'b':
+                        dest[j++] = '\b';
+                        break;
+                    case 't':
+                        dest[j++] = '\t';
+                        break;
+                    case 'n':
+                        dest[j++] = '\n';
+                        break;
+                    case 'f':
+                        dest[j++] = '\f';
+                        break;
+                    case 'r':
+                        dest[j++] = '\r';
+                        break;
+                    case 'u':
+                        dest[j++] = (char)((HEX[src[i]] << 12) | (HEX[src[i+1]] << 8)
+                                | (HEX[src[i+2]] << 4) | HEX[src[i+3]]);
+                        i += 4;
+                        break;
+                    default:                // '"', '\\', '/'
+                        dest[j++] = (char)b;
+                }
+                continue;
+            }
+            b &= 0xFF;
+            if (b >= 0xC2 && b <= 0xDF && i < end && isContinuation(src[i])) {
+                dest[j++] = (char)(((b & 0x1F) << 6) | (src[i++] & 0x3F));
+            } else if (b >= 0xE0 && b <= 0xEF && i+1 < end
+                    && isContinuation(src[i]) && isContinuation(src[i+1])) {
+                int c = ((b & 0x0F) << 12) | ((src[i] & 0x3F) << 6) | (src[i+1] & 0x3F);
+                if (c < 0x800 || Character.isSurrogate((char)c)) {
+                    dest[j++] = '\uFFFD';   // overlong or surrogate
+                } else {
+                    dest[j++] = (char)c;
+                    i += 2;
+                }
+            } else if (b >= 0xF0 && b <= 0xF4 && i+2 < end && isContinuation(src[i])
+                    && isContinuation(src[i+1]) && isContinuation(src[i+2])) {
+                int cp = ((b & 0x07) << 18) | ((src[i] & 0x3F) << 12)
+                        | ((src[i+1] & 0x3F) << 6) | (src[i+2] & 0x3F);
+                if (cp < 0x10000 || cp > 0x10FFFF) {
+                    dest[j++] = '\uFFFD';   // overlong or out of range
+                } else {
+                    dest[j++] = Character.highSurrogate(cp);
+                    dest[j++] = Character.lowSurrogate(cp);
+                    i += 3;
+                }
+            } else {
+                dest[j++] = '\uFFFD';
+            }
+        }
+        return j;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+}
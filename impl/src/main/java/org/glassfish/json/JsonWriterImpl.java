@@ -83,6 +83,15 @@ class JsonWriterImpl implements JsonWriter {
 
     JsonWriterImpl(OutputStream out, Charset charset,
                    boolean prettyPrinting, BufferPool bufferPool) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            // UTF-8 generator encodes to bytes itself, so flushBuffer()
+            // writes everything to the stream without flushing it.
+            this.os = null;
+            generator = prettyPrinting
+                    ? new JsonPrettyGeneratorImpl(out, charset, bufferPool)
+                    : new JsonGeneratorImpl(out, charset, bufferPool);
+            return;
+        }
         // Decorating the given stream, so that buffered contents can be
         // written without actually flushing the stream.
         this.os = new NoFlushOutputStream(out);
@@ -102,8 +111,8 @@ class JsonWriterImpl implements JsonWriter {
             generator.write(value);
         }
         generator.writeEnd();
-        // Flush the generator's buffered contents. This won't work for byte
-        // streams as intermediary OutputStreamWriter buffers.
+        // Flush the generator's buffered contents. This won't work for non
+        // UTF-8 byte streams as intermediary OutputStreamWriter buffers.
         generator.flushBuffer();
         // Flush buffered contents but not the byte stream. generator.flush()
         // does OutputStreamWriter#flushBuffer (package private) and underlying
@@ -124,8 +133,8 @@ class JsonWriterImpl implements JsonWriter {
             generator.write(e.getKey(), e.getValue());
         }
         generator.writeEnd();
-        // Flush the generator's buffered contents. This won't work for byte
-        // streams as intermediary OutputStreamWriter buffers.
+        // Flush the generator's buffered contents. This won't work for non
+        // UTF-8 byte streams as intermediary OutputStreamWriter buffers.
         generator.flushBuffer();
         // Flush buffered contents but not the byte stream. generator.flush()
         // does OutputStreamWriter#flushBuffer (package private) and underlying
@@ -0,0 +1,269 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+/**
+ * Immutable map from names to positions that shares structure with the
+ * maps it is derived from. It is a hash array mapped trie: each level
+ * picks a child with 5 bits of the hash of the name, and keeps only the
+ * children that are present in a compact array. put() and remove() copy
+ * only the nodes on the path to the name.
+ */
+final class PersistentNameIndex {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final BitmapNode EMPTY_NODE = new BitmapNode(0, new Object[0]);
+    static final PersistentNameIndex EMPTY = new PersistentNameIndex(EMPTY_NODE);
+
+    private final BitmapNode root;
+
+    private PersistentNameIndex(BitmapNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates an index of names[0, size), name[i] is mapped to i.
+     */
+    static PersistentNameIndex of(String[] names, int size) {
+        BitmapNode r = EMPTY_NODE;
+        for (int i = 0; i < size; i++) {
+            r = r.put(0, names[i].hashCode(), names[i], i);
+        }
+        return new PersistentNameIndex(r);
+    }
+
+    /**
+     * @return the position of name, -1 if it is not there
+     */
+    int get(String name) {
+        int hash = name.hashCode();
+        Object node = root;
+        for (int shift = 0; ; shift += BITS) {
+            if (node instanceof CollisionNode) {
+                return ((CollisionNode)node).get(name);
+            }
+            BitmapNode n = (BitmapNode)node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((n.bitmap & bit) == 0) {
+                return -1;
+            }
+            int i = 2 * Integer.bitCount(n.bitmap & (bit - 1));
+            Object key = n.array[i];
+            if (key == null) {
+                node = n.array[i+1];
+            } else {
+                return name.equals(key) ? (Integer)n.array[i+1] : -1;
+            }
+        }
+    }
+
+    PersistentNameIndex put(String name, int position) {
+        return new PersistentNameIndex(root.put(0, name.hashCode(), name, position));
+    }
+
+    PersistentNameIndex remove(String name) {
+        BitmapNode r = root.remove(0, name.hashCode(), name);
+        if (r == root) {
+            return this;
+        }
+        return r == null ? EMPTY : new PersistentNameIndex(r);
+    }
+
+    // array has a pair for each set bit of bitmap. A pair is either a name
+    // and its Integer position, or null and a child node
+    private static final class BitmapNode {
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        BitmapNode put(int shift, int hash, String name, int position) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, i);
+                copy[i] = name;
+                copy[i+1] = position;
+                System.arraycopy(array, i, copy, i+2, array.length-i);
+                return new BitmapNode(bitmap | bit, copy);
+            }
+            Object key = array[i];
+            Object value = array[i+1];
+            Object[] copy = array.clone();
+            if (key == null) {
+                copy[i+1] = putChild(value, shift + BITS, hash, name, position);
+            } else if (name.equals(key)) {
+                copy[i+1] = position;
+            } else {
+                // Pushes both names one level down
+                copy[i] = null;
+                copy[i+1] = pair(shift + BITS, (String)key, (Integer)value, hash, name, position);
+            }
+            return new BitmapNode(bitmap, copy);
+        }
+
+        // null if the node becomes empty
+        BitmapNode remove(int shift, int hash, String name) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object key = array[i];
+            if (key == null) {
+                Object child = array[i+1];
+                Object r = removeChild(child, shift + BITS, hash, name);
+                if (r == child) {
+                    return this;
+                }
+                if (r != null) {
+                    Object[] copy = array.clone();
+                    if (r instanceof BitmapNode && ((BitmapNode)r).array.length == 2
+                            && ((BitmapNode)r).array[0] != null) {
+                        // Pulls a single name up
+                        copy[i] = ((BitmapNode)r).array[0];
+                        copy[i+1] = ((BitmapNode)r).array[1];
+                    } else {
+                        copy[i+1] = r;
+                    }
+                    return new BitmapNode(bitmap, copy);
+                }
+            } else if (!name.equals(key)) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i+2, copy, i, copy.length-i);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+    }
+
+    // Names whose hashes are all the same
+    private static final class CollisionNode {
+        final int hash;
+        final Object[] array;       // name and Integer position pairs
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        int get(String name) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (name.equals(array[i])) {
+                    return (Integer)array[i+1];
+                }
+            }
+            return -1;
+        }
+
+        Object put(int shift, int hash, String name, int position) {
+            if (hash != this.hash) {
+                // Moves this node one level down, under a bitmap node
+                int bit = 1 << ((this.hash >>> shift) & MASK);
+                return new BitmapNode(bit, new Object[] { null, this })
+                        .put(shift, hash, name, position);
+            }
+            for (int i = 0; i < array.length; i += 2) {
+                if (name.equals(array[i])) {
+                    Object[] copy = array.clone();
+                    copy[i+1] = position;
+                    return new CollisionNode(hash, copy);
+                }
+            }
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = name;
+            copy[array.length+1] = position;
+            return new CollisionNode(hash, copy);
+        }
+
+        Object remove(int shift, String name) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (name.equals(array[i])) {
+                    if (array.length == 4) {
+                        // The remaining name, the parent pulls it up
+                        int j = 2 - i;
+                        return EMPTY_NODE.put(shift, hash, (String)array[j], (Integer)array[j+1]);
+                    }
+                    Object[] copy = new Object[array.length - 2];
+                    System.arraycopy(array, 0, copy, 0, i);
+                    System.arraycopy(array, i+2, copy, i, copy.length-i);
+                    return new CollisionNode(hash, copy);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static Object putChild(Object node, int shift, int hash, String name, int position) {
+        return node instanceof BitmapNode
+                ? ((BitmapNode)node).put(shift, hash, name, position)
+                : ((CollisionNode)node).put(shift, hash, name, position);
+    }
+
+    private static Object removeChild(Object node, int shift, int hash, String name) {
+        return node instanceof BitmapNode
+                ? ((BitmapNode)node).remove(shift, hash, name)
+                : ((CollisionNode)node).remove(shift, name);
+    }
+
+    // Node for two different names
+    private static Object pair(int shift, String name1, int position1,
+            int hash2, String name2, int position2) {
+        int hash1 = name1.hashCode();
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[] { name1, position1, name2, position2 });
+        }
+        return EMPTY_NODE.put(shift, hash1, name1, position1)
+                .put(shift, hash2, name2, position2);
+    }
+
+}
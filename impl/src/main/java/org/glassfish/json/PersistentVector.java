@@ -0,0 +1,365 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable list that shares structure with the lists it is derived from.
+ * The elements are kept in leaves of up to 64 elements, under inner nodes
+ * of up to 64 children that know the element counts of their children.
+ * A get() walks down the tree, and set(), insert() and remove() copy only
+ * the nodes on the path to the element, so that updating a list of n
+ * elements takes O(log n) time and space, instead of O(n) for a copy.
+ */
+final class PersistentVector implements Iterable<Object> {
+
+    // Full leaves and nodes are split into two halves
+    private static final int MAX_WIDTH = 64;
+    private static final int HALF_WIDTH = MAX_WIDTH / 2;
+
+    private static final Object[] EMPTY_LEAF = new Object[0];
+    static final PersistentVector EMPTY = new PersistentVector(EMPTY_LEAF, 0);
+
+    // Object[] leaf or Node
+    private final Object root;
+    private final int size;
+
+    // Inner node, ends[i] is the number of elements in children[0, i]
+    private static final class Node {
+        final Object[] children;
+        final int[] ends;
+
+        Node(Object[] children, int[] ends) {
+            this.children = children;
+            this.ends = ends;
+        }
+    }
+
+    private PersistentVector(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Creates a list of values[0, size) with full leaves.
+     */
+    static PersistentVector of(Object[] values, int size) {
+        if (size <= MAX_WIDTH) {
+            Object[] leaf = new Object[size];
+            System.arraycopy(values, 0, leaf, 0, size);
+            return new PersistentVector(leaf, size);
+        }
+        int count = (size + HALF_WIDTH - 1) / HALF_WIDTH;
+        Object[] level = new Object[count];
+        for (int i = 0; i < count; i++) {
+            int begin = i * HALF_WIDTH;
+            Object[] leaf = new Object[Math.min(HALF_WIDTH, size - begin)];
+            System.arraycopy(values, begin, leaf, 0, leaf.length);
+            level[i] = leaf;
+        }
+        // Half full nodes leave room for inserts
+        while (count > 1) {
+            int parents = (count + HALF_WIDTH - 1) / HALF_WIDTH;
+            Object[] up = new Object[parents];
+            for (int i = 0; i < parents; i++) {
+                int begin = i * HALF_WIDTH;
+                Object[] children = new Object[Math.min(HALF_WIDTH, count - begin)];
+                System.arraycopy(level, begin, children, 0, children.length);
+                up[i] = node(children);
+            }
+            level = up;
+            count = parents;
+        }
+        return new PersistentVector(level[0], size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    Object get(int index) {
+        checkIndex(index, size);
+        Object node = root;
+        while (node instanceof Node) {
+            Node n = (Node)node;
+            int c = child(n.ends, index);
+            if (c > 0) {
+                index -= n.ends[c-1];
+            }
+            node = n.children[c];
+        }
+        return ((Object[])node)[index];
+    }
+
+    PersistentVector set(int index, Object value) {
+        checkIndex(index, size);
+        return new PersistentVector(set(root, index, value), size);
+    }
+
+    // index may be size, to append
+    PersistentVector insert(int index, Object value) {
+        checkIndex(index, size+1);
+        Object r = insert(root, index, value);
+        if (width(r) > MAX_WIDTH) {
+            r = node(split(r));
+        }
+        return new PersistentVector(r, size+1);
+    }
+
+    PersistentVector remove(int index) {
+        checkIndex(index, size);
+        Object r = remove(root, index);
+        // Drops the levels that have only one child
+        while (r instanceof Node && ((Node)r).children.length == 1) {
+            r = ((Node)r).children[0];
+        }
+        if (r instanceof Node && ((Node)r).children.length == 0) {
+            r = EMPTY.root;
+        }
+        return new PersistentVector(r, size-1);
+    }
+
+    /**
+     * Copies the elements into dest, which needs to have size() elements
+     * of space from begin.
+     */
+    void copyTo(Object[] dest, int begin) {
+        copyTo(root, dest, begin);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private Object[] leaf = EMPTY_LEAF;
+            private int leafIndex;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Object next() {
+                if (index == size) {
+                    throw new NoSuchElementException();
+                }
+                if (leafIndex == leaf.length) {
+                    leaf = leaf(index);
+                    leafIndex = 0;
+                }
+                index++;
+                return leaf[leafIndex++];
+            }
+        };
+    }
+
+    // The leaf that starts with the element at index
+    private Object[] leaf(int index) {
+        Object node = root;
+        while (node instanceof Node) {
+            Node n = (Node)node;
+            int c = child(n.ends, index);
+            if (c > 0) {
+                index -= n.ends[c-1];
+            }
+            node = n.children[c];
+        }
+        return (Object[])node;
+    }
+
+    private static Object set(Object node, int index, Object value) {
+        if (node instanceof Node) {
+            Node n = (Node)node;
+            int c = child(n.ends, index);
+            int base = c == 0 ? 0 : n.ends[c-1];
+            Object[] children = n.children.clone();
+            children[c] = set(children[c], index - base, value);
+            return new Node(children, n.ends);
+        }
+        Object[] leaf = ((Object[])node).clone();
+        leaf[index] = value;
+        return leaf;
+    }
+
+    private static Object insert(Object node, int index, Object value) {
+        if (node instanceof Node) {
+            Node n = (Node)node;
+            // Inserts at the end of a child, rather than at the beginning
+            // of the next one, so that appends go to the last child
+            int c = index == 0 ? 0 : child(n.ends, index - 1);
+            int base = c == 0 ? 0 : n.ends[c-1];
+            Object child = insert(n.children[c], index - base, value);
+            if (width(child) <= MAX_WIDTH) {
+                Object[] children = n.children.clone();
+                children[c] = child;
+                int[] ends = n.ends.clone();
+                for (int i = c; i < ends.length; i++) {
+                    ends[i]++;
+                }
+                return new Node(children, ends);
+            }
+            Object[] halves = split(child);
+            Object[] children = new Object[n.children.length + 1];
+            System.arraycopy(n.children, 0, children, 0, c);
+            children[c] = halves[0];
+            children[c+1] = halves[1];
+            System.arraycopy(n.children, c+1, children, c+2, n.children.length-c-1);
+            int[] ends = new int[children.length];
+            System.arraycopy(n.ends, 0, ends, 0, c);
+            ends[c] = base + size(halves[0]);
+            for (int i = c+1; i < ends.length; i++) {
+                ends[i] = n.ends[i-1] + 1;
+            }
+            return new Node(children, ends);
+        }
+        Object[] leaf = (Object[])node;
+        Object[] copy = new Object[leaf.length + 1];
+        System.arraycopy(leaf, 0, copy, 0, index);
+        copy[index] = value;
+        System.arraycopy(leaf, index, copy, index+1, leaf.length-index);
+        return copy;
+    }
+
+    private static Object remove(Object node, int index) {
+        if (node instanceof Node) {
+            Node n = (Node)node;
+            int c = child(n.ends, index);
+            int base = c == 0 ? 0 : n.ends[c-1];
+            Object child = remove(n.children[c], index - base);
+            if (width(child) > 0) {
+                Object[] children = n.children.clone();
+                children[c] = child;
+                int[] ends = n.ends.clone();
+                for (int i = c; i < ends.length; i++) {
+                    ends[i]--;
+                }
+                return new Node(children, ends);
+            }
+            // Drops the empty child
+            Object[] children = new Object[n.children.length - 1];
+            System.arraycopy(n.children, 0, children, 0, c);
+            System.arraycopy(n.children, c+1, children, c, children.length-c);
+            int[] ends = new int[children.length];
+            System.arraycopy(n.ends, 0, ends, 0, c);
+            for (int i = c; i < ends.length; i++) {
+                ends[i] = n.ends[i+1] - 1;
+            }
+            return new Node(children, ends);
+        }
+        Object[] leaf = (Object[])node;
+        Object[] copy = new Object[leaf.length - 1];
+        System.arraycopy(leaf, 0, copy, 0, index);
+        System.arraycopy(leaf, index+1, copy, index, copy.length-index);
+        return copy;
+    }
+
+    private static int copyTo(Object node, Object[] dest, int begin) {
+        if (node instanceof Node) {
+            for (Object child : ((Node)node).children) {
+                begin = copyTo(child, dest, begin);
+            }
+            return begin;
+        }
+        Object[] leaf = (Object[])node;
+        System.arraycopy(leaf, 0, dest, begin, leaf.length);
+        return begin + leaf.length;
+    }
+
+    // Splits a leaf or a node into two halves
+    private static Object[] split(Object node) {
+        Object[] all = node instanceof Node ? ((Node)node).children : (Object[])node;
+        int half = all.length / 2;
+        Object[] left = new Object[half];
+        Object[] right = new Object[all.length - half];
+        System.arraycopy(all, 0, left, 0, half);
+        System.arraycopy(all, half, right, 0, right.length);
+        return node instanceof Node
+                ? new Object[] { node(left), node(right) }
+                : new Object[] { left, right };
+    }
+
+    private static Node node(Object[] children) {
+        int[] ends = new int[children.length];
+        int end = 0;
+        for (int i = 0; i < children.length; i++) {
+            end += size(children[i]);
+            ends[i] = end;
+        }
+        return new Node(children, ends);
+    }
+
+    // The child of a node that has the element at index
+    private static int child(int[] ends, int index) {
+        int low = 0;
+        int high = ends.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] > index) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int width(Object node) {
+        return node instanceof Node ? ((Node)node).children.length : ((Object[])node).length;
+    }
+
+    private static int size(Object node) {
+        if (node instanceof Node) {
+            int[] ends = ((Node)node).ends;
+            return ends.length == 0 ? 0 : ends[ends.length-1];
+        }
+        return ((Object[])node).length;
+    }
+
+    private static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -42,6 +42,8 @@ package org.glassfish.json.api;
 
 /**
  * char[] pool that pool instances of char[] which are expensive to create.
+ * A pool may also hand out byte[] buffers, which are used when JSON is
+ * read directly from UTF-8 encoded byte streams.
  *
  * @author Jitendra Kotamraju
  */
@@ -63,4 +65,69 @@ public interface BufferPool {
      */
     void recycle(char[] buf);
 
+    /**
+     * Gets a new byte[] object from the pool.
+     *
+     * <p>
+     * If no object is available in the pool, this method creates a new one.
+     * The default implementation doesn't pool byte[] buffers and always
+     * creates a new one.
+     *
+     * @return
+     *      always non-null.
+     */
+    default byte[] takeBytes() {
+        return new byte[8192];
+    }
+
+    /**
+     * Returns a byte[] object back to the pool. The default implementation
+     * discards the buffer.
+     */
+    default void recycleBytes(byte[] buf) {
+    }
+
+    /**
+     * Gets a char[] object of at least the given length from the pool. It is
+     * used for tokens that don't fit in the buffer returned by {@link #take()}.
+     * The buffer is returned to the pool with {@link #recycle(char[])}.
+     *
+     * <p>
+     * The default implementation uses {@link #take()} if that buffer is big
+     * enough, otherwise it creates a new one.
+     *
+     * @param minLength minimum length of the buffer
+     * @return
+     *      always non-null.
+     */
+    default char[] take(int minLength) {
+        char[] buf = take();
+        if (buf.length >= minLength) {
+            return buf;
+        }
+        recycle(buf);
+        return new char[minLength];
+    }
+
+    /**
+     * Gets a byte[] object of at least the given length from the pool. The
+     * buffer is returned to the pool with {@link #recycleBytes(byte[])}.
+     *
+     * <p>
+     * The default implementation uses {@link #takeBytes()} if that buffer
+     * is big enough, otherwise it creates a new one.
+     *
+     * @param minLength minimum length of the buffer
+     * @return
+     *      always non-null.
+     */
+    default byte[] takeBytes(int minLength) {
+        byte[] buf = takeBytes();
+        if (buf.length >= minLength) {
+            return buf;
+        }
+        recycleBytes(buf);
+        return new byte[minLength];
+    }
+
 }
@@ -0,0 +1,195 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.BufferPoolImpl;
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link BufferPoolImpl} tests
+ */
+public class BufferPoolTest extends TestCase {
+    public BufferPoolTest(String testName) {
+        super(testName);
+    }
+
+    public void testSizeClasses() {
+        BufferPool pool = new BufferPoolImpl();
+        assertEquals(4096, pool.take().length);
+        assertEquals(4096, pool.take(100).length);
+        assertEquals(16384, pool.take(4097).length);
+        assertEquals(65536, pool.take(65536).length);
+        assertEquals(8192, pool.takeBytes().length);
+        assertEquals(32768, pool.takeBytes(8193).length);
+        // bigger than the largest size class
+        assertEquals(Integer.MAX_VALUE / 8, pool.takeBytes(Integer.MAX_VALUE / 8).length);
+    }
+
+    public void testRecycle() {
+        BufferPool pool = new BufferPoolImpl();
+        char[] small = pool.take();
+        char[] large = pool.take(100000);
+        byte[] bytes = pool.takeBytes(100000);
+        pool.recycle(small);
+        pool.recycle(large);
+        pool.recycleBytes(bytes);
+        assertSame(small, pool.take());
+        assertSame(large, pool.take(100000));
+        assertSame(bytes, pool.takeBytes(131072));
+
+        // not of a size class, discarded
+        char[] odd = new char[5000];
+        pool.recycle(odd);
+        assertNotSame(odd, pool.take(5000));
+    }
+
+    public void testRetentionCap() {
+        // only two 8K char[] buffers fit, no thread cache
+        BufferPool pool = new BufferPoolImpl(2 * 8192, 0);
+        List<char[]> taken = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            taken.add(pool.take());
+        }
+        for (char[] buf : taken) {
+            pool.recycle(buf);
+        }
+        List<char[]> again = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            again.add(pool.take());
+        }
+        int reused = 0;
+        for (char[] buf : again) {
+            for (char[] old : taken) {
+                if (buf == old) {
+                    reused++;
+                }
+            }
+        }
+        assertEquals(2, reused);
+
+        // size classes bigger than the cap are not pooled
+        char[] large = pool.take(16384);
+        pool.recycle(large);
+        assertNotSame(large, pool.take(16384));
+    }
+
+    public void testLargeBuffers() {
+        // not kept by default
+        BufferPool pool = new BufferPoolImpl();
+        byte[] bytes = pool.takeBytes(10 * 1024 * 1024);
+        assertEquals(32 * 1024 * 1024, bytes.length);
+        pool.recycleBytes(bytes);
+        assertNotSame(bytes, pool.takeBytes(10 * 1024 * 1024));
+
+        // one buffer of each class that is bigger than the retained bytes
+        pool = new BufferPoolImpl(BufferPoolImpl.DEFAULT_MAX_RETAINED_BYTES,
+                BufferPoolImpl.DEFAULT_THREAD_CACHE_SIZE, 1);
+        bytes = pool.takeBytes(10 * 1024 * 1024);
+        char[] chars = pool.take(10 * 1024 * 1024);
+        pool.recycleBytes(bytes);
+        pool.recycle(chars);
+        assertSame(bytes, pool.takeBytes(10 * 1024 * 1024));
+        assertSame(chars, pool.take(10 * 1024 * 1024));
+    }
+
+    public void testLargeTokenBufferReused() {
+        BufferPool pool = new BufferPoolImpl(BufferPoolImpl.DEFAULT_MAX_RETAINED_BYTES,
+                BufferPoolImpl.DEFAULT_THREAD_CACHE_SIZE, 1);
+        char[] text = new char[10 * 1024 * 1024];
+        Arrays.fill(text, 'x');
+        byte[] json = ("[\"" + new String(text) + "\"]").getBytes(StandardCharsets.UTF_8);
+        JsonParserFactory factory = Json.createParserFactory(
+                Collections.singletonMap(BufferPool.class.getName(), pool));
+        try (JsonParser parser = factory.createParser(new ByteArrayInputStream(json))) {
+            parser.next();
+            parser.next();
+            assertEquals(text.length, parser.getString().length());
+        }
+        // The tokenizer's grown buffer went back to the pool on close(),
+        // it still has the bytes of the string
+        byte[] reused = pool.takeBytes(text.length);
+        assertEquals(32 * 1024 * 1024, reused.length);
+        assertEquals('x', reused[text.length / 2]);
+    }
+
+    public void testConcurrentUse() throws Exception {
+        final BufferPoolImpl pool = new BufferPoolImpl(64 * 1024, 1);
+        final JsonReaderFactory rf = Json.createReaderFactory(
+                Collections.singletonMap(BufferPool.class.getName(), pool));
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        try (JsonReader reader = rf.createReader(new StringReader("[" + i + ", \"x\"]"))) {
+                            JsonArray array = reader.readArray();
+                            assertEquals(i, array.getInt(0));
+                        }
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.JsonParserFactoryImpl;
+import org.glassfish.json.JsonProviderImpl;
+import org.glassfish.json.api.BufferPool;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParsingException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests the splittable streams of {@link JsonProviderImpl}
+ */
+public class JsonArrayStreamTest extends TestCase {
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    public JsonArrayStreamTest(String testName) {
+        super(testName);
+    }
+
+    public void testArrayStream() throws IOException {
+        JsonArray array = records(5000);
+        byte[] bytes = array.toString().getBytes(StandardCharsets.UTF_8);
+        assertTrue(bytes.length > 4 * 64 * 1024);
+
+        assertEquals(array, collect(provider.createArrayStream(ByteBuffer.wrap(bytes)).parallel()));
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(array, collect(provider.createArrayStream(direct).parallel()));
+        assertEquals(0, direct.position());
+
+        Spliterator<JsonValue> spliterator = provider.createArrayStream(ByteBuffer.wrap(bytes)).spliterator();
+        assertNotNull(spliterator.trySplit());
+
+        Path path = Files.createTempFile("array", ".json");
+        try {
+            // with a BOM and whitespace around the array
+            byte[] file = new byte[bytes.length + 5];
+            file[0] = (byte)0xEF; file[1] = (byte)0xBB; file[2] = (byte)0xBF;
+            file[3] = ' ';
+            System.arraycopy(bytes, 0, file, 4, bytes.length);
+            file[file.length-1] = '\n';
+            Files.write(path, file);
+            try (Stream<JsonValue> stream = provider.createArrayStream(path)) {
+                assertEquals(array, collect(stream.parallel()));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void testValueStream() throws IOException {
+        JsonArray array = records(5000);
+        String lines = array.stream().map(JsonValue::toString).collect(Collectors.joining("\n"));
+        byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(array, collect(provider.createValueStream(ByteBuffer.wrap(bytes)).parallel()));
+
+        Path path = Files.createTempFile("values", ".json");
+        try {
+            Files.write(path, (lines + "\n").getBytes(StandardCharsets.UTF_8));
+            try (Stream<JsonValue> stream = provider.createValueStream(path)) {
+                assertEquals(array, collect(stream.parallel()));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void testShortCircuit() {
+        JsonArray array = records(5000);
+        byte[] bytes = array.toString().getBytes(StandardCharsets.UTF_8);
+        String lines = array.stream().map(JsonValue::toString).collect(Collectors.joining("\n"));
+        JsonParserTest.TrackingBufferPool bufferPool = new JsonParserTest.TrackingBufferPool();
+        JsonParserFactoryImpl factory = (JsonParserFactoryImpl)Json.createParserFactory(
+                Collections.singletonMap(BufferPool.class.getName(), bufferPool));
+
+        try (Stream<JsonValue> stream = factory.createArrayStream(ByteBuffer.wrap(bytes))) {
+            assertEquals(array.get(0), stream.findFirst().get());
+            assertFalse(bufferPool.outstanding.isEmpty());
+        }
+        assertTrue(bufferPool.outstanding.isEmpty());
+
+        try (Stream<JsonValue> stream = factory.createValueStream(
+                ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals(10, stream.limit(10).count());
+        }
+        assertTrue(bufferPool.outstanding.isEmpty());
+    }
+
+    public void testSmallInput() {
+        assertEquals(0, provider.createArrayStream(wrap(" [ ] ")).count());
+        assertEquals(Json.createReader(new StringReader("[1,\"a\",[2],{\"b\":null}]")).readArray(),
+                collect(provider.createArrayStream(wrap("[1,\"a\",[2],{\"b\":null}]"))));
+        assertEquals(0, provider.createValueStream(wrap("")).count());
+        assertEquals(3, provider.createValueStream(wrap("1\n\"a\"\n{}\n")).count());
+    }
+
+    public void testInvalidInput() {
+        String[] invalid = { "", "{}", "[1,2", "[1]]", "[1] 2", "[1,,2]", "[1 2]", "[1,2,]" };
+        for (String json : invalid) {
+            try {
+                provider.createArrayStream(wrap(json)).count();
+                fail("Expected JsonParsingException for " + json);
+            } catch (JsonParsingException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static JsonArray records(int count) {
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.add(Json.createObjectBuilder()
+                    .add("id", i)
+                    .add("text", "a,b] {c} \"d\" é€😀 \\ " + i)
+                    .add("values", Json.createArrayBuilder().add(i).add(i * 0.5).addNull())
+                    .add("flag", i % 2 == 0));
+        }
+        return builder.build();
+    }
+
+    private static JsonArray collect(Stream<JsonValue> stream) {
+        List<JsonValue> values = stream.collect(Collectors.toList());
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        values.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static ByteBuffer wrap(String json) {
+        return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -45,7 +45,10 @@ import junit.framework.TestCase;
 import javax.json.*;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author Jitendra Kotamraju
@@ -80,6 +83,30 @@ public class JsonArrayTest extends TestCase {
         assertEquals(expected, actual);
     }
 
+    public void testArrayHashCode() throws Exception {
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.add(Json.createArrayBuilder().add(i).add("v" + i));
+        }
+        JsonArray array = builder.build();
+        JsonArray copy = Json.createReader(new StringReader(array.toString())).readArray();
+        List<JsonValue> list = new ArrayList<>(array);
+
+        assertEquals(array.hashCode(), copy.hashCode());
+        assertEquals(list.hashCode(), array.hashCode());
+        assertEquals(list, array);
+        assertEquals(array, list);
+        assertEquals(array, copy);
+
+        // Same as array, except for a deep value
+        JsonArray other = Json.createArrayBuilder(array)
+                .set(50, Json.createArrayBuilder().add(50).add("w50"))
+                .build();
+        assertFalse(array.equals(other));
+        assertFalse(other.equals(copy));
+        assertFalse(array.hashCode() == other.hashCode());
+    }
+
     public void testStringValue() throws Exception {
         JsonArray array = Json.createArrayBuilder()
                 .add("John")
@@ -126,6 +153,61 @@ public class JsonArrayTest extends TestCase {
         assertEquals(10, array.getInt(1));
     }
 
+    public void testSetAndToArray() {
+        JsonArray array = Json.createArrayBuilder().add(1).add("two").build();
+        try {
+            array.set(0, JsonValue.NULL);
+            fail("JsonArray#set() should throw UnsupportedOperationException");
+        } catch(UnsupportedOperationException e) {
+            // Expected
+        }
+        Object[] values = array.toArray();
+        values[0] = JsonValue.NULL;
+        assertEquals(1, array.getInt(0));
+        assertEquals(Arrays.asList(Json.createValue(1), Json.createValue("two")), array);
+    }
+
+    public void testLargeArrayUpdates() {
+        List<JsonValue> expected = new ArrayList<>();
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.add(i);
+            expected.add(Json.createValue(i));
+        }
+        JsonArray original = builder.build();
+        JsonArray array = original;
+        Random r = new Random(5);
+        for (int i = 0; i < 3000; i++) {
+            int op = r.nextInt(3);
+            if (op == 0 || expected.isEmpty()) {
+                int index = r.nextInt(expected.size() + 1);
+                JsonValue value = Json.createValue("v" + i);
+                array = (JsonArray)new JsonPointer("/" + index).add(array, value);
+                expected.add(index, value);
+            } else if (op == 1) {
+                int index = r.nextInt(expected.size());
+                array = (JsonArray)new JsonPointer("/" + index).remove(array);
+                expected.remove(index);
+            } else {
+                int index = r.nextInt(expected.size());
+                JsonValue value = Json.createValue(i);
+                array = (JsonArray)new JsonPointer("/" + index).replace(array, value);
+                expected.set(index, value);
+            }
+        }
+        assertEquals(expected, array);
+        assertEquals(expected, Arrays.asList(array.toArray()));
+        assertEquals(array, Json.createArrayBuilder(array).build());
+        assertEquals(1000, original.size());
+        assertEquals(999, original.getInt(999));
+        try {
+            Json.createArrayBuilder(array).set(array.size(), JsonValue.NULL);
+            fail("set() should throw IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+    }
+
     public void testArrayBuilderNpe() {
         try {
             JsonArray array = Json.createArrayBuilder().add((JsonValue)null).build();
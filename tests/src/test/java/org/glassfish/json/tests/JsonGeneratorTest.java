@@ -46,6 +46,9 @@ import org.glassfish.json.api.BufferPool;
 import javax.json.*;
 import javax.json.stream.*;
 import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -409,6 +412,64 @@ public class JsonGeneratorTest extends TestCase {
         }
     }
 
+    public void testDoubleGenerator() throws Exception {
+        double[] fixed = { 0.0, -0.0, 1.0, -1.5, 0.1, 0.001, 1.0E-4, 123.456,
+                9999999.0, 1.0E7, 1.0E22, Double.MIN_VALUE,
+                Double.MIN_NORMAL, Double.MAX_VALUE };
+        for (double num : fixed) {
+            assertEquals(Double.toString(num), generateDouble(num, false));
+            assertEquals(Double.toString(num), generateDouble(num, true));
+        }
+        // Shortest digits, some JDKs give 9.999999999999999E22
+        assertEquals("1.0E23", generateDouble(1.0E23, false));
+        assertEquals("1.0E23", generateDouble(1.0E23, true));
+        Random r = new Random(System.currentTimeMillis());
+        for (int i = 0; i < 100000; i++) {
+            double num = (i % 2 == 0)
+                    ? Double.longBitsToDouble(r.nextLong())
+                    : r.nextInt(1000000) / 1000.0;
+            if (Double.isNaN(num) || Double.isInfinite(num)) {
+                continue;
+            }
+            String got = generateDouble(num, i % 4 < 2);
+            // Same layout as Double.toString(), never more digits
+            assertEquals(got, num, Double.parseDouble(got));
+            assertTrue(got, got.length() <= Double.toString(num).length());
+            double abs = Math.abs(num);
+            assertEquals(got, abs != 0 && (abs < 1.0E-3 || abs >= 1.0E7), got.contains("E"));
+        }
+    }
+
+    public void testBigDecimalGenerator() throws Exception {
+        String[] values = { "0", "0.00", "-1.5", "1E+3", "0.000001", "0.0000001",
+                "-0.00012300", "1.000000000000000001", "123456789012345678",
+                "1234567890123456789", "12345678901234567890.5", "-9.99E-7",
+                "100.010", "-999999999999999999", "3.14159265358979323846",
+                "922337203685477580.7", "-922337203685477580.8", "922337203685477580.8",
+                "-0.0000009223372036854775807" };
+        for (String value : values) {
+            BigDecimal num = new BigDecimal(value);
+            for (int i = 0; i < 2; i++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                StringWriter sw = new StringWriter();
+                JsonGenerator generator = (i == 0)
+                        ? Json.createGenerator(out) : Json.createGenerator(sw);
+                generator.writeStartObject().write("n", num).writeEnd().close();
+                String got = (i == 0) ? new String(out.toByteArray(), StandardCharsets.UTF_8) : sw.toString();
+                assertEquals("{\"n\":" + num.toString() + "}", got);
+            }
+        }
+    }
+
+    private static String generateDouble(double num, boolean utf8) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringWriter sw = new StringWriter();
+        JsonGenerator generator = utf8 ? Json.createGenerator(out) : Json.createGenerator(sw);
+        generator.writeStartArray().write(num).writeEnd().close();
+        String got = utf8 ? new String(out.toByteArray(), StandardCharsets.UTF_8) : sw.toString();
+        return got.substring(1, got.length() - 1);
+    }
+
     public void testGeneratorBuf() throws Exception {
         JsonGeneratorFactory gf = Json.createGeneratorFactory(null);
         JsonReaderFactory rf = Json.createReaderFactory(null);
@@ -515,4 +576,45 @@ public class JsonGeneratorTest extends TestCase {
         assertEquals("{}", baos.toString("UTF-8"));
     }
 
+    public void testUTF8Stream() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for(int i=0; i < 3000; i++) {
+            sb.append("a\u00e9\u20ac\ud83d\ude00\"\\\n\u0001");
+        }
+        String[] strings = { "", "abc", "\u00e9t\u00e9", "\u20ac100", "\ud83d\ude00",
+                "x\ud83dy", "\ude00", "\u0000\u001f\u007f", sb.toString() };
+        long[] longs = { 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Integer.MAX_VALUE + 1L, Integer.MIN_VALUE - 1L, 1234567890123L,
+                -1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE };
+        JsonGeneratorFactory[] factories = {
+                Json.createGeneratorFactory(null),
+                Json.createGeneratorFactory(new HashMap<String, Object>() {{
+                    put(JsonGenerator.PRETTY_PRINTING, true);
+                }})
+        };
+        for(JsonGeneratorFactory gf : factories) {
+            StringWriter sw = new StringWriter();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            JsonGenerator[] generators = {
+                    gf.createGenerator(sw), gf.createGenerator(baos, StandardCharsets.UTF_8)
+            };
+            for(JsonGenerator generator : generators) {
+                generator.writeStartObject();
+                for(String s : strings) {
+                    generator.write(s, s);
+                }
+                generator.writeStartArray("longs");
+                for(long l : longs) {
+                    generator.write(l);
+                }
+                generator.writeEnd();
+                generator.write("int", Integer.MIN_VALUE).write("long", Long.MIN_VALUE)
+                        .write("true", true).write("false", false).writeNull("null");
+                generator.writeEnd().close();
+            }
+            assertTrue(Arrays.equals(
+                    sw.toString().getBytes("UTF-8"), baos.toByteArray()));
+        }
+    }
+
 }
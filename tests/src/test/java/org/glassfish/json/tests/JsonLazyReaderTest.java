@@ -0,0 +1,210 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.JsonProviderImpl;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tests the lazy reader of {@link JsonProviderImpl}
+ */
+public class JsonLazyReaderTest extends TestCase {
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    public JsonLazyReaderTest(String testName) {
+        super(testName);
+    }
+
+    private static final String DOC = "{\"id\":12, \"big\":12345678901, \"pi\":3.14, "
+            + "\"huge\":123456789012345678901234567890, \"neg\":-7, "
+            + "\"name\":\"caf\\u00e9 \\\"x\\\"\", \"über\":\"été \\ud83d\\ude00\", "
+            + "\"t\":true, \"f\":false, \"n\":null, "
+            + "\"nested\":{\"a\":[1, [2, {}], {\"b\":[]}], \"c\":\"d\"}, \"empty\":[]}";
+
+    public void testValues() {
+        JsonObject expected = Json.createReader(new StringReader(DOC)).readObject();
+        JsonObject obj = provider.createLazyReader(
+                ByteBuffer.wrap(DOC.getBytes(StandardCharsets.UTF_8))).readObject();
+
+        assertEquals(12, obj.getInt("id"));
+        assertEquals(12345678901L, obj.getJsonNumber("big").longValue());
+        assertEquals(new BigDecimal("3.14"), obj.getJsonNumber("pi").bigDecimalValue());
+        assertEquals(-7, obj.getInt("neg"));
+        assertEquals("café \"x\"", obj.getString("name"));
+        assertEquals("été 😀", obj.getString("über"));
+        assertTrue(obj.getBoolean("t"));
+        assertFalse(obj.getBoolean("f"));
+        assertTrue(obj.isNull("n"));
+        assertNull(obj.get("missing"));
+        assertEquals(2, obj.getJsonObject("nested").getJsonArray("a")
+                .getJsonArray(1).getInt(0));
+        assertEquals(JsonValue.EMPTY_JSON_ARRAY, obj.get("empty"));
+
+        assertEquals(expected, obj);
+        assertEquals(obj, expected);
+        assertEquals(expected.hashCode(), obj.hashCode());
+        assertEquals(expected.toString(), obj.toString());
+        assertEquals(expected.keySet(), obj.keySet());
+    }
+
+    public void testLargeObject() {
+        StringBuilder sb = new StringBuilder("[{");
+        for (int i = 0; i < 100; i++) {
+            sb.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":").append(i);
+        }
+        sb.append("}, 1, \"two\"]");
+        JsonArray array = provider.createLazyReader(
+                ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8))).readArray();
+        assertEquals(3, array.size());
+        JsonObject obj = array.getJsonObject(0);
+        assertEquals(100, obj.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, obj.getInt("k" + i));
+        }
+        assertFalse(obj.containsKey("k100"));
+        assertEquals("two", array.getString(2));
+        assertEquals(Json.createReader(new StringReader(sb.toString())).readArray(), array);
+    }
+
+    public void testDuplicateKeys() {
+        StringBuilder big = new StringBuilder("{");
+        for (int i = 0; i < 20; i++) {
+            big.append("\"k").append(i % 12).append("\":").append(i).append(',');
+        }
+        big.append("\"k0\":[1]}");
+        String[] docs = { "{\"a\":1,\"b\":2,\"a\":3}", "[{\"a\":{\"x\":1},\"a\":{\"y\":2}}]", big.toString() };
+        for (String doc : docs) {
+            JsonValue expected = Json.createReader(new StringReader(doc)).readValue();
+            JsonValue value = provider.createLazyReader(
+                    ByteBuffer.wrap(doc.getBytes(StandardCharsets.UTF_8))).readValue();
+            assertEquals(doc, expected, value);
+            assertEquals(doc, value, expected);
+            assertEquals(doc, expected.toString(), value.toString());
+        }
+        JsonObject obj = provider.createLazyReader(
+                ByteBuffer.wrap(docs[0].getBytes(StandardCharsets.UTF_8))).readObject();
+        assertEquals(2, obj.size());
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(obj.keySet()));
+        assertEquals(3, obj.getInt("a"));
+        obj = provider.createLazyReader(
+                ByteBuffer.wrap(docs[2].getBytes(StandardCharsets.UTF_8))).readObject();
+        assertEquals(12, obj.size());
+        assertEquals(1, obj.getJsonArray("k0").size());
+        assertEquals(19, obj.getInt("k7"));
+    }
+
+    public void testStream() throws Exception {
+        try (InputStream in = JsonLazyReaderTest.class.getResourceAsStream("/facebook.json");
+             InputStream expectedIn = JsonLazyReaderTest.class.getResourceAsStream("/facebook.json")) {
+            JsonStructure expected = Json.createReader(expectedIn).read();
+            JsonReader reader = provider.createLazyReader(in);
+            JsonStructure value = reader.read();
+            reader.close();
+            assertEquals(expected, value);
+        }
+        // UTF-16 is decoded and kept as UTF-8
+        byte[] utf16 = DOC.getBytes(StandardCharsets.UTF_16LE);
+        JsonObject obj = provider.createLazyReader(new ByteArrayInputStream(utf16)).readObject();
+        assertEquals("été 😀", obj.getString("über"));
+    }
+
+    public void testDirectBuffer() {
+        byte[] bytes = ("﻿" + DOC).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        JsonValue value = provider.createLazyReader(direct).readValue();
+        assertEquals(0, direct.position());
+        assertEquals(Json.createReader(new StringReader(DOC)).readObject(), value);
+    }
+
+    public void testScalar() {
+        JsonValue value = provider.createLazyReader(
+                ByteBuffer.wrap("-12.5e3".getBytes(StandardCharsets.UTF_8))).readValue();
+        assertEquals(new BigDecimal("-12.5e3"), ((JsonNumber)value).bigDecimalValue());
+        try {
+            provider.createLazyReader(ByteBuffer.wrap("12".getBytes(StandardCharsets.UTF_8))).readObject();
+            fail("readObject() of a number should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    public void testInvalid() {
+        // the whole document is validated, even if it is never accessed
+        try {
+            provider.createLazyReader(ByteBuffer.wrap(
+                    "{\"a\":1, \"b\":[1, 2 3]}".getBytes(StandardCharsets.UTF_8))).read();
+            fail("Invalid JSON should throw JsonParsingException");
+        } catch (JsonParsingException e) {
+            // Expected
+        }
+    }
+
+    public void testReadTwice() {
+        JsonReader reader = provider.createLazyReader(
+                ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8)));
+        reader.read();
+        try {
+            reader.read();
+            fail("read() twice should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+}
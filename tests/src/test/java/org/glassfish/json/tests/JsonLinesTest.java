@@ -0,0 +1,194 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.JsonLinesReader;
+import org.glassfish.json.JsonLinesWriter;
+import org.glassfish.json.JsonProviderImpl;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link JsonLinesReader} and {@link JsonLinesWriter} tests
+ */
+public class JsonLinesTest extends TestCase {
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    public JsonLinesTest(String testName) {
+        super(testName);
+    }
+
+    public void testRoundTrip() {
+        List<JsonValue> values = new ArrayList<>();
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            big.append((char)('a' + i % 26));
+        }
+        for (int i = 0; i < 2000; i++) {
+            values.add(Json.createObjectBuilder()
+                    .add("id", i)
+                    .add("text", i == 1000 ? big.toString() : "line\n \"" + i + "\" é€😀")
+                    .add("tags", Json.createArrayBuilder().add("a").add(i % 3 == 0))
+                    .build());
+        }
+        values.add(Json.createValue("scalar"));
+        values.add(JsonValue.NULL);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonLinesWriter writer = provider.createLinesWriter(out, 0)) {
+            values.forEach(writer::write);
+        }
+        byte[] bytes = out.toByteArray();
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        assertEquals(values.size(), text.split("\n").length);
+        assertTrue(text.endsWith("\n"));
+
+        List<JsonValue> read = new ArrayList<>();
+        try (JsonLinesReader reader = provider.createLinesReader(new ByteArrayInputStream(bytes))) {
+            while (reader.read(read, 300) > 0) {
+                // batches of 300
+            }
+            int lastLine = bytes.length - 1;
+            while (bytes[lastLine - 1] != '\n') {
+                lastLine--;
+            }
+            assertEquals(lastLine, reader.getRecordOffset());
+            assertEquals(values.size(), reader.getLineNumber());
+        }
+        assertEquals(values, read);
+    }
+
+    public void testMalformedLines() {
+        String json = "{\"a\":1}\r\n"
+                + "{\"a\":\n"
+                + "\n"
+                + "  [1,2] 3\n"
+                + "\"é\"\n"
+                + "{\"b\":\"x\ny\"}\n"
+                + "\t{\"a\":2}  ";
+        List<String> results = new ArrayList<>();
+        try (JsonLinesReader reader = provider.createLinesReader(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+            for (;;) {
+                try {
+                    JsonValue value = reader.read();
+                    if (value == null) {
+                        break;
+                    }
+                    results.add(reader.getLineNumber() + ":" + reader.getRecordOffset() + ":" + value);
+                } catch (JsonParsingException e) {
+                    results.add(reader.getLineNumber() + ":" + reader.getRecordOffset() + ":error");
+                    assertEquals(reader.getLineNumber(), e.getLocation().getLineNumber());
+                }
+            }
+        }
+        assertEquals(Arrays.asList(
+                "1:0:{\"a\":1}",
+                "2:9:error",
+                "4:16:error",
+                "5:26:\"é\"",
+                "6:31:error",
+                "7:39:error",
+                "8:43:{\"a\":2}"), results);
+    }
+
+    public void testFlushInterval() {
+        CountingOutputStream out = new CountingOutputStream(new ByteArrayOutputStream());
+        JsonLinesWriter writer = provider.createLinesWriter(out, 2);
+        JsonObject value = Json.createReader(new StringReader("{\"a\":[1,2]}")).readObject();
+        for (int i = 0; i < 5; i++) {
+            writer.write(value);
+        }
+        assertEquals(2, out.flushes);
+        writer.flush();
+        assertEquals(3, out.flushes);
+        writer.close();
+        assertTrue(out.closed);
+        assertEquals("{\"a\":[1,2]}\n".length() * 5, ((ByteArrayOutputStream)out.out()).size());
+
+        try {
+            provider.createLinesWriter(out, -1);
+            fail("Expected IllegalArgumentException for negative flush interval");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        int flushes;
+        boolean closed;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        OutputStream out() {
+            return out;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+            super.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            out.close();
+        }
+    }
+
+}
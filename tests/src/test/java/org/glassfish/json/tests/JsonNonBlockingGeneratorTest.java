@@ -0,0 +1,235 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.JsonNonBlockingGenerator;
+import org.glassfish.json.JsonProviderImpl;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link JsonNonBlockingGenerator} tests
+ */
+public class JsonNonBlockingGeneratorTest extends TestCase {
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    public JsonNonBlockingGeneratorTest(String testName) {
+        super(testName);
+    }
+
+    public void testSameBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonNonBlockingGenerator generator = provider.createNonBlockingGenerator(buffer -> {
+                copy(buffer, out);
+                return true;
+            })) {
+            generate(generator, 0, 5000);
+            assertFalse(generator.isBackpressured());
+        }
+        assertTrue(Arrays.equals(expected(5000), out.toByteArray()));
+    }
+
+    public void testBackpressure() {
+        SlowSink sink = new SlowSink(1000);
+        int pauses = 0;
+        JsonNonBlockingGenerator generator = provider.createNonBlockingGenerator(sink);
+        generator.writeStartArray();
+        for (int i = 0; i < 5000; i++) {
+            writeRecord(generator, i);
+            while (generator.isBackpressured()) {
+                pauses++;
+                assertTrue(generator.getPendingBytes() > 0 || sink.credit == 0);
+                sink.credit = 1000;         // the channel is writable again
+                generator.resume();
+            }
+        }
+        generator.writeEnd();
+        generator.close();
+        while (generator.isBackpressured()) {
+            sink.credit = 1000;
+            generator.resume();
+        }
+        assertEquals(0, generator.getPendingBytes());
+        assertTrue(pauses > 0);
+        assertTrue(Arrays.equals(expected(5000), sink.out.toByteArray()));
+    }
+
+    public void testCallerSuppliedBuffers() {
+        List<ByteBuffer> supplied = new ArrayList<>();
+        SlowSink sink = new SlowSink(250);
+        JsonNonBlockingGenerator generator = provider.createNonBlockingGenerator(sink, () -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+            supplied.add(buffer);
+            return buffer;
+        });
+        generator.writeStartArray();
+        for (int i = 0; i < 1000; i++) {
+            writeRecord(generator, i);
+            if (generator.isBackpressured()) {
+                sink.credit = 250;
+                while (!generator.resume()) {
+                    sink.credit = 250;
+                }
+            }
+        }
+        generator.writeEnd();
+        generator.close();
+        while (generator.isBackpressured()) {
+            sink.credit = 250;
+            generator.resume();
+        }
+        assertTrue(Arrays.equals(expected(1000), sink.out.toByteArray()));
+        // The buffers are reused once the sink takes their bytes
+        assertTrue(supplied.size() < sink.out.size() / 100 / 4);
+        for (ByteBuffer buffer : sink.buffers) {
+            assertTrue(supplied.stream().anyMatch(b -> b == buffer));
+        }
+    }
+
+    public void testFlush() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonNonBlockingGenerator generator = provider.createNonBlockingGenerator(buffer -> {
+            copy(buffer, out);
+            return true;
+        });
+        generator.writeStartObject().write("a", 1);
+        assertEquals(0, out.size());
+        generator.flush();
+        assertEquals("{\"a\":1", out.toString());
+        generator.writeEnd().close();
+        assertEquals("{\"a\":1}", out.toString());
+    }
+
+    public void testResumeAfterClose() {
+        SlowSink sink = new SlowSink(0);
+        JsonNonBlockingGenerator generator = provider.createNonBlockingGenerator(sink);
+        generator.writeStartObject().write("a", "b").writeEnd().close();
+        assertTrue(generator.isBackpressured());
+        assertEquals(9, generator.getPendingBytes());
+        assertFalse(generator.resume());
+        sink.credit = 5;
+        assertFalse(generator.resume());
+        assertEquals(4, generator.getPendingBytes());
+        sink.credit = 5;
+        assertTrue(generator.resume());
+        assertFalse(generator.isBackpressured());
+        assertEquals("{\"a\":\"b\"}", sink.out.toString());
+    }
+
+    public void testNoSuppliedBuffer() {
+        JsonNonBlockingGenerator generator = provider.createNonBlockingGenerator(buffer -> true,
+                () -> ByteBuffer.allocate(0));
+        generator.write("value");
+        try {
+            generator.flush();
+            fail("The supplied buffer has no space");
+        } catch (IllegalStateException expected) {
+            // no-op
+        }
+    }
+
+    // Takes up to credit bytes, like a channel whose socket buffer
+    // fills up
+    private static final class SlowSink implements JsonNonBlockingGenerator.Sink {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final List<ByteBuffer> buffers = new ArrayList<>();
+        int credit;
+
+        SlowSink(int credit) {
+            this.credit = credit;
+        }
+
+        @Override
+        public boolean write(ByteBuffer buffer) {
+            buffers.add(buffer);
+            int n = Math.min(credit, buffer.remaining());
+            ByteBuffer taken = buffer.duplicate();
+            taken.limit(taken.position() + n);
+            copy(taken, out);
+            buffer.position(buffer.position() + n);
+            credit -= n;
+            return credit > 0;
+        }
+    }
+
+    private static void copy(ByteBuffer buffer, OutputStream out) {
+        while (buffer.hasRemaining()) {
+            try {
+                out.write(buffer.get());
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static byte[] expected(int records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = Json.createGenerator(out)) {
+            generate(generator, 0, records);
+        }
+        return out.toByteArray();
+    }
+
+    private static void generate(JsonGenerator generator, int from, int to) {
+        generator.writeStartArray();
+        for (int i = from; i < to; i++) {
+            writeRecord(generator, i);
+        }
+        generator.writeEnd();
+    }
+
+    private static void writeRecord(JsonGenerator generator, int i) {
+        generator.writeStartObject()
+                .write("id", i)
+                .write("name", "record é€😀 " + i)
+                .write("ok", i % 2 == 0)
+                .writeEnd();
+    }
+
+}
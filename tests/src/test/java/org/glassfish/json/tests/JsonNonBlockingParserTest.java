@@ -0,0 +1,316 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.JsonNonBlockingParser;
+import org.glassfish.json.JsonProviderImpl;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * {@link JsonNonBlockingParser} tests
+ */
+public class JsonNonBlockingParserTest extends TestCase {
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    private static final String[] DOCUMENTS = {
+        "{\"name\":\"Jo\\\"hn\", \"age\" : -12.5e+3, \"ok\":true,\"no\":false,\"nil\":null}",
+        "[1, 22, 333, -0, 0.5, 1E10, 12345678901234567890, [], {}, [[{\"a\":[]}]]]",
+        "\r\n {\"esc\":\"\\u00e9\\n\\t\\\\\\/\", \"é€😀\":\"é€😀\"}\n",
+        "﻿[\"bom\"]",
+        "\"scalar\"",
+        "-123",
+        "true",
+        "{\"a\":1} [2] \"three\" 4",
+    };
+
+    public JsonNonBlockingParserTest(String testName) {
+        super(testName);
+    }
+
+    public void testByteByByte() {
+        for (String json : DOCUMENTS) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            assertEquals(json, expected(json), parse(bytes, new Random(), 1, false));
+        }
+    }
+
+    public void testRandomChunks() throws Exception {
+        Random random = new Random(42);
+        byte[] twitter = resource("/twitter.json");
+        String json = new String(twitter, StandardCharsets.UTF_8);
+        String expected = expected(json);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(expected, parse(twitter, random, 1 + random.nextInt(64), i % 2 == 0));
+        }
+        for (String doc : DOCUMENTS) {
+            byte[] bytes = doc.getBytes(StandardCharsets.UTF_8);
+            assertEquals(doc, expected(doc), parse(bytes, random, 7, true));
+        }
+    }
+
+    public void testNeedsInput() {
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            assertTrue(parser.needsInput());
+            feed(parser, "{\"a\": 12");
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals("a", parser.getString());
+            assertFalse(parser.hasNext());
+            assertTrue(parser.needsInput());
+
+            feed(parser, "3, \"b\": \"x\\");
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            assertEquals(123, parser.getInt());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertTrue(parser.needsInput());
+
+            feed(parser, "u00e9\", \"c\": nu");
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals("xé", parser.getString());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertTrue(parser.needsInput());
+
+            feed(parser, "ll}");
+            assertEquals(Event.VALUE_NULL, parser.next());
+            assertEquals(Event.END_OBJECT, parser.next());
+            assertFalse(parser.hasNext());
+            assertTrue(parser.needsInput());
+
+            parser.endOfInput();
+            assertFalse(parser.hasNext());
+            assertFalse(parser.needsInput());
+        }
+    }
+
+    public void testNumberAtEnd() {
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            feed(parser, "4");
+            feed(parser, "2");
+            assertTrue(parser.needsInput());
+            parser.endOfInput();
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            assertEquals(42L, parser.getLong());
+            assertFalse(parser.hasNext());
+        }
+    }
+
+    public void testGetObjectNeedsInput() {
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            feed(parser, "[{\"a\":[1");
+            assertEquals(Event.START_ARRAY, parser.next());
+            assertEquals(Event.START_OBJECT, parser.next());
+            try {
+                parser.getObject();
+                fail("getObject() needs the rest of the object");
+            } catch (IllegalStateException expected) {
+                // no-op
+            }
+            feed(parser, ",2]}, [3, [4]], ");
+            JsonObject object = parser.getObject();
+            assertEquals(Json.createReader(new StringReader("{\"a\":[1,2]}")).readObject(), object);
+            assertEquals(Event.START_ARRAY, parser.next());
+            JsonArray array = (JsonArray)parser.getValue();
+            assertEquals(2, array.size());
+            assertTrue(parser.needsInput());
+            feed(parser, "5, 6]");
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            assertEquals(5, parser.getInt());
+            parser.skipArray();
+            assertFalse(parser.hasNext());
+            parser.endOfInput();
+            assertFalse(parser.hasNext());
+        }
+    }
+
+    public void testSkipNeedsInput() {
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            feed(parser, "{\"a\":{\"b\":[1,");
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.START_OBJECT, parser.next());
+            try {
+                parser.skipObject();
+                fail("skipObject() needs the rest of the object");
+            } catch (IllegalStateException expected) {
+                // no-op
+            }
+            feed(parser, "2]},\"c\":3}");
+            parser.skipObject();
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals("c", parser.getString());
+            try {
+                parser.getValueStream();
+                fail("getValueStream() needs the whole input");
+            } catch (IllegalStateException expected) {
+                // no-op
+            }
+        }
+    }
+
+    public void testMalformed() {
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            feed(parser, "[1,}");
+            assertEquals(Event.START_ARRAY, parser.next());
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            try {
+                parser.next();
+                fail("Expected a parsing exception for [1,}");
+            } catch (JsonParsingException expected) {
+                // no-op
+            }
+        }
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            feed(parser, "[tr");
+            assertEquals(Event.START_ARRAY, parser.next());
+            feed(parser, "ux,");
+            try {
+                parser.next();
+                fail("Expected a parsing exception for trux");
+            } catch (JsonParsingException expected) {
+                // no-op
+            }
+        }
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            feed(parser, "[\"abc");
+            parser.endOfInput();
+            assertEquals(Event.START_ARRAY, parser.next());
+            try {
+                parser.next();
+                fail("Expected a parsing exception for an unterminated string");
+            } catch (JsonParsingException expected) {
+                // no-op
+            }
+        }
+    }
+
+    public void testFeedAfterEndOfInput() {
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            parser.endOfInput();
+            try {
+                feed(parser, "1");
+                fail("No input can be fed after the end of input");
+            } catch (IllegalStateException expected) {
+                // no-op
+            }
+        }
+    }
+
+    // Feeds the bytes in chunks of random sizes up to maxChunk, and
+    // records the events that are available after each chunk
+    private String parse(byte[] bytes, Random random, int maxChunk, boolean direct) {
+        StringBuilder sb = new StringBuilder();
+        try (JsonNonBlockingParser parser = provider.createNonBlockingParser()) {
+            int i = 0;
+            while (i < bytes.length) {
+                int len = Math.min(bytes.length - i, 1 + random.nextInt(maxChunk));
+                ByteBuffer chunk = direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+                chunk.put(bytes, i, len).flip();
+                parser.feed(chunk);
+                assertFalse(chunk.hasRemaining());
+                i += len;
+                record(parser, sb);
+                assertTrue(parser.needsInput());
+            }
+            parser.endOfInput();
+            record(parser, sb);
+            assertFalse(parser.needsInput());
+        }
+        return sb.toString();
+    }
+
+    private static String expected(String json) {
+        StringBuilder sb = new StringBuilder();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        try (JsonParser parser = Json.createParser(new ByteArrayInputStream(bytes))) {
+            record(parser, sb);
+        }
+        return sb.toString();
+    }
+
+    private static void record(JsonParser parser, StringBuilder sb) {
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            sb.append(event);
+            switch (event) {
+                case KEY_NAME:
+                case VALUE_STRING:
+                    sb.append('=').append(parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    sb.append('=').append(parser.getBigDecimal());
+                    break;
+                default:
+            }
+            sb.append('\n');
+        }
+    }
+
+    private static void feed(JsonNonBlockingParser parser, String text) {
+        parser.feed(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] resource(String name) throws Exception {
+        try (InputStream in = JsonNonBlockingParserTest.class.getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+
+}
@@ -43,6 +43,11 @@ package org.glassfish.json.tests;
 import junit.framework.TestCase;
 
 import javax.json.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * @author Jitendra Kotamraju
@@ -72,6 +77,35 @@ public class JsonObjectTest extends TestCase {
         assertEquals(person1, person2);
     }
 
+    public void testObjectHashCode() throws Exception {
+        JsonObject person1 = JsonBuilderTest.buildPerson();
+        JsonObject person2 = JsonReaderTest.readPerson();
+        Map<String, JsonValue> map = new LinkedHashMap<>(person1);
+
+        assertEquals(person1.hashCode(), person2.hashCode());
+        assertEquals(map.hashCode(), person1.hashCode());
+        assertEquals(map, person1);
+        assertEquals(person1, map);
+
+        // Same as person, except for a deep value
+        JsonObject other = Json.createObjectBuilder(person1)
+                .add("phoneNumber", Json.createArrayBuilder(person1.getJsonArray("phoneNumber"))
+                        .set(1, Json.createObjectBuilder()
+                                .add("type", "fax")
+                                .add("number", "646 555-4568")))
+                .build();
+        assertFalse(person1.equals(other));
+        assertFalse(other.equals(person2));
+        assertFalse(person1.hashCode() == other.hashCode());
+        assertEquals(person1.hashCode(), person1.hashCode());
+
+        // Compared with and without a cached hash code on either side
+        JsonObject copy = Json.createObjectBuilder(person1).build();
+        assertEquals(copy, person1);
+        assertEquals(person1, copy);
+        assertFalse(Json.createObjectBuilder(other).build().equals(person1));
+    }
+
     static void testPerson(JsonObject person) {
         assertEquals(5, person.size());
         assertEquals("John", person.getString("firstName"));
@@ -137,6 +171,101 @@ public class JsonObjectTest extends TestCase {
         }
     }
 
+    public void testLargeObject() {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        Map<String, JsonValue> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            builder.add("name" + i, i);
+            expected.put("name" + i, Json.createValue(i));
+        }
+        // replaces the value at the same position
+        builder.add("name50", "fifty");
+        expected.put("name50", Json.createValue("fifty"));
+        builder.remove("name7");
+        builder.remove("missing");
+        expected.remove("name7");
+        JsonObject obj = builder.build();
+
+        assertEquals(99, obj.size());
+        assertEquals(expected, obj);
+        assertEquals(obj, expected);
+        assertEquals(expected.hashCode(), obj.hashCode());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(obj.keySet()));
+        assertEquals("fifty", obj.getString("name50"));
+        assertEquals(99, obj.getInt("name99"));
+        assertNull(obj.get("name7"));
+        assertFalse(obj.containsKey("name7"));
+        assertFalse(obj.containsKey(7));
+
+        // copies keep working after the original builder is reused
+        JsonObjectBuilder copy = Json.createObjectBuilder(obj);
+        for (int i = 0; i < 95; i++) {
+            copy.remove("name" + i);
+        }
+        copy.add("name0", 0);
+        JsonObject small = copy.build();
+        assertEquals(6, small.size());
+        assertEquals(0, small.getInt("name0"));
+        assertEquals(Arrays.asList("name95", "name96", "name97", "name98", "name99", "name0"),
+                new ArrayList<>(small.keySet()));
+        assertEquals(expected, obj);
+    }
+
+    public void testImmutableViews() {
+        JsonObject obj = Json.createObjectBuilder().add("foo", 1).add("bar", 2).build();
+        try {
+            obj.entrySet().iterator().next().setValue(JsonValue.NULL);
+            fail("JsonObject entries should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        try {
+            obj.keySet().clear();
+            fail("JsonObject#keySet() should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        try {
+            obj.values().remove(JsonValue.NULL);
+            fail("JsonObject#values() should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        assertEquals(2, obj.size());
+    }
+
+    public void testLargeObjectUpdates() {
+        Map<String, JsonValue> expected = new LinkedHashMap<>();
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.add("k" + i, i);
+            expected.put("k" + i, Json.createValue(i));
+        }
+        JsonObject original = builder.build();
+        JsonObject object = original;
+        Random r = new Random(5);
+        for (int i = 0; i < 3000; i++) {
+            String name = "k" + r.nextInt(1200);
+            JsonPointer pointer = new JsonPointer("/" + name);
+            if (r.nextInt(3) == 0 && expected.containsKey(name)) {
+                object = (JsonObject)pointer.remove(object);
+                expected.remove(name);
+            } else {
+                JsonValue value = Json.createValue("v" + i);
+                object = (JsonObject)pointer.add(object, value);
+                expected.put(name, value);
+            }
+        }
+        assertEquals(expected, object);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(object.keySet()));
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(object.values()));
+        assertEquals(object, Json.createObjectBuilder(object).build());
+        assertEquals(1000, original.size());
+        assertEquals(999, original.getInt("k999"));
+        assertFalse(object.containsKey("k1200"));
+        assertNull(object.get("k1200"));
+    }
+
     public void testObjectBuilderNpe() {
         try {
             JsonObject obj = Json.createObjectBuilder().add(null, 1).build();
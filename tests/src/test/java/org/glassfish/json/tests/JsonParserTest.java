@@ -43,19 +43,29 @@ package org.glassfish.json.tests;
 import junit.framework.TestCase;
 
 import javax.json.*;
+import javax.json.stream.JsonGenerator;
 import javax.json.stream.JsonLocation;
 import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParser.Event;
 import javax.json.stream.JsonParserFactory;
+import javax.json.stream.JsonParsingException;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Random;
 
+import org.glassfish.json.JsonParserFactoryImpl;
+import org.glassfish.json.JsonParserImpl;
+import org.glassfish.json.JsonProviderImpl;
 import org.glassfish.json.api.BufferPool;
 
 /**
@@ -410,6 +420,121 @@ public class JsonParserTest extends TestCase {
         parser.close();
     }
 
+    public void testUTF8StreamAcrossBuffers() throws Throwable {
+        // strings and numbers that start, end and cross the 8K byte buffer
+        // boundary, with 1, 2, 3 and 4 byte UTF-8 chars and escapes
+        String[] fills = { "a", "\u00fc", "\u20ac", "\ud83d\ude00", "\\n" };
+        JsonParserFactory factory = Json.createParserFactory(null);
+        for (String fill : fills) {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < 8150) {
+                sb.append(fill);
+            }
+            for (int i = 0; i < 100; i++) {
+                sb.append(fill);
+                String json = "{\"" + sb + "\":\"" + sb + "\",\"n\":-1234567.89e2}";
+                try {
+                    assertSameEvents(factory.createParser(new StringReader(json)),
+                        factory.createParser(new ByteArrayInputStream(
+                                json.getBytes(StandardCharsets.UTF_8))));
+                } catch (Throwable e) {
+                    throw new Throwable("Failed for fill=" + fill + " length=" + sb.length(), e);
+                }
+            }
+        }
+    }
+
+    public void testUTF8StreamLocation() {
+        String json = "[\"\u00fc\u00df\", \"\u20ac\",\r\n\"\ud83d\ude00\"\n, 12, {\"\u00e9\":true}]";
+        assertSameEvents(Json.createParser(new StringReader(json)),
+                Json.createParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    public void testUTF8StreamMalformed() {
+        // malformed bytes are replaced, the same as the JDK decoder does
+        byte[] json = { '[', '"', 'a', (byte)0xFF, 'b', (byte)0xC3, '"', ']' };
+        JsonParser parser = Json.createParser(new ByteArrayInputStream(json));
+        parser.next();
+        parser.next();
+        assertEquals(new String(json, 2, 4, StandardCharsets.UTF_8), parser.getString());
+        parser.close();
+    }
+
+    public void testUTF8StreamSamples() throws Exception {
+        for (String file : new String[] {"/facebook.json", "/twitter.json", "/wiki.json"}) {
+            Reader reader = new InputStreamReader(
+                    JsonParserTest.class.getResourceAsStream(file), StandardCharsets.UTF_8);
+            assertSameEvents(Json.createParser(reader),
+                    Json.createParser(JsonParserTest.class.getResourceAsStream(file)));
+        }
+    }
+
+    public void testByteBuffer() throws Exception {
+        JsonParserFactoryImpl factory = (JsonParserFactoryImpl)Json.createParserFactory(null);
+        for (String file : new String[] {"/facebook.json", "/twitter.json", "/wiki.json"}) {
+            byte[] bytes = readBytes(file);
+
+            // heap buffer with an array offset and a position
+            byte[] padded = new byte[bytes.length + 20];
+            System.arraycopy(bytes, 0, padded, 10, bytes.length);
+            ByteBuffer heap = ByteBuffer.wrap(padded, 5, bytes.length + 10).slice();
+            heap.position(5).limit(5 + bytes.length);
+            assertSameEvents(Json.createParser(new StringReader(new String(bytes, StandardCharsets.UTF_8))),
+                    factory.createParser(heap));
+            assertEquals(5, heap.position());
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            assertSameEvents(Json.createParser(new StringReader(new String(bytes, StandardCharsets.UTF_8))),
+                    factory.createParser(direct));
+
+            Path path = Files.createTempFile("jsonp", ".json");
+            try {
+                Files.write(path, bytes);
+                assertSameEvents(Json.createParser(new StringReader(new String(bytes, StandardCharsets.UTF_8))),
+                        factory.createParser(path));
+            } finally {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static byte[] readBytes(String resource) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = JsonParserTest.class.getResourceAsStream(resource)) {
+            byte[] buf = new byte[4096];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // Both the parsers must generate the same events, values and locations
+    static void assertSameEvents(JsonParser expected, JsonParser parser) {
+        while (expected.hasNext()) {
+            assertTrue(parser.hasNext());
+            Event event = expected.next();
+            assertEquals(event, parser.next());
+            if (event == Event.KEY_NAME || event == Event.VALUE_STRING
+                    || event == Event.VALUE_NUMBER) {
+                assertEquals(expected.getString(), parser.getString());
+            }
+            if (event == Event.VALUE_NUMBER) {
+                assertEquals(expected.getBigDecimal(), parser.getBigDecimal());
+                assertEquals(expected.getLong(), parser.getLong());
+            }
+            JsonLocation location = parser.getLocation();
+            assertEquals(expected.getLocation().getLineNumber(), location.getLineNumber());
+            assertEquals(expected.getLocation().getColumnNumber(), location.getColumnNumber());
+            assertEquals(expected.getLocation().getStreamOffset(), location.getStreamOffset());
+        }
+        assertFalse(parser.hasNext());
+        expected.close();
+        parser.close();
+    }
+
     static void testWiki(JsonParser parser) {
 
         Event event = parser.next();
@@ -598,6 +723,328 @@ public class JsonParserTest extends TestCase {
 
     }
 
+    public void testDeepNesting() {
+        // deeper than the initial stack capacity, alternating objects and arrays
+        StringWriter sw = new StringWriter();
+        JsonGenerator generator = Json.createGenerator(sw);
+        generator.writeStartArray();
+        for (int i = 0; i < 100; i++) {
+            generator.writeStartObject().write("i", i).writeStartArray("a");
+        }
+        for (int i = 0; i < 100; i++) {
+            generator.writeEnd().write("end", i).writeEnd();
+        }
+        generator.write(true).writeEnd().close();
+        String json = sw.toString();
+
+        JsonParser parser = Json.createParser(new StringReader(json));
+        int depth = 0, maxDepth = 0;
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            if (event == Event.START_ARRAY || event == Event.START_OBJECT) {
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else if (event == Event.END_ARRAY || event == Event.END_OBJECT) {
+                depth--;
+            }
+        }
+        parser.close();
+        assertEquals(0, depth);
+        assertEquals(201, maxDepth);
+
+        // skips the nested arrays from 50 levels down, the enclosing ones go on
+        parser = Json.createParser(new StringReader(json));
+        assertEquals(Event.START_ARRAY, parser.next());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Event.START_OBJECT, parser.next());
+            parser.next();              // "i"
+            parser.next();              // i
+            parser.next();              // "a"
+            assertEquals(Event.START_ARRAY, parser.next());
+        }
+        parser.skipArray();
+        assertEquals(Event.KEY_NAME, parser.next());
+        assertEquals("end", parser.getString());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertEquals(50, parser.getInt());
+        parser.close();
+    }
+
+    public void testStringChars() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append((char)('a' + i % 26));
+        }
+        String longValue = sb.toString();
+        String json = "{\"id\":-12.5e3, \"caf\\u00e9\":\"\u00e9t\u00e9 \\\"x\\\"\", "
+                + "\"long\":\"" + longValue + "\"}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        JsonProviderImpl provider = new JsonProviderImpl();
+        for (int i = 0; i < 3; i++) {
+            JsonParserImpl parser = (JsonParserImpl)((i == 0)
+                    ? provider.createParser(new StringReader(json))
+                    : (i == 1)
+                    ? provider.createParser(new ByteArrayInputStream(bytes))
+                    : provider.createParser(ByteBuffer.wrap(bytes)));
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertFalse(parser.matchesKey("id"));
+            try {
+                parser.getCharSequence();
+                fail("getCharSequence() should throw IllegalStateException for START_OBJECT");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertTrue(parser.matchesKey("id"));
+            assertFalse(parser.matchesKey("i"));
+            assertFalse(parser.matchesKey("idx"));
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            assertFalse(parser.matchesKey("-12.5e3"));
+            assertEquals("-12.5e3", parser.getCharSequence().toString());
+            assertEquals("-12.5e3", new String(parser.getStringChars(),
+                    parser.getStringOffset(), parser.getStringLength()));
+
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertTrue(parser.matchesKey("caf\u00e9"));
+            assertFalse(parser.matchesKey("cafe"));
+            CharSequence name = parser.getCharSequence();
+            assertEquals(4, name.length());
+            assertEquals('\u00e9', name.charAt(3));
+            assertEquals("af", name.subSequence(1, 3).toString());
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals("\u00e9t\u00e9 \"x\"", parser.getCharSequence().toString());
+            assertEquals("\u00e9t\u00e9 \"x\"", new String(parser.getStringChars(),
+                    parser.getStringOffset(), parser.getStringLength()));
+
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertTrue(parser.matchesKey("long"));
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals(longValue, parser.getCharSequence().toString());
+            assertEquals(longValue.length(), parser.getStringLength());
+            assertEquals(longValue, new String(parser.getStringChars(),
+                    parser.getStringOffset(), parser.getStringLength()));
+            assertEquals(longValue, parser.getString());
+            assertEquals(Event.END_OBJECT, parser.next());
+            parser.close();
+        }
+    }
+
+    public void testGetDouble() {
+        String[] edge = { "0", "-0", "-0.0", "1", "0.1", "-12.5e3", "4.9e-324",
+                "2.4703282292062328e-324", "2.2250738585072011e-308",
+                "1.7976931348623157e308", "1e400", "-1e400", "1e-400",
+                "123456789012345678901234567890", "9007199254740993",
+                "0.30000000000000004", "3.141592653589793238462643383279" };
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder("[");
+        for (String e : edge) {
+            sb.append(e).append(',');
+        }
+        for (int i = 0; i < 2000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                continue;
+            }
+            sb.append(d).append(',');
+            sb.append(random.nextInt()).append('.').append(random.nextInt(1000000)).append(',');
+        }
+        sb.append("1]");
+        String json = sb.toString();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        JsonProviderImpl provider = new JsonProviderImpl();
+        for (int i = 0; i < 3; i++) {
+            JsonParserImpl parser = (JsonParserImpl)((i == 0)
+                    ? provider.createParser(new StringReader(json))
+                    : (i == 1)
+                    ? provider.createParser(new ByteArrayInputStream(bytes))
+                    : provider.createParser(ByteBuffer.wrap(bytes)));
+            assertEquals(Event.START_ARRAY, parser.next());
+            try {
+                parser.getDouble();
+                fail("getDouble() should throw IllegalStateException for START_ARRAY");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            while (parser.next() == Event.VALUE_NUMBER) {
+                String text = parser.getString();
+                double expected = Double.parseDouble(text);
+                assertEquals(text, Double.doubleToRawLongBits(expected),
+                        Double.doubleToRawLongBits(parser.getDouble()));
+            }
+            parser.close();
+        }
+    }
+
+    public void testSkip() {
+        String json = "{\"skip\":{\"a\":[1,\"]}\\\"[{\",{\"b\":null}],\r\n\"\u00e9\ud83d\ude00\":{}},\n"
+                + "\"array\":[[\"x\",{\"y\":[]}],\n true],\"last\":\"\u20ac\"}";
+        JsonParserFactory factory = Json.createParserFactory(null);
+        for (int i = 0; i < 2; i++) {
+            JsonParser parser = (i == 0)
+                    ? factory.createParser(new StringReader(json))
+                    : factory.createParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+            JsonParser expected = Json.createParser(new StringReader(json));
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.START_OBJECT, parser.next());
+            parser.skipArray();         // not in an array, nothing happens
+            parser.skipObject();
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals("array", parser.getString());
+            assertEquals(Event.START_ARRAY, parser.next());
+            parser.skipObject();        // not in an object, nothing happens
+            parser.skipArray();
+
+            // same location as stepping through the events
+            for (int e = 0; e < 28; e++) {
+                expected.next();
+            }
+            assertEquals(expected.getLocation().getLineNumber(), parser.getLocation().getLineNumber());
+            assertEquals(expected.getLocation().getColumnNumber(), parser.getLocation().getColumnNumber());
+            assertEquals(expected.getLocation().getStreamOffset(), parser.getLocation().getStreamOffset());
+
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals("\u20ac", parser.getString());
+            assertEquals(Event.END_OBJECT, parser.next());
+            assertFalse(parser.hasNext());
+            parser.close();
+            expected.close();
+        }
+
+        JsonParser parser = Json.createParser(new StringReader("[[1, \"]\""));
+        parser.next();
+        parser.next();
+        try {
+            parser.skipArray();
+            fail("Expected JsonParsingException for incomplete array");
+        } catch (JsonParsingException expected) {
+            // expected
+        }
+        parser.close();
+    }
+
+    public void testSkipMismatchedBrackets() {
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            deep.append(i % 3 == 0 ? '{' : '[');
+        }
+        StringBuilder close = new StringBuilder();
+        for (int i = 99; i > 0; i--) {
+            close.append(i % 3 == 0 ? '}' : ']');
+        }
+        String[] valid = { "[[{}],{\"a\":[]}]", "[" + deep.substring(1) + close + "]" };
+        String[] invalid = { "[{]}", "[[{\"a\":[}]]]", "{\"a\":[}]}",
+                "[" + deep.substring(1) + close.reverse() + "]" };
+        JsonParserFactory factory = Json.createParserFactory(null);
+        for (int i = 0; i < 2; i++) {
+            for (String json : valid) {
+                JsonParser parser = parser(factory, json, i == 0);
+                parser.next();
+                parser.skipArray();
+                assertFalse(json, parser.hasNext());
+                parser.close();
+            }
+            for (String json : invalid) {
+                JsonParser parser = parser(factory, json, i == 0);
+                Event event = parser.next();
+                try {
+                    if (event == Event.START_ARRAY) {
+                        parser.skipArray();
+                    } else {
+                        parser.skipObject();
+                    }
+                    fail("Expected JsonParsingException for " + json);
+                } catch (JsonParsingException expected) {
+                    // expected
+                }
+                parser.close();
+            }
+        }
+    }
+
+    private static JsonParser parser(JsonParserFactory factory, String json, boolean chars) {
+        return chars
+                ? factory.createParser(new StringReader(json))
+                : factory.createParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void testLargeStringBufferRecycling() {
+        StringBuilder sb = new StringBuilder();
+        Random r = new Random(0);
+        String base64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        while (sb.length() < 3 * 1024 * 1024) {
+            sb.append(base64.charAt(r.nextInt(64)));
+        }
+        String blob = sb.toString();
+        String json = "{\"id\":1,\"blob\":\"" + blob + "\",\"next\":\"" + blob.substring(0, 100) + "\"}";
+
+        final TrackingBufferPool bufferPool = new TrackingBufferPool();
+        JsonParserFactory factory = Json.createParserFactory(
+                Collections.singletonMap(BufferPool.class.getName(), bufferPool));
+        for (int i = 0; i < 2; i++) {
+            JsonParser parser = (i == 0)
+                    ? factory.createParser(new StringReader(json))
+                    : factory.createParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(Event.START_OBJECT, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.VALUE_NUMBER, parser.next());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals(blob, parser.getString());
+            assertEquals(Event.KEY_NAME, parser.next());
+            assertEquals(Event.VALUE_STRING, parser.next());
+            assertEquals(blob.substring(0, 100), parser.getString());
+            assertEquals(Event.END_OBJECT, parser.next());
+            parser.close();
+            assertTrue(bufferPool.largeTaken);
+            assertTrue(bufferPool.outstanding.isEmpty());
+            bufferPool.largeTaken = false;
+        }
+    }
+
+    // Keeps track of the buffers that are not recycled yet
+    static class TrackingBufferPool implements BufferPool {
+        final Map<Object, Boolean> outstanding = new IdentityHashMap<>();
+        boolean largeTaken;
+
+        @Override
+        public char[] take() {
+            return take(4096);
+        }
+
+        @Override
+        public char[] take(int minLength) {
+            char[] buf = new char[minLength];
+            largeTaken |= minLength > 4096;
+            outstanding.put(buf, true);
+            return buf;
+        }
+
+        @Override
+        public void recycle(char[] buf) {
+            assertNotNull(outstanding.remove(buf));
+        }
+
+        @Override
+        public byte[] takeBytes() {
+            return takeBytes(8192);
+        }
+
+        @Override
+        public byte[] takeBytes(int minLength) {
+            byte[] buf = new byte[minLength];
+            largeTaken |= minLength > 8192;
+            outstanding.put(buf, true);
+            return buf;
+        }
+
+        @Override
+        public void recycleBytes(byte[] buf) {
+            assertNotNull(outstanding.remove(buf));
+        }
+    }
+
     static class MyBufferPool implements BufferPool {
         private boolean takeCalled;
         private boolean recycleCalled;
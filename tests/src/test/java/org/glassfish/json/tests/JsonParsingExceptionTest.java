@@ -46,7 +46,11 @@ import javax.json.Json;
 import javax.json.stream.JsonLocation;
 import javax.json.stream.JsonParser;
 import javax.json.stream.JsonParsingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * JsonParsingException Tests
@@ -132,8 +136,66 @@ public class JsonParsingExceptionTest extends TestCase {
         testMalformedJson("[null\r\n, null\r\n}", new MyLocation(3, 1, 15));
     }
 
+    public void testLocationAfterMalformedUtf8() {
+        // stray continuation, invalid lead, truncated, overlong, surrogate
+        // and out of range sequences decode to U+FFFD, a valid 4-byte
+        // sequence to a surrogate pair
+        int[][] strings = { { 0x80 }, { 0xBF, 0xBF }, { 0xFF }, { 0xC0, 0xAF },
+                { 0xE2, 0x82 }, { 0xE2, 0x82, 0x41 }, { 0xE0, 0x80, 0x80 },
+                { 0xED, 0xA0, 0x80 }, { 0xF0, 0x9F, 0x98 }, { 0xF4, 0x90, 0x80, 0x80 },
+                { 0xF0, 0x9F, 0x98, 0x80 }, { 0xC3, 0xA9, 0x80, 0xE2, 0x82, 0xAC } };
+        for (int[] string : strings) {
+            // the string is read as a token, then skipped with skipArray()
+            for (int skip = 0; skip < 2; skip++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                out.write('[');
+                out.write('[');
+                out.write('"');
+                for (int b : string) {
+                    out.write(b);
+                }
+                out.write('"');
+                out.write(']');
+                out.write(',');
+                out.write('\n');
+                out.write('x');
+                byte[] bytes = out.toByteArray();
+                JsonLocation expected = location(Json.createParser(
+                        new StringReader(new String(bytes, StandardCharsets.UTF_8))), skip == 1);
+                JsonLocation got = location(Json.createParser(new ByteArrayInputStream(bytes)), skip == 1);
+                String msg = Arrays.toString(string);
+                assertEquals(msg, 2, got.getLineNumber());
+                assertEquals(msg, expected.getColumnNumber(), got.getColumnNumber());
+                assertEquals(msg, expected.getStreamOffset(), got.getStreamOffset());
+            }
+        }
+    }
+
+    private static JsonLocation location(JsonParser parser, boolean skip) {
+        try (JsonParser p = parser) {
+            if (skip) {
+                p.next();
+                p.next();
+                p.skipArray();
+            }
+            while (p.hasNext()) {
+                p.next();
+            }
+        } catch (JsonParsingException je) {
+            return je.getLocation();
+        }
+        throw new AssertionError("Expected JsonParsingException");
+    }
+
     private void testMalformedJson(String json, JsonLocation expected) {
-        try (JsonParser parser = Json.createParser(new StringReader(json))) {
+        testMalformedJson(Json.createParser(new StringReader(json)), json, expected);
+        testMalformedJson(Json.createParserFactory(null).createParser(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8), json, expected);
+    }
+
+    private void testMalformedJson(JsonParser jsonParser, String json, JsonLocation expected) {
+        try (JsonParser parser = jsonParser) {
             while (parser.hasNext()) {
                 parser.next();
             }
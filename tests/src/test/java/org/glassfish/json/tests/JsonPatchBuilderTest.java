@@ -42,9 +42,12 @@ package org.glassfish.json.tests;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import javax.json.Json;
+import javax.json.JsonException;
 import javax.json.JsonObject;
+import javax.json.JsonPatch;
 import javax.json.JsonPatchBuilder;
 
 import org.junit.Test;
@@ -69,6 +72,85 @@ public class JsonPatchBuilderTest {
         
     }
 
+    @Test
+    public void shouldApplyJsonPatchInWorkingCopy() {
+        JsonObject person = buildPerson();
+        JsonPatch patch = Json.createPatchBuilder()
+                    .add("/email", "john@example.com")
+                    .replace("/age", 30)
+                    .add("/phoneNumber/0/ext", 12)
+                    .move("/phoneNumber/-", "/phoneNumber/0")
+                    .copy("/address/phone", "/phoneNumber/1")
+                    .test("/address/phone/ext", 12)
+                    .remove("/phoneNumber/0")
+                    .move("/address/zip", "/address/postalCode")
+                    .test("/address", Json.createObjectBuilder()
+                            .add("streetAddress", "21 2nd Street")
+                            .add("city", "New York")
+                            .add("state", "NY")
+                            .add("phone", Json.createObjectBuilder()
+                                    .add("type", "home")
+                                    .add("number", "212 555-1234")
+                                    .add("ext", 12))
+                            .add("zip", "10021").build())
+                    .build();
+        assertThat(patch.applyInWorkingCopy(person), is(patch.apply(person)));
+        assertThat(person, is(buildPerson()));
+
+        JsonPatch failing = Json.createPatchBuilder()
+                    .remove("/address/city")
+                    .replace("/phoneNumber/1/type", "work")
+                    .test("/address/city", "New York")
+                    .build();
+        try {
+            failing.applyInWorkingCopy(person);
+            fail("The JSON patch operation 'test' must fail");
+        } catch (JsonException expected) {
+        }
+        assertThat(person, is(buildPerson()));
+    }
+
+    @Test
+    public void shouldApplyCompiledJsonPatchToManyTargets() throws Exception {
+        JsonPatch patch = Json.createPatchBuilder()
+                    .add("/email", "john@example.com")
+                    .replace("/age", 30)
+                    .remove("/phoneNumber")
+                    .test("/firstName", "John")
+                    .copy("/address/lastName", "/lastName")
+                    .build()
+                    .compile();
+        Thread[] threads = new Thread[4];
+        JsonObject[] results = new JsonObject[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            int t = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    results[t] = patch.apply(buildPerson());
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertThat(results[i], is(expectedBuildPerson()));
+        }
+        assertThat(patch.applyInWorkingCopy(buildPerson()), is(expectedBuildPerson()));
+    }
+
+    @Test
+    public void shouldRejectMalformedJsonPatchWhenCompiled() {
+        JsonPatch patch = Json.createPatchBuilder()
+                    .add("/email", "john@example.com")
+                    .move("/address/city", "/address")
+                    .build();
+        try {
+            patch.compile();
+            fail("The 'from' path of the move must not be a prefix of the 'path' path");
+        } catch (JsonException expected) {
+        }
+    }
+
     static JsonObject expectedBuildPerson() {
         return Json.createObjectBuilder()
                 .add("firstName", "John")
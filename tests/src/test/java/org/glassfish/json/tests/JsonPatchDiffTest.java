@@ -126,6 +126,7 @@ public class JsonPatchDiffTest {
         try {
             JsonPatch diff = Json.createPatch(this.original, this.target);
             assertThat(diff, is(new JsonPatch((JsonArray) expected)));
+            assertThat(diff.apply(this.original), is(this.target));
             assertThat(expectedException, nullValue());
         } catch (Exception e) {
             if (expectedException == null) {
@@ -135,4 +136,16 @@ public class JsonPatchDiffTest {
             }
         }
     }
+
+    @Test
+    public void shouldReplaceArraysWithTooManyEdits() {
+        JsonArray source = Json.createArrayBuilder().add(1).add(2).add(3).add(4).build();
+        JsonArray target = Json.createArrayBuilder().add(0).add(2).add(5).add(4).add(6).build();
+        JsonArray diff = JsonPatch.diff(source, target, 4);
+        assertThat(new JsonPatch(diff).apply(source), is(target));
+        assertThat(diff, is(Json.createPatchBuilder().replace("", target).buildAsJsonArray()));
+        diff = JsonPatch.diff(source, target, 5);
+        assertThat(new JsonPatch(diff).apply(source), is(target));
+        assertThat(diff.size(), is(3));
+    }
 }
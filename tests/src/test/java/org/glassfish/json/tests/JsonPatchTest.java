@@ -139,4 +139,24 @@ public class JsonPatchTest {
             }
         }
     }
+
+    @Test
+    public void shouldApplyJsonPatchOperationsInWorkingCopy() {
+        JsonStructure original = target;
+        String text = target.toString();
+        try {
+            JsonPatch patch = Json.createPatchBuilder(this.patch).build();
+            JsonStructure output = patch.applyInWorkingCopy(target);
+            assertThat(output, is(expected));
+            assertThat(expectedException, nullValue());
+        } catch (Exception e) {
+            if (expectedException == null) {
+                fail(e.getMessage());
+            } else {
+                assertThat(e, instanceOf(expectedException));
+            }
+        }
+        assertThat(target.toString(), is(text));
+        assertThat(target, is(original));
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.JsonProjection;
+import org.glassfish.json.JsonProviderImpl;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link JsonProjection} tests
+ */
+public class JsonProjectionTest extends TestCase {
+    private static final String JSON = "{\"id\":7,\"skip\":{\"a\":[1,\"}]\"]},"
+            + "\"user\":{\"name\":\"Duke\",\"tags\":[\"x\",\"y\",\"z\"],\"a/b\":true,\"m~n\":null},"
+            + "\"items\":[{\"v\":1},{\"v\":2},{\"v\":3}],\"last\":\"end\"}";
+
+    private final JsonProviderImpl provider = new JsonProviderImpl();
+
+    public JsonProjectionTest(String testName) {
+        super(testName);
+    }
+
+    public void testProject() {
+        JsonProjection projection = provider.createProjection(Arrays.asList(
+                "/id", "/user/name", "/user/tags/1", "/user/a~1b", "/user/m~0n",
+                "/items/2/v", "/missing", "/items/01", "/user/tags/-"));
+        JsonObject expected = Json.createObjectBuilder()
+                .add("/id", 7)
+                .add("/user/name", "Duke")
+                .add("/user/tags/1", "y")
+                .add("/user/a~1b", true)
+                .addNull("/user/m~0n")
+                .add("/items/2/v", 3)
+                .build();
+        assertEquals(expected, project(projection, JSON, false));
+        assertEquals(expected, project(projection, JSON, true));
+    }
+
+    public void testNestedPointers() {
+        JsonProjection projection = provider.createProjection(Arrays.asList(
+                "/user/tags/0", "/user", "/user/name"));
+        JsonObject result = project(projection, JSON, false);
+        assertEquals(3, result.size());
+        assertEquals("Duke", result.getJsonObject("/user").getString("name"));
+        assertEquals("Duke", result.getString("/user/name"));
+        assertEquals("x", result.getString("/user/tags/0"));
+
+        JsonObject whole = project(provider.createProjection(Collections.singletonList("")), JSON, true);
+        assertEquals(Json.createReader(new StringReader(JSON)).readObject(), whole.getJsonObject(""));
+    }
+
+    public void testCallback() {
+        JsonProjection projection = provider.createProjection(Arrays.asList(
+                "/items/1/v", "/id", "/items/0/v"));
+        List<String> matches = new ArrayList<>();
+        try (JsonParser parser = Json.createParser(new StringReader(JSON))) {
+            projection.project(parser, (pointer, value) -> matches.add(pointer + "=" + value));
+            // all matched, the rest of the document is skipped
+            assertFalse(parser.hasNext());
+        }
+        assertEquals(Arrays.asList("/id=7", "/items/0/v=1", "/items/1/v=2"), matches);
+    }
+
+    public void testSequence() {
+        JsonProjection projection = provider.createProjection(Collections.singletonList("/a"));
+        try (JsonParser parser = Json.createParser(new StringReader("[{\"b\":[1],\"a\":1},{\"a\":[2]},{}]"))) {
+            assertEquals(JsonParser.Event.START_ARRAY, parser.next());
+            assertEquals(1, projection.project(parser).getInt("/a"));
+            assertEquals(2, projection.project(parser).getJsonArray("/a").getInt(0));
+            assertTrue(projection.project(parser).isEmpty());
+            assertEquals(JsonParser.Event.END_ARRAY, parser.next());
+        }
+    }
+
+    public void testInvalidPointer() {
+        try {
+            provider.createProjection(Collections.singletonList("a/b"));
+            fail("Expected JsonException for a pointer without leading '/'");
+        } catch (JsonException expected) {
+            // expected
+        }
+    }
+
+    private static JsonObject project(JsonProjection projection, String json, boolean utf8) {
+        try (JsonParser parser = utf8
+                ? Json.createParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))
+                : Json.createParser(new StringReader(json))) {
+            return projection.project(parser);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+
+import javax.json.spi.JsonProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * {@link JsonProvider#provider()} caching tests
+ */
+public class JsonProviderTest extends TestCase {
+
+    public JsonProviderTest(String testName) {
+        super(testName);
+    }
+
+    public void testProviderIsCached() throws Exception {
+        JsonProvider provider = JsonProvider.provider();
+        assertSame(provider, JsonProvider.provider());
+
+        JsonProvider[] other = new JsonProvider[1];
+        Thread thread = new Thread(() -> other[0] = JsonProvider.provider());
+        thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        thread.start();
+        thread.join();
+        assertSame(provider, other[0]);
+    }
+
+    public void testProviderPerContextClassLoader() throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader loader = thread.getContextClassLoader();
+        JsonProvider provider = JsonProvider.provider();
+        try (URLClassLoader child = new URLClassLoader(new URL[0], loader)) {
+            thread.setContextClassLoader(child);
+            JsonProvider childProvider = JsonProvider.provider();
+            assertNotNull(childProvider);
+            assertSame(childProvider, JsonProvider.provider());
+            thread.setContextClassLoader(loader);
+            assertSame(provider, JsonProvider.provider());
+            thread.setContextClassLoader(child);
+            assertSame(childProvider, JsonProvider.provider());
+        } finally {
+            thread.setContextClassLoader(loader);
+        }
+    }
+
+    public void testClearProviderCache() {
+        JsonProvider provider = JsonProvider.provider();
+        JsonProvider.clearProviderCache();
+        JsonProvider reloaded = JsonProvider.provider();
+        assertSame(provider.getClass(), reloaded.getClass());
+        assertSame(reloaded, JsonProvider.provider());
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.json.tests;
+
+import junit.framework.TestCase;
+import org.glassfish.json.JsonSymbolTable;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link JsonSymbolTable} tests
+ */
+public class JsonSymbolTableTest extends TestCase {
+    public JsonSymbolTableTest(String testName) {
+        super(testName);
+    }
+
+    private static final String DOC =
+            "{\"id\":1, \"caf\\u00e9\":2, \"über\":3, \"a\\\"b\":4, \"" + longName() + "\":5}";
+
+    private static String longName() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= JsonSymbolTable.MAX_NAME_LENGTH; i++) {
+            sb.append((char)('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+    public void testSharedNames() {
+        JsonReaderFactory factory = Json.createReaderFactory(
+                Collections.singletonMap(JsonSymbolTable.class.getName(), new JsonSymbolTable()));
+        JsonObject chars = factory.createReader(new StringReader(DOC)).readObject();
+        JsonObject bytes = factory.createReader(new ByteArrayInputStream(
+                DOC.getBytes(StandardCharsets.UTF_8))).readObject();
+        JsonObject expected = Json.createReader(new StringReader(DOC)).readObject();
+        assertEquals(expected, chars);
+        assertEquals(expected, bytes);
+
+        Iterator<String> it = bytes.keySet().iterator();
+        for (String name : chars.keySet()) {
+            String other = it.next();
+            assertEquals(name, other);
+            if (name.length() <= JsonSymbolTable.MAX_NAME_LENGTH) {
+                assertSame(name, other);
+            } else {
+                assertNotSame(name, other);
+            }
+        }
+    }
+
+    public void testNotShared() {
+        JsonReaderFactory factory = Json.createReaderFactory(Collections.emptyMap());
+        JsonObject first = factory.createReader(new StringReader(DOC)).readObject();
+        JsonObject second = factory.createReader(new StringReader(DOC)).readObject();
+        assertNotSame(first.keySet().iterator().next(), second.keySet().iterator().next());
+    }
+
+    public void testParser() {
+        JsonSymbolTable symbols = new JsonSymbolTable();
+        JsonParserFactory factory = Json.createParserFactory(
+                Collections.singletonMap(JsonSymbolTable.class.getName(), symbols));
+        assertSame(symbols, factory.getConfigInUse().get(JsonSymbolTable.class.getName()));
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            try (JsonParser parser = factory.createParser(new StringReader("[{\"name\":\"name\"}]"))) {
+                while (parser.hasNext()) {
+                    if (parser.next() == JsonParser.Event.KEY_NAME) {
+                        names.add(parser.getString());
+                    }
+                }
+            }
+        }
+        assertEquals(2, names.size());
+        assertSame(names.get(0), names.get(1));
+    }
+
+    // Names evict each other in a small table, concurrent parsers still
+    // get the right ones
+    public void testConcurrentEviction() {
+        Map<String, ?> config = Collections.singletonMap(
+                JsonSymbolTable.class.getName(), new JsonSymbolTable(2));
+        JsonReaderFactory factory = Json.createReaderFactory(config);
+        List<Integer> sums = IntStream.range(0, 2000).parallel().mapToObj(i -> {
+            StringBuilder sb = new StringBuilder("{");
+            for (int k = 0; k < 20; k++) {
+                sb.append(k == 0 ? "" : ",").append("\"key").append((i + k) % 37).append("\":")
+                        .append((i + k) % 37);
+            }
+            sb.append('}');
+            try (JsonReader reader = factory.createReader(new ByteArrayInputStream(
+                    sb.toString().getBytes(StandardCharsets.UTF_8)))) {
+                JsonObject obj = reader.readObject();
+                int sum = 0;
+                for (String name : obj.keySet()) {
+                    assertEquals("key" + obj.getInt(name), name);
+                    sum += obj.getInt(name);
+                }
+                return sum;
+            }
+        }).collect(Collectors.toList());
+        assertEquals(2000, sums.size());
+    }
+
+    public void testCapacity() {
+        assertEquals(JsonSymbolTable.DEFAULT_CAPACITY, new JsonSymbolTable().getCapacity());
+        assertEquals(128, new JsonSymbolTable(100).getCapacity());
+        try {
+            new JsonSymbolTable(0);
+            fail("JsonSymbolTable(0) should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}